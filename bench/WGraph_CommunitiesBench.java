@@ -0,0 +1,69 @@
+package ex1.bench;
+
+import ex1.src.*;
+
+import java.util.SplittableRandom;
+
+/**
+ * Measures the Louvain method (WGraph_Communities) sequentially and in parallel on WGraph_DS graphs - planted
+ * communities of 100 nodes, a grid, R-MAT and Barabasi-Albert - in millions of edges per second, with the number
+ * of communities and the modularity found.
+ *
+ * Usage: java ex1.bench.WGraph_CommunitiesBench [million edges]
+ */
+public class WGraph_CommunitiesBench {
+
+    public static void main(String[] args) {
+        double millions = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+        long edges = (long) (millions * 1_000_000);
+        int side = (int) Math.sqrt(edges / 2.0);
+        int scale = 31 - Integer.numberOfLeadingZeros((int) Math.max(2, edges / 16));
+        System.out.printf("%d cores, about %.1fM edges%n", Runtime.getRuntime().availableProcessors(), millions);
+        WGraph_Generator.Weights weights = WGraph_Generator.Weights.uniform(1, 10);
+        String[] names = {"planted", "grid", "rmat", "barabasiAlbert"};
+        Generator[] generators = {
+                s -> planted((int) (edges / 5), 100, s),
+                s -> WGraph_Generator.grid(side, side, weights, 1, s),
+                s -> WGraph_Generator.rmat(scale, 16, 0.57, 0.19, 0.19, weights, 1, s),
+                s -> WGraph_Generator.barabasiAlbert((int) (edges / 4), 4, weights, 1, s)};
+        for (int i = 0; i < generators.length; i++) {
+            WGraph_DS g = new WGraph_DS();
+            generators[i].generate(WGraph_Generator.Sink.of(g));
+            WGraph_Communities.Partition partition = null;
+            double[] seconds = new double[2];
+            for (int mode = 0; mode < 2; mode++) {
+                seconds[mode] = Double.MAX_VALUE;
+                for (int round = 0; round < 3; round++) {
+                    long start = System.nanoTime();
+                    partition = WGraph_Communities.louvain(g, 1, 1, mode == 1);
+                    seconds[mode] = Math.min(seconds[mode], (System.nanoTime() - start) / 1e9);
+                }
+            }
+            System.out.printf("%-15s %,d edges, %s%n", names[i], g.edgeSize(), partition);
+            System.out.printf("%-15s sequential %.2fs (%.2f M edges/s)  parallel %.2fs (%.2f M edges/s)%n", "",
+                    seconds[0], g.edgeSize() / seconds[0] / 1e6, seconds[1], g.edgeSize() / seconds[1] / 1e6);
+        }
+    }
+
+    /** Groups of the given size, every node with 8 random edges inside its group and 2 to random nodes. */
+    private static void planted(int n, int size, WGraph_Generator.Sink sink) {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < n; i++) {
+            sink.addNode(i);
+        }
+        for (int i = 0; i < n; i++) {
+            int group = i / size * size;
+            for (int e = 0; e < 4; e++) {
+                int j = Math.min(n - 1, group + random.nextInt(size));
+                if (j != i) {
+                    sink.connect(i, j, 1 + random.nextInt(3));
+                }
+            }
+            sink.connect(i, random.nextInt(n), 1);
+        }
+    }
+
+    private interface Generator {
+        void generate(WGraph_Generator.Sink sink);
+    }
+}
@@ -0,0 +1,97 @@
+package ex1.bench;
+
+import ex1.src.*;
+
+import java.util.Random;
+
+/**
+ * Compares the memory of the compressed graph (WGraph_Compressed) to the cost of decoding it.
+ * The graph is a side x side grid with random weights whose keys are shuffled and then relabeled by
+ * Reverse Cuthill-McKee (so the neighbors have close ids, like in a real road or web graph).
+ * For every layout it prints the bytes per edge (all of the graph and the adjacency lists alone), the time of
+ * a full sweep over all the adjacency lists (forEachNeighbor on every node) and the time of random
+ * shortestPathDist queries.
+ *
+ * Usage: java ex1.bench.WGraph_CompressedBench [side] [queries]
+ */
+public class WGraph_CompressedBench {
+    private static final int ROUNDS = 5;
+    // keeps the JIT from dropping the measured loops
+    private static volatile double sink;
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        weighted_graph grid = shuffledGrid(side, 1);
+        WGraph_DS g = WGraph_Reorder.relabel(grid, WGraph_Reorder.reverseCuthillMcKee(grid));
+        System.out.printf("grid %dx%d: %d nodes, %d edges%n", side, side, g.nodeSize(), g.edgeSize());
+
+        Random rnd = new Random(2);
+        int[][] pairs = new int[queries][2];
+        for (int[] pair : pairs) {
+            pair[0] = rnd.nextInt(g.nodeSize());
+            pair[1] = rnd.nextInt(g.nodeSize());
+        }
+        try (WGraph_OffHeap csr = WGraph_OffHeap.of(g)) {
+            long adjacency = 2L * csr.edgeCount() * (Integer.BYTES + Double.BYTES);
+            report("WGraph_OffHeap (CSR)", csr, csr.offHeapBytes(), adjacency, pairs);
+        }
+        for (WGraph_Compressed.Weights weights : WGraph_Compressed.Weights.values()) {
+            WGraph_Compressed c = WGraph_Compressed.of(g, weights);
+            report("WGraph_Compressed " + weights, c, c.compressedBytes(), c.adjacencyBytes(), pairs);
+        }
+    }
+
+    private static void report(String name, weighted_graph g, long bytes, long adjacencyBytes, int[][] pairs) {
+        WGraph_Algo ag = new WGraph_Algo();
+        ag.init(g);
+        double[] sum = {0};
+        long sweep = Long.MAX_VALUE;
+        long search = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (node_info node : g.getV()) {
+                g.forEachNeighbor(node.getKey(), (key, w) -> sum[0] += w);
+            }
+            sweep = Math.min(sweep, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int[] pair : pairs) {
+                sum[0] += ag.shortestPathDist(pair[0], pair[1]);
+            }
+            search = Math.min(search, System.nanoTime() - start);
+        }
+        sink = sum[0];
+        System.out.printf("%-28s %6.2f bytes/edge (adjacency %5.2f)  sweep %7.2fms  shortestPathDist %8.2fms%n",
+                name, (double) bytes / g.edgeSize(), (double) adjacencyBytes / g.edgeSize(), sweep / 1e6, search / 1e6);
+    }
+
+    private static weighted_graph shuffledGrid(int side, long seed) {
+        Random rnd = new Random(seed);
+        int n = side * side;
+        int[] key = new int[n];
+        for (int i = 0; i < n; i++) {
+            key[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = key[i];
+            key[i] = key[j];
+            key[j] = t;
+        }
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < n; i++) {
+            g.addNode(key[i]);
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) {
+                    g.connect(key[r * side + c], key[r * side + c + 1], 1 + rnd.nextDouble());
+                }
+                if (r + 1 < side) {
+                    g.connect(key[r * side + c], key[(r + 1) * side + c], 1 + rnd.nextDouble());
+                }
+            }
+        }
+        return g;
+    }
+}
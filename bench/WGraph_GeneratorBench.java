@@ -0,0 +1,63 @@
+package ex1.bench;
+
+import ex1.src.*;
+
+import java.util.function.Supplier;
+
+/**
+ * Measures how fast the generators (WGraph_Generator) produce edges - on their own (into a sink that drops them),
+ * into a Builder of an off-heap graph and into a WGraph_DS, in millions of edges per second.
+ *
+ * Usage: java ex1.bench.WGraph_GeneratorBench [million edges]
+ */
+public class WGraph_GeneratorBench {
+    // keeps the JIT from dropping the generated edges
+    private static volatile double sink;
+
+    public static void main(String[] args) {
+        double millions = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        long edges = (long) (millions * 1_000_000);
+        int side = (int) Math.sqrt(edges / 2.0);
+        int n = (int) (edges / 4);
+        int scale = 31 - Integer.numberOfLeadingZeros((int) Math.max(2, edges / 16));
+        System.out.printf("%d cores, about %.1fM edges%n", Runtime.getRuntime().availableProcessors(), millions);
+        WGraph_Generator.Weights weights = WGraph_Generator.Weights.uniform(1, 10);
+        Generator[] generators = {
+                s -> WGraph_Generator.grid(side, side, weights, 1, s),
+                s -> WGraph_Generator.erdosRenyi(n, 8.0 / n, weights, 1, s),
+                s -> WGraph_Generator.barabasiAlbert(n, 4, weights, 1, s),
+                s -> WGraph_Generator.rmat(scale, 16, 0.57, 0.19, 0.19, weights, 1, s)};
+        String[] names = {"grid", "erdosRenyi", "barabasiAlbert", "rmat"};
+        for (int i = 0; i < generators.length; i++) {
+            double alone = rate(generators[i], () -> new WGraph_Generator.Sink() {
+                @Override
+                public void addNode(int key) {
+                }
+
+                @Override
+                public void connect(int node1, int node2, double w) {
+                    sink += w;
+                }
+            });
+            double builder = rate(generators[i], () -> WGraph_Generator.Sink.of(new WGraph_OffHeap.Builder()));
+            double ds = rate(generators[i], () -> WGraph_Generator.Sink.of(new WGraph_DS()));
+            System.out.printf("%-15s generate %7.2f  Builder %7.2f  WGraph_DS %7.2f  (M edges/s)%n",
+                    names[i], alone, builder, ds);
+        }
+    }
+
+    private static double rate(Generator generator, Supplier<WGraph_Generator.Sink> sinks) {
+        double best = 0;
+        for (int round = 0; round < 3; round++) {
+            WGraph_Generator.Sink s = sinks.get();
+            long start = System.nanoTime();
+            long edges = generator.generate(s);
+            best = Math.max(best, edges * 1000.0 / (System.nanoTime() - start));
+        }
+        return best;
+    }
+
+    private interface Generator {
+        long generate(WGraph_Generator.Sink sink);
+    }
+}
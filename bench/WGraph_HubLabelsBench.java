@@ -0,0 +1,59 @@
+package ex1.bench;
+
+import ex1.src.*;
+
+import java.util.Random;
+
+/**
+ * Reports the build time, the size and the query latency of the hub labels (WGraph_HubLabels) of a road like
+ * grid and of a scale free (Barabasi-Albert) graph, next to the latency of a dijkstra (WGraph_Algo).
+ *
+ * Usage: java ex1.bench.WGraph_HubLabelsBench [nodes] [queries]
+ */
+public class WGraph_HubLabelsBench {
+    // keeps the JIT from dropping the queries
+    private static volatile double sink;
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int side = (int) Math.sqrt(nodes);
+        weighted_graph grid = new WGraph_DS();
+        WGraph_Generator.grid(side, side, WGraph_Generator.Weights.uniform(1, 10), 1, WGraph_Generator.Sink.of(grid));
+        report("grid", grid, queries);
+        weighted_graph ba = new WGraph_DS();
+        WGraph_Generator.barabasiAlbert(nodes, 3, WGraph_Generator.Weights.uniform(1, 10), 1, WGraph_Generator.Sink.of(ba));
+        report("barabasiAlbert", ba, queries);
+    }
+
+    private static void report(String name, weighted_graph g, int queries) {
+        WGraph_HubLabels labels = WGraph_HubLabels.build(g);
+        Random rnd = new Random(2);
+        int n = g.nodeSize();
+        int[][] pairs = new int[queries][2];
+        for (int[] pair : pairs) {
+            pair[0] = rnd.nextInt(n);
+            pair[1] = rnd.nextInt(n);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int[] pair : pairs) {
+                sink += labels.shortestPathDist(pair[0], pair[1]);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        int searches = Math.min(queries, 100);
+        long start = System.nanoTime();
+        for (int i = 0; i < searches; i++) {
+            sink += algo.shortestPathDist(pairs[i][0], pairs[i][1]);
+        }
+        long dijkstra = (System.nanoTime() - start) / searches;
+        System.out.printf("%s: %d nodes, %d edges%n", name, n, g.edgeSize());
+        System.out.printf("  build %d ms, %.1f hubs per label, %.1f MB%n",
+                labels.buildMillis(), labels.averageLabelSize(), labels.bytes() / 1e6);
+        System.out.printf("  query %.2f us (dijkstra %.1f us)%n", best / 1000.0 / queries, dijkstra / 1000.0);
+    }
+}
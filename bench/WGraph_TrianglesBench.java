@@ -0,0 +1,45 @@
+package ex1.bench;
+
+import ex1.src.*;
+
+/**
+ * Measures triangle counting (WGraph_Triangles) sequentially and in parallel on an R-MAT graph (skewed degrees)
+ * and a Barabasi-Albert graph held off-heap, in millions of edges per second.
+ *
+ * Usage: java ex1.bench.WGraph_TrianglesBench [million edges]
+ */
+public class WGraph_TrianglesBench {
+
+    public static void main(String[] args) {
+        double millions = args.length > 0 ? Double.parseDouble(args[0]) : 4;
+        long edges = (long) (millions * 1_000_000);
+        int scale = 31 - Integer.numberOfLeadingZeros((int) Math.max(2, edges / 16));
+        System.out.printf("%d cores, about %.1fM edges%n", Runtime.getRuntime().availableProcessors(), millions);
+        WGraph_OffHeap.Builder rmat = new WGraph_OffHeap.Builder();
+        WGraph_Generator.rmat(scale, 16, 0.57, 0.19, 0.19, WGraph_Generator.Weights.constant(1), 1,
+                WGraph_Generator.Sink.of(rmat));
+        WGraph_OffHeap.Builder ba = new WGraph_OffHeap.Builder();
+        WGraph_Generator.barabasiAlbert((int) (edges / 8), 8, WGraph_Generator.Weights.constant(1), 1,
+                WGraph_Generator.Sink.of(ba));
+        String[] names = {"rmat", "barabasiAlbert"};
+        WGraph_OffHeap[] graphs = {rmat.build(), ba.build()};
+        for (int i = 0; i < graphs.length; i++) {
+            try (WGraph_OffHeap g = graphs[i]) {
+                WGraph_Triangles triangles = null;
+                double[] seconds = new double[2];
+                for (int mode = 0; mode < 2; mode++) {
+                    seconds[mode] = Double.MAX_VALUE;
+                    for (int round = 0; round < 3; round++) {
+                        long start = System.nanoTime();
+                        triangles = WGraph_Triangles.of(g, mode == 1);
+                        seconds[mode] = Math.min(seconds[mode], (System.nanoTime() - start) / 1e9);
+                    }
+                }
+                System.out.printf("%-15s %,d edges, %,d triangles, transitivity %.4f%n",
+                        names[i], g.edgeSize(), triangles.total(), triangles.transitivity());
+                System.out.printf("%-15s sequential %.2fs (%.1f M edges/s)  parallel %.2fs (%.1f M edges/s)%n", "",
+                        seconds[0], g.edgeSize() / seconds[0] / 1e6, seconds[1], g.edgeSize() / seconds[1] / 1e6);
+            }
+        }
+    }
+}
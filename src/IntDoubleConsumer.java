@@ -0,0 +1,15 @@
+package ex1.src;
+
+/**
+ * Represents an operation that accepts an int and a double (for example a neighbor's key
+ * and the weight of the edge to it) without boxing any of them.
+ */
+@FunctionalInterface
+public interface IntDoubleConsumer {
+    /**
+     * Performs this operation on the given arguments.
+     * @param key
+     * @param value
+     */
+    public void accept(int key, double value);
+}
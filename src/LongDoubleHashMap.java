@@ -0,0 +1,245 @@
+package ex1.src;
+
+import java.io.Serializable;
+
+/**
+ * A map from a primitive long to a primitive double, without any boxing.
+ * Explanation:
+ * An open addressing table with linear probing - the keys and the values are kept in two parallel arrays
+ * and 0 marks a free slot (the key 0 itself is kept aside in zeroValue).
+ * A removal shifts the following entries of the probe chain backward, so there are no "deleted" markers
+ * and a lookup never walks more than the chain it belongs to.
+ */
+final class LongDoubleHashMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private double[] values;
+    private int mask;
+    private int size;
+    private boolean hasZeroKey;
+    private double zeroValue;
+
+    //Default constructor
+    LongDoubleHashMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new double[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    /**
+     * Return the number of keys in the map.
+     * @return int
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Return the number of slots of the table (for memory accounting).
+     * @return int
+     */
+    int capacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Return the bytes of the map - its two arrays and the object itself (see WGraph_Memory).
+     * @return long
+     */
+    long bytes() {
+        return WGraph_Memory.array((long) this.keys.length * Long.BYTES)
+                + WGraph_Memory.array((long) this.values.length * Double.BYTES)
+                + WGraph_Memory.align(WGraph_Memory.HEADER + WGraph_Memory.REFERENCE * 2 + 2 * Integer.BYTES + 1 + Double.BYTES);
+    }
+
+    boolean containsKey(long key) {
+        if (key == 0) {
+            return this.hasZeroKey;
+        }
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Return the value of the key, missing if there is no such key.
+     * @param key
+     * @param missing
+     * @return double
+     */
+    double get(long key, double missing) {
+        if (key == 0) {
+            return this.hasZeroKey ? this.zeroValue : missing;
+        }
+        int slot = slotOf(key);
+        return slot < 0 ? missing : this.values[slot];
+    }
+
+    /**
+     * Put (or replace) the value of a key.
+     * @param key
+     * @param value
+     * @return boolean - true iff the key is new
+     */
+    boolean put(long key, double value) {
+        if (key == 0) {
+            boolean added = !this.hasZeroKey;
+            this.hasZeroKey = true;
+            this.zeroValue = value;
+            if (added) {
+                this.size++;
+            }
+            return added;
+        }
+        int pos = mix(key) & this.mask;
+        while (this.keys[pos] != 0) {
+            if (this.keys[pos] == key) {
+                this.values[pos] = value;
+                return false;
+            }
+            pos = (pos + 1) & this.mask;
+        }
+        this.keys[pos] = key;
+        this.values[pos] = value;
+        this.size++;
+        if (this.size * 2 > this.keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Remove a key from the map.
+     * @param key
+     * @return boolean - true iff the key was in the map
+     */
+    boolean remove(long key) {
+        if (key == 0) {
+            boolean removed = this.hasZeroKey;
+            this.hasZeroKey = false;
+            if (removed) {
+                this.size--;
+            }
+            return removed;
+        }
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return false;
+        }
+        // backward shift - move every following entry of the chain that may sit in the freed slot
+        int free = slot;
+        int pos = (free + 1) & this.mask;
+        while (this.keys[pos] != 0) {
+            int home = mix(this.keys[pos]) & this.mask;
+            if (((pos - home) & this.mask) >= ((pos - free) & this.mask)) {
+                this.keys[free] = this.keys[pos];
+                this.values[free] = this.values[pos];
+                free = pos;
+            }
+            pos = (pos + 1) & this.mask;
+        }
+        this.keys[free] = 0;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Performs the given action on every (key, value) pair of the map.
+     * @param action
+     */
+    void forEach(LongDoubleConsumer action) {
+        if (this.hasZeroKey) {
+            action.accept(0, this.zeroValue);
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) {
+                action.accept(this.keys[i], this.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Two maps are equal iff they have the same keys with the same values.
+     * @param o
+     * @return boolean
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongDoubleHashMap))
+            return false;
+        LongDoubleHashMap other = (LongDoubleHashMap) o;
+        if (this.size != other.size || this.hasZeroKey != other.hasZeroKey
+                || (this.hasZeroKey && Double.compare(this.zeroValue, other.zeroValue) != 0)) {
+            return false;
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) {
+                int slot = other.slotOf(this.keys[i]);
+                if (slot < 0 || Double.compare(this.values[i], other.values[slot]) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An order independent hash - the sum of the hashes of the pairs.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        int hash = this.hasZeroKey ? Double.hashCode(this.zeroValue) : 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) {
+                hash += Long.hashCode(this.keys[i]) ^ Double.hashCode(this.values[i]);
+            }
+        }
+        return hash;
+    }
+
+    private int slotOf(long key) {
+        int pos = mix(key) & this.mask;
+        while (this.keys[pos] != 0) {
+            if (this.keys[pos] == key) {
+                return pos;
+            }
+            pos = (pos + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        long[] oldKeys = this.keys;
+        double[] oldValues = this.values;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new double[oldKeys.length * 2];
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int pos = mix(oldKeys[i]) & this.mask;
+                while (this.keys[pos] != 0) {
+                    pos = (pos + 1) & this.mask;
+                }
+                this.keys[pos] = oldKeys[i];
+                this.values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    /** Spread the bits of a key so close keys don't cluster in the table. */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Represents an operation that accepts a long and a double.
+     */
+    @FunctionalInterface
+    interface LongDoubleConsumer {
+        void accept(long key, double value);
+    }
+}
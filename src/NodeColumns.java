@@ -0,0 +1,255 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The attributes of the nodes of a graph stored column-wise - every node owns a "slot" and:
+ * keys - an int[] column with the key of the node of every slot.
+ * tags - a double[] column with the tag of every slot.
+ * infos - an int[] column with the code of the info of every slot. The infos are dictionary encoded - every
+ * distinct String is kept once in the dictionary and the column only holds its code (0 is the empty info).
+ * Every code counts the slots that hold it - a code that no slot holds anymore is dropped from the dictionary
+ * and reused by the next new info, so the dictionary never outgrows the infos that are actually in use.
+ * Free slots (of removed nodes) are reused by the next added node.
+ *
+ * Compared to fields on every node this keeps a single copy of repeated infos and turns bulk operations
+ * on the attributes (reset all the tags, find all the nodes with some info) into plain array scans.
+ */
+final class NodeColumns implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final String INFO_PREFIX = "info: ";
+
+    private int[] keys;
+    private double[] tags;
+    private int[] infos;
+    private boolean[] live;
+    private int[] freeSlots;
+    private int freeCount;
+    private int used;
+
+    private final List<String> dictionary;
+    // the info as node_info.getInfo() returns it, computed once per distinct String
+    private final List<String> decorated;
+    private final Map<String, Integer> codes;
+    private int[] references; // the number of slots that hold every code
+    private int[] freeCodes;
+    private int freeCodeCount;
+
+    /**
+     * Create columns with room for the given number of slots.
+     * @param capacity
+     */
+    NodeColumns(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.keys = new int[capacity];
+        this.tags = new double[capacity];
+        this.infos = new int[capacity];
+        this.live = new boolean[capacity];
+        this.freeSlots = new int[0];
+        this.dictionary = new ArrayList<>();
+        this.decorated = new ArrayList<>();
+        this.codes = new HashMap<>();
+        this.references = new int[4];
+        this.freeCodes = new int[0];
+        encode(""); // code 0 - never dropped
+    }
+
+    /**
+     * Take a slot for a new node, its tag is 0 and its info is empty.
+     * @param key - the key of the node
+     * @return int - the slot
+     */
+    int allocate(int key) {
+        int slot;
+        if (this.freeCount > 0) {
+            slot = this.freeSlots[--this.freeCount];
+        }
+        else {
+            if (this.used == this.tags.length) {
+                int capacity = this.tags.length * 2;
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.tags = Arrays.copyOf(this.tags, capacity);
+                this.infos = Arrays.copyOf(this.infos, capacity);
+                this.live = Arrays.copyOf(this.live, capacity);
+            }
+            slot = this.used++;
+        }
+        this.keys[slot] = key;
+        this.tags[slot] = 0;
+        this.infos[slot] = 0;
+        this.live[slot] = true;
+        return slot;
+    }
+
+    /**
+     * Give a slot back so it can be reused.
+     * @param slot
+     */
+    void release(int slot) {
+        this.live[slot] = false;
+        dereference(this.infos[slot]);
+        this.infos[slot] = 0;
+        if (this.freeCount == this.freeSlots.length) {
+            this.freeSlots = Arrays.copyOf(this.freeSlots, Math.max(4, this.freeCount * 2));
+        }
+        this.freeSlots[this.freeCount++] = slot;
+    }
+
+    double tag(int slot) {
+        return this.tags[slot];
+    }
+
+    void setTag(int slot, double tag) {
+        this.tags[slot] = tag;
+    }
+
+    /**
+     * Return the raw info of a slot (as it was set).
+     * @param slot
+     * @return String
+     */
+    String info(int slot) {
+        return this.dictionary.get(this.infos[slot]);
+    }
+
+    /**
+     * Return the info of a slot the way node_info.getInfo() returns it (without building a new String).
+     * @param slot
+     * @return String
+     */
+    String displayInfo(int slot) {
+        return this.decorated.get(this.infos[slot]);
+    }
+
+    void setInfo(int slot, String info) {
+        int old = this.infos[slot];
+        this.infos[slot] = encode(info);
+        dereference(old);
+    }
+
+    /**
+     * Set the tag of every slot at once.
+     * @param tag
+     */
+    void fillTags(double tag) {
+        Arrays.fill(this.tags, 0, this.used, tag);
+    }
+
+    /**
+     * Return the keys of all the live nodes with the given info.
+     * @param info
+     * @return int[]
+     */
+    int[] keysWithInfo(String info) {
+        Integer code = this.codes.get(info);
+        if (code == null) {
+            return new int[0];
+        }
+        int[] found = new int[16];
+        int count = 0;
+        for (int slot = 0; slot < this.used; slot++) {
+            if (this.live[slot] && this.infos[slot] == code) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = this.keys[slot];
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Return the number of distinct infos that the slots hold (the empty info included).
+     * @return int
+     */
+    int dictionarySize() {
+        return this.dictionary.size() - this.freeCodeCount;
+    }
+
+    /**
+     * Return the number of slots (live and free) and the capacity of the columns.
+     */
+    int usedSlots() {
+        return this.used;
+    }
+
+    int capacity() {
+        return this.tags.length;
+    }
+
+    /**
+     * Return the bytes of the columns and of the dictionary of the infos (see WGraph_Memory) - a String
+     * of the dictionary is counted with its decorated copy, its code and the entries that hold them.
+     * @return long
+     */
+    long bytes() {
+        long bytes = WGraph_Memory.array((long) this.keys.length * Integer.BYTES)
+                + WGraph_Memory.array((long) this.tags.length * Double.BYTES)
+                + WGraph_Memory.array((long) this.infos.length * Integer.BYTES)
+                + WGraph_Memory.array(this.live.length)
+                + WGraph_Memory.array((long) this.freeSlots.length * Integer.BYTES);
+        bytes += WGraph_Memory.array((long) this.references.length * Integer.BYTES)
+                + WGraph_Memory.array((long) this.freeCodes.length * Integer.BYTES);
+        for (int code = 0; code < this.dictionary.size(); code++) {
+            if (code != 0 && this.references[code] == 0) {
+                bytes += 2 * WGraph_Memory.REFERENCE; // a free code
+                continue;
+            }
+            bytes += string(this.dictionary.get(code)) + string(this.decorated.get(code))
+                    + WGraph_Memory.HASH_MAP_NODE + WGraph_Memory.INTEGER + 2 * WGraph_Memory.REFERENCE;
+        }
+        return bytes;
+    }
+
+    private static long string(String s) {
+        return WGraph_Memory.align(WGraph_Memory.HEADER + 12) + WGraph_Memory.array(s.length());
+    }
+
+    /**
+     * Return the code of an info (a new one if it isn't in the dictionary) and count one more slot that holds it.
+     */
+    private int encode(String info) {
+        Integer code = this.codes.get(info);
+        if (code == null) {
+            if (this.freeCodeCount > 0) {
+                code = this.freeCodes[--this.freeCodeCount];
+                this.dictionary.set(code, info);
+                this.decorated.set(code, INFO_PREFIX + info);
+            }
+            else {
+                code = this.dictionary.size();
+                this.dictionary.add(info);
+                this.decorated.add(INFO_PREFIX + info);
+                if (code == this.references.length) {
+                    this.references = Arrays.copyOf(this.references, code * 2);
+                }
+            }
+            this.codes.put(info, code);
+        }
+        if (code != 0) {
+            this.references[code]++;
+        }
+        return code;
+    }
+
+    /**
+     * Count one slot less that holds a code, a code that no slot holds is dropped and its number reused.
+     */
+    private void dereference(int code) {
+        if (code == 0 || --this.references[code] > 0) {
+            return;
+        }
+        this.codes.remove(this.dictionary.get(code));
+        this.dictionary.set(code, null);
+        this.decorated.set(code, null);
+        if (this.freeCodeCount == this.freeCodes.length) {
+            this.freeCodes = Arrays.copyOf(this.freeCodes, Math.max(4, this.freeCodeCount * 2));
+        }
+        this.freeCodes[this.freeCodeCount++] = code;
+    }
+}
@@ -0,0 +1,181 @@
+package ex1.src;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A long-addressed block of off-heap memory made of direct ByteBuffers.
+ * A single ByteBuffer can't be bigger than 2GB, so the memory is split into chunks of CHUNK_SIZE bytes.
+ * Every chunk but the last one is full, so an offset is simply translated to (offset / CHUNK_SIZE, offset % CHUNK_SIZE)
+ * and since CHUNK_SIZE is a multiple of 8 an int, a long or a double never crosses two chunks as long as
+ * it is written at an offset aligned to its size.
+ *
+ * free() (and a chunk that was replaced by a bigger one) releases the memory right away with
+ * sun.misc.Unsafe.invokeCleaner (of the jdk.unsupported module), looked up by reflection - if it isn't there the
+ * chunks are only dropped and their memory is returned once the garbage collector runs their cleaners.
+ * Note: the direct memory of the JVM is limited by -XX:MaxDirectMemorySize (the maximum heap size by default),
+ * allocating beyond it throws an OutOfMemoryError. A freed buffer must not be used by another thread while free()
+ * runs - a released chunk can't be touched anymore.
+ */
+final class OffHeapBuffer {
+    static final int CHUNK_SHIFT = 30;
+    static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final long MIN_CAPACITY = 64;
+    // sun.misc.Unsafe and its invokeCleaner(ByteBuffer), null if the JVM doesn't have them
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            unsafe = theUnsafe.get(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private ByteBuffer[] chunks;
+    private long capacity;
+
+    /**
+     * Allocate (at least) the given number of bytes, all of them zero.
+     * @param bytes
+     */
+    OffHeapBuffer(long bytes) {
+        this.chunks = new ByteBuffer[0];
+        this.capacity = 0;
+        ensureCapacity(bytes);
+    }
+
+    /**
+     * Return the number of bytes that can be addressed.
+     * @return long
+     */
+    long capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Make sure the buffer holds at least the given number of bytes (the content is kept).
+     * Explanation:
+     * As long as the buffer fits in a single chunk it grows by doubling (copying the old chunk),
+     * afterward it grows by appending full chunks without copying anything.
+     * @param bytes
+     */
+    void ensureCapacity(long bytes) {
+        checkOpen();
+        if (bytes <= this.capacity) {
+            return;
+        }
+        int last = this.chunks.length - 1;
+        if (last >= 0 && this.chunks[last].capacity() < CHUNK_SIZE) {
+            long size = Math.min(CHUNK_SIZE, Math.max(bytes - ((long) last << CHUNK_SHIFT), 2L * this.chunks[last].capacity()));
+            ByteBuffer bigger = allocate(size);
+            ByteBuffer old = this.chunks[last].duplicate();
+            old.clear();
+            bigger.put(old);
+            bigger.clear();
+            release(this.chunks[last]);
+            this.chunks[last] = bigger;
+            this.capacity = ((long) last << CHUNK_SHIFT) + size;
+        }
+        while (this.capacity < bytes) {
+            long size = this.chunks.length == 0 ? Math.min(CHUNK_SIZE, Math.max(bytes, MIN_CAPACITY)) : CHUNK_SIZE;
+            this.chunks = Arrays.copyOf(this.chunks, this.chunks.length + 1);
+            this.chunks[this.chunks.length - 1] = allocate(size);
+            this.capacity += size;
+        }
+    }
+
+    int getInt(long offset) {
+        return chunk(offset).getInt((int) (offset & CHUNK_MASK));
+    }
+
+    void putInt(long offset, int value) {
+        chunk(offset).putInt((int) (offset & CHUNK_MASK), value);
+    }
+
+    long getLong(long offset) {
+        return chunk(offset).getLong((int) (offset & CHUNK_MASK));
+    }
+
+    void putLong(long offset, long value) {
+        chunk(offset).putLong((int) (offset & CHUNK_MASK), value);
+    }
+
+    double getDouble(long offset) {
+        return chunk(offset).getDouble((int) (offset & CHUNK_MASK));
+    }
+
+    void putDouble(long offset, double value) {
+        chunk(offset).putDouble((int) (offset & CHUNK_MASK), value);
+    }
+
+    /**
+     * Fill the first bytes of the buffer with the given int value (bytes must be a multiple of 4).
+     * @param bytes
+     * @param value
+     */
+    void fillInt(long bytes, int value) {
+        for (long offset = 0; offset < bytes; offset += Integer.BYTES) {
+            putInt(offset, value);
+        }
+    }
+
+    /**
+     * Release the memory of this buffer, any access afterward throws an IllegalStateException.
+     * Freeing a freed buffer has no effect.
+     */
+    void free() {
+        ByteBuffer[] chunks = this.chunks;
+        this.chunks = null;
+        this.capacity = 0;
+        if (chunks != null) {
+            for (ByteBuffer chunk : chunks) {
+                release(chunk);
+            }
+        }
+    }
+
+
+    boolean isFreed() {
+        return this.chunks == null;
+    }
+
+    private ByteBuffer chunk(long offset) {
+        checkOpen();
+        return this.chunks[(int) (offset >>> CHUNK_SHIFT)];
+    }
+
+    private void checkOpen() {
+        if (this.chunks == null) {
+            throw new IllegalStateException("The off-heap memory was already released");
+        }
+    }
+
+    private static void release(ByteBuffer chunk) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, chunk);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // left to the garbage collector
+        }
+    }
+
+    private static ByteBuffer allocate(long size) {
+        return ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,292 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, primitive state for Dijkstra-like searches.
+ * Unlike the classic dijkstra in WGraph_Algo (which puts every vertex of the graph in the heap up front),
+ * this state only holds the nodes a search actually reaches, so a bounded search (radius, k-nearest, a
+ * single target) costs the size of the explored area and not the size of the graph.
+ *
+ * Explanation:
+ * Every reached node gets an "entry" - a dense index in the order the node was discovered.
+ * The entries store the node key, its tentative distance, the entry of its parent and whether it is settled.
+ * An open addressing table maps a node key to its entry and the priority queue is a binary MinHeap over
+ * (distance, entry) pairs with lazy deletion - a decreased key is pushed again and the stale pair
+ * is skipped when it is polled.
+ * clear() only wipes the entries that were touched, so the same state can serve many searches.
+ */
+final class SearchState {
+    static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // entries
+    private int[] keys;
+    private double[] distances;
+    private int[] parents;
+    private boolean[] settled;
+    private int[] tablePositions;
+    private int size;
+
+    // key -> entry + 1 (0 means an empty slot)
+    private int[] table;
+    private int mask;
+
+    // lazy MinHeap
+    private double[] heapPriorities;
+    private int[] heapEntries;
+    private int heapSize;
+
+    // the last settled entry
+    private int current = NONE;
+
+    //Default constructor
+    SearchState() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.distances = new double[INITIAL_CAPACITY];
+        this.parents = new int[INITIAL_CAPACITY];
+        this.settled = new boolean[INITIAL_CAPACITY];
+        this.tablePositions = new int[INITIAL_CAPACITY];
+        this.table = new int[INITIAL_CAPACITY * 2];
+        this.mask = this.table.length - 1;
+        this.heapPriorities = new double[INITIAL_CAPACITY];
+        this.heapEntries = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Forget the last search. Runs in O(touched entries) and keeps the allocated arrays.
+     */
+    void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.table[this.tablePositions[i]] = 0;
+            this.settled[i] = false;
+        }
+        this.size = 0;
+        this.heapSize = 0;
+        this.current = NONE;
+    }
+
+    /**
+     * Return the number of nodes reached so far.
+     * @return int
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Return the entry of the given node key, NONE if the node wasn't reached.
+     * @param key
+     * @return int
+     */
+    int entryOf(int key) {
+        int pos = mix(key) & this.mask;
+        while (this.table[pos] != 0) {
+            int entry = this.table[pos] - 1;
+            if (this.keys[entry] == key) {
+                return entry;
+            }
+            pos = (pos + 1) & this.mask;
+        }
+        return NONE;
+    }
+
+    int key(int entry) {
+        return this.keys[entry];
+    }
+
+    double distance(int entry) {
+        return this.distances[entry];
+    }
+
+    int parent(int entry) {
+        return this.parents[entry];
+    }
+
+    boolean isSettled(int entry) {
+        return this.settled[entry];
+    }
+
+    /**
+     * Return the distance of a node key, Double.MAX_VALUE if it wasn't reached.
+     * @param key
+     * @return double
+     */
+    double distanceOf(int key) {
+        int entry = entryOf(key);
+        return entry == NONE ? Double.MAX_VALUE : this.distances[entry];
+    }
+
+    /**
+     * Start a search from the given node (distance 0).
+     * Can be called several times before polling in order to seed a multi source search.
+     * @param key
+     */
+    void seed(int key) {
+        relax(key, 0, NONE);
+    }
+
+    /**
+     * Block a node for the next search - it is marked as settled without ever being expanded.
+     * @param key
+     */
+    void block(int key) {
+        int entry = entryOf(key);
+        if (entry == NONE) {
+            entry = insert(key);
+            this.distances[entry] = Double.MAX_VALUE;
+            this.parents[entry] = NONE;
+        }
+        this.settled[entry] = true;
+    }
+
+    /**
+     * Offer a (possibly) shorter distance to a node through parentEntry.
+     * Settled nodes are never changed.
+     * @param key
+     * @param distance
+     * @param parentEntry
+     * @return boolean - true iff the distance of the node was improved
+     */
+    boolean relax(int key, double distance, int parentEntry) {
+        int entry = entryOf(key);
+        if (entry == NONE) {
+            entry = insert(key);
+        }
+        else if (this.settled[entry] || distance >= this.distances[entry]) {
+            return false;
+        }
+        this.distances[entry] = distance;
+        this.parents[entry] = parentEntry;
+        push(distance, entry);
+        return true;
+    }
+
+    /**
+     * Settle the closest node that is not settled yet and make it the current one.
+     * @return boolean - false iff there is nothing left to settle
+     */
+    boolean settleNext() {
+        while (this.heapSize > 0) {
+            int entry = this.heapEntries[0];
+            double priority = this.heapPriorities[0];
+            pop();
+            if (this.settled[entry] || priority > this.distances[entry]) {
+                continue; // a stale pair (lazy deletion)
+            }
+            this.settled[entry] = true;
+            this.current = entry;
+            return true;
+        }
+        this.current = NONE;
+        return false;
+    }
+
+    /**
+     * Return the entry settled by the last call of settleNext().
+     * @return int
+     */
+    int current() {
+        return this.current;
+    }
+
+    /**
+     * Return the smallest tentative distance that is still waiting in the heap
+     * (it may be stale, so it is only a lower bound), Double.MAX_VALUE if the heap is empty.
+     * @return double
+     */
+    double peekDistance() {
+        return this.heapSize == 0 ? Double.MAX_VALUE : this.heapPriorities[0];
+    }
+
+    private int insert(int key) {
+        if (this.size == this.keys.length) {
+            growEntries();
+        }
+        if ((this.size + 1) * 2 > this.table.length) {
+            growTable();
+        }
+        int entry = this.size++;
+        this.keys[entry] = key;
+        this.settled[entry] = false;
+        int pos = mix(key) & this.mask;
+        while (this.table[pos] != 0) {
+            pos = (pos + 1) & this.mask;
+        }
+        this.table[pos] = entry + 1;
+        this.tablePositions[entry] = pos;
+        return entry;
+    }
+
+    private void growEntries() {
+        int capacity = this.keys.length * 2;
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.distances = Arrays.copyOf(this.distances, capacity);
+        this.parents = Arrays.copyOf(this.parents, capacity);
+        this.settled = Arrays.copyOf(this.settled, capacity);
+        this.tablePositions = Arrays.copyOf(this.tablePositions, capacity);
+    }
+
+    private void growTable() {
+        this.table = new int[this.table.length * 2];
+        this.mask = this.table.length - 1;
+        for (int entry = 0; entry < this.size; entry++) {
+            int pos = mix(this.keys[entry]) & this.mask;
+            while (this.table[pos] != 0) {
+                pos = (pos + 1) & this.mask;
+            }
+            this.table[pos] = entry + 1;
+            this.tablePositions[entry] = pos;
+        }
+    }
+
+    private void push(double priority, int entry) {
+        if (this.heapSize == this.heapEntries.length) {
+            this.heapEntries = Arrays.copyOf(this.heapEntries, this.heapSize * 2);
+            this.heapPriorities = Arrays.copyOf(this.heapPriorities, this.heapSize * 2);
+        }
+        int i = this.heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (this.heapPriorities[up] <= priority) {
+                break;
+            }
+            this.heapPriorities[i] = this.heapPriorities[up];
+            this.heapEntries[i] = this.heapEntries[up];
+            i = up;
+        }
+        this.heapPriorities[i] = priority;
+        this.heapEntries[i] = entry;
+    }
+
+    private void pop() {
+        int last = --this.heapSize;
+        if (last == 0) {
+            return;
+        }
+        double priority = this.heapPriorities[last];
+        int entry = this.heapEntries[last];
+        int i = 0;
+        int half = last >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < last && this.heapPriorities[child + 1] < this.heapPriorities[child]) {
+                child++;
+            }
+            if (priority <= this.heapPriorities[child]) {
+                break;
+            }
+            this.heapPriorities[i] = this.heapPriorities[child];
+            this.heapEntries[i] = this.heapEntries[child];
+            i = child;
+        }
+        this.heapPriorities[i] = priority;
+        this.heapEntries[i] = entry;
+    }
+
+    /** Spread the bits of a key so sequential ids don't cluster in the table. */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,32 +1,43 @@
 package ex1.src;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * A weighted graph algorithm class that implemented on a given weighted graph algorithm interface (weighted_graph_algorithms).
- * This class and the algorithm is based on a MinHeap data-structure and contain it as an inner class for easier understanding.
+ * This class and the algorithm is based on a MinHeap data-structure (see SearchState) that only holds the nodes a search reaches.
  * This class contains all the requested methods:
  *              - init,
  *              - getGraph
  *              - copy
- *              - isConnected
+ *              - isConnected (a BFS)
+ *              - hopDistance, hopPath, isReachable (the number of edges, see WGraph_BFS)
  *              - shortestPathDist,
- *              - shortestPath
- *              - other two private functions and an inner class ( each has an explaination)
+ *              - shortestPath, findPath (ids and distances only)
+ *              - shortestPathDists (many targets, one search)
+ *              - voronoi (nearest source of every node, one multi-source search)
+ *              - closestFirst, withinRadius, kNearest (bounded searches)
+ *              - kShortestPaths (Yen's algorithm)
+ *              - other private functions and inner classes ( each has an explaination)
  *
  * The Dijkstra algorithm I used:
  * (taken from https://ssaurel.medium.com/calculate-shortest-paths-in-java-by-implementing-dijkstras-algorithm-5c1db06b6541)
@@ -57,6 +68,12 @@ import java.util.AbstractMap.SimpleEntry;
  */
 public class WGraph_Algo implements weighted_graph_algorithms {
     private weighted_graph graph;
+    // Reusable search states - shared between threads, so a state is always taken out of the pool while in use.
+    private final ConcurrentLinkedQueue<SearchState> statePool = new ConcurrentLinkedQueue<>();
+    // how many vertices a cancellable search settles between two checks
+    private static final int CANCEL_CHECK_INTERVAL = 64;
+    // the hop count snapshot, under the graph and the mode count it was taken at
+    private volatile Map.Entry<Map.Entry<weighted_graph, Integer>, WGraph_BFS> hops;
 
     /**
      * Init the graph on which this set of algorithms operates on.
@@ -65,6 +82,7 @@ public class WGraph_Algo implements weighted_graph_algorithms {
     @Override
     public void init(weighted_graph g) {
         graph = g;
+        hops = null;
     }
 
     /**
@@ -91,10 +109,8 @@ public class WGraph_Algo implements weighted_graph_algorithms {
             graphCopy.addNode(currNode.getKey());
         }
         for (node_info currNode : graph.getV()) {
-            for (node_info adjacenetNode : this.graph.getV(currNode.getKey())) {
-                this.graph.connect(currNode.getKey(), adjacenetNode.getKey(),
-                        graph.getEdge(currNode.getKey(), adjacenetNode.getKey()));
-            }
+            int key = currNode.getKey();
+            this.graph.forEachNeighbor(key, (adjacentKey, weight) -> graphCopy.connect(key, adjacentKey, weight));
         }
         return graphCopy;
     }
@@ -104,26 +120,68 @@ public class WGraph_Algo implements weighted_graph_algorithms {
      * other node. NOTE: assume undirectional graph.
      * @return boolean
      * Explanation:
-     * First we check whether the graph is empty or if there's one vertex. If happen -> returns true.
-     * Then we get all the distances with dijkstra algorithm and we walk with a node all over the vertices.
-     * If one of the distances that found in dijkstra is MAX_VALUE (or infinity) the it will return false
-     * because it's obvious that the graph isn't connected if one of the nodes isn't reachable.
-     * If the above doesn't happen the graph is connected.
+     * The weights don't matter here, so instead of a dijkstra it's a direction optimizing BFS on a snapshot of the
+     * graph (see WGraph_BFS) - the graph is connected iff the BFS from one vertex reached all the vertices.
      */
     @Override
     public boolean isConnected() {
-        Collection<node_info> vertices = graph.getV();
-        if (vertices.isEmpty() || vertices.size() == 1) {
-            return true;
+        return hops().isConnected();
+    }
+
+    /**
+     * returns the number of edges on the path with the fewest edges between src to dest (the weights are ignored).
+     * Note: if no such path --> returns -1
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return int
+     */
+    public int hopDistance(int src, int dest) {
+        return hops().hops(src, dest);
+    }
+
+    /**
+     * returns a path with the fewest edges between src to dest (the weights are ignored).
+     * Note if no such path --> returns null;
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return List<node_info>
+     */
+    public List<node_info> hopPath(int src, int dest) {
+        int[] keys = hops().path(src, dest);
+        if (keys == null) {
+            return null;
         }
-        node_info src = vertices.iterator().next();
-        Map<node_info, Double> allDistances = dijkstra(src.getKey()).getValue();
-        for (node_info node : graph.getV()) {
-            if (allDistances.get(node) == Double.MAX_VALUE) {
-                return false;
-            }
+        List<node_info> path = new ArrayList<>(keys.length);
+        for (int key : keys) {
+            path.add(graph.getNode(key));
+        }
+        return path;
+    }
+
+    /**
+     * Returns true iff there is a path between src to dest.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return boolean
+     */
+    public boolean isReachable(int src, int dest) {
+        return hops().isReachable(src, dest);
+    }
+
+    /**
+     * Return the BFS snapshot of the graph, a new one is taken when the graph changed (by its mode count)
+     * or was replaced (init, load) - another graph may have the same mode count.
+     * @return WGraph_BFS
+     */
+    private WGraph_BFS hops() {
+        Map.Entry<Map.Entry<weighted_graph, Integer>, WGraph_BFS> snapshot = this.hops;
+        weighted_graph g = this.graph;
+        int mc = g.getMC();
+        if (snapshot == null || snapshot.getKey().getKey() != g || snapshot.getKey().getValue() != mc) {
+            snapshot = new SimpleEntry<>(new SimpleEntry<>(g, mc), WGraph_BFS.of(g));
+            this.hops = snapshot;
         }
-        return true;
+        return snapshot.getValue();
     }
 
     /**
@@ -133,18 +191,29 @@ public class WGraph_Algo implements weighted_graph_algorithms {
      * @param dest - end (target) node
      * @return double
      * Explanation:
-     * We use Map.Entry which is like Pairs to store all the shortests paths using dijkstra algorithm
-     * Then if there is no such path we return -1  or return the distance we got.
+     * We run dijkstra algorithm until dest is settled then if there is no such path we return -1
+     * or return the distance we got.
      */
     @Override
     public double shortestPathDist(int src, int dest) {
-        Map.Entry<Map<node_info, node_info>, Map<node_info, Double>> allShortestsPaths = dijkstra(src);
-        Map<node_info, Double> distances = allShortestsPaths.getValue();
-        if (distances.get(graph.getNode(dest)) == Double.MAX_VALUE) {
-            return -1;
-        }
-        else {
-            return distances.get(graph.getNode(dest));
+        return shortestPathDist(src, dest, null);
+    }
+
+    /**
+     * shortestPathDist that can be stopped in the middle (see WGraph_QueryService).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param cancelled - checked while searching, once it returns true the search throws a CancellationException
+     *                  (null if the search can't be cancelled)
+     * @return double
+     */
+    double shortestPathDist(int src, int dest, BooleanSupplier cancelled) {
+        SearchState state = acquireState();
+        try {
+            int entry = dijkstra(state, src, dest, cancelled);
+            return entry == SearchState.NONE ? -1 : state.distance(entry);
+        } finally {
+            releaseState(state);
         }
     }
 
@@ -157,186 +226,592 @@ public class WGraph_Algo implements weighted_graph_algorithms {
      * @param dest - end (target) node
      * @return List<node_info>
      * Explanation:
-     * We store all the source's paths using Map.Entry (which is like Pairs) then use a private method to get
-     * the the path by entering the destination node and its parents.
+     * We run dijkstra algorithm until dest is settled and return a view of the path the search has
+     * found (see findPath) - a node is only looked up when it's read.
      */
     @Override
     public List<node_info> shortestPath(int src, int dest) {
-        Map.Entry<Map<node_info, node_info>, Map<node_info, Double>> allShortestsPaths = dijkstra(src);
-        Map<node_info, node_info> parents = allShortestsPaths.getKey();
-        return computePath(graph.getNode(dest), parents);
+        return shortestPath(src, dest, null);
     }
 
     /**
-     * A private function that returns a list with the shortest path.
-     * First of all we make a list of the shortest path we find by checking if the destination node isn't null, while he
-     * isn't null then the list will get the current node which was pointed at the destination node and the
-     * current node will turn into destination's node parent. Since we went from the end we will have to reverse
-     * the list we intend to return.
-     * @param destNode
-     * @param parents
+     * shortestPath that can be stopped in the middle (see WGraph_QueryService).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param cancelled - checked while searching, once it returns true the search throws a CancellationException
+     *                  (null if the search can't be cancelled)
      * @return List<node_info>
      */
-    private List<node_info> computePath(node_info destNode, Map<node_info, node_info> parents) {
-        List<node_info> shortestPath = new ArrayList<>();
-        node_info currNode = destNode;
-        while (currNode != null) {
-            shortestPath.add(currNode);
-            currNode = parents.get(currNode);
+    List<node_info> shortestPath(int src, int dest, BooleanSupplier cancelled) {
+        WGraph_Path path = findPath(src, dest, cancelled);
+        return path == null ? null : path.asList();
+    }
+
+    /**
+     * returns the the shortest path between src to dest as a WGraph_Path - the keys of its nodes,
+     * the distance to each one of them and its cost, without looking up any node_info.
+     * Note if no such path --> returns null;
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return WGraph_Path
+     * Explanation:
+     * We run dijkstra algorithm until dest is settled then walk from dest back to src on the parent
+     * entries of the search (dense arrays) filling the keys and the distances from the end.
+     */
+    public WGraph_Path findPath(int src, int dest) {
+        return findPath(src, dest, null);
+    }
+
+    /**
+     * findPath that can be stopped in the middle (see WGraph_QueryService).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param cancelled - checked while searching, once it returns true the search throws a CancellationException
+     *                  (null if the search can't be cancelled)
+     * @return WGraph_Path
+     */
+    WGraph_Path findPath(int src, int dest, BooleanSupplier cancelled) {
+        SearchState state = acquireState();
+        try {
+            int entry = dijkstra(state, src, dest, cancelled);
+            return entry == SearchState.NONE ? null : pathOf(state, entry);
+        } finally {
+            releaseState(state);
         }
-        Collections.reverse(shortestPath);
-        return shortestPath;
     }
 
     /**
-     * An inner class that represents a MinHeap data structure,
-     * the class implemented by a TreeMap in order to sort the priorities.
+     * returns the lengths of the shortest paths between src to each of the targets
+     * (-1 for a target that has no path from src).
+     * @param src - start node
+     * @param targets - end (target) nodes, may repeat
+     * @return double[] - the distance of targets[i] at position i
+     * Explanation:
+     * A single dijkstra algorithm from src that stops as soon as all the targets are settled, so a
+     * batch of queries from the same source costs a single search (the farthest target bounds it).
      */
-    class MinHeap {
-        Map<node_info, Double> elementToPriority;
-        TreeMap<Double, Set<node_info>> prioritiesToElements; // We intentionally use TreeSet for sorting.
+    public double[] shortestPathDists(int src, int[] targets) {
+        double[] distances = new double[targets.length];
+        SearchState state = acquireState();
+        try {
+            dijkstra(state, src, IntStream.of(targets).distinct().sorted().toArray(), null);
+            for (int i = 0; i < targets.length; i++) {
+                int entry = state.entryOf(targets[i]);
+                distances[i] = entry != SearchState.NONE && state.isSettled(entry) ? state.distance(entry) : -1;
+            }
+            return distances;
+        } finally {
+            releaseState(state);
+        }
+    }
 
-        //Default constructor
-        MinHeap() {
-            elementToPriority = new HashMap<>();
-            prioritiesToElements = new TreeMap<>();
+    /**
+     * Returns the nearest source of every node and the distance to it (a graph Voronoi partition).
+     * Note: sources that are not in the graph are ignored and nodes that no source reaches are left out.
+     * @param sources - the keys of the sources (facilities)
+     * @return WGraph_Voronoi
+     * Explanation:
+     * A multi-source dijkstra algorithm - all the sources are seeded at distance 0 in the same search, so every
+     * node is settled once with the distance to its closest source (instead of a search per source and a merge).
+     * The nearest source of a node is the nearest source of its parent, and a parent is always settled before
+     * its children, so it is found while settling (a tie goes to the source that settled the node first).
+     */
+    public WGraph_Voronoi voronoi(int[] sources) {
+        SearchState state = acquireState();
+        try {
+            for (int source : sources) {
+                if (graph.getNode(source) != null) {
+                    state.seed(source);
+                }
+            }
+            int[] keys = new int[16];
+            int[] nearest = new int[16];
+            double[] distances = new double[16];
+            int[] origins = new int[16]; // the nearest source by entry
+            int count = 0;
+            while (state.settleNext()) {
+                int current = state.current();
+                if (current >= origins.length) {
+                    origins = Arrays.copyOf(origins, Math.max(current + 1, 2 * origins.length));
+                }
+                int parent = state.parent(current);
+                origins[current] = parent == SearchState.NONE ? state.key(current) : origins[parent];
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, 2 * count);
+                    nearest = Arrays.copyOf(nearest, 2 * count);
+                    distances = Arrays.copyOf(distances, 2 * count);
+                }
+                keys[count] = state.key(current);
+                nearest[count] = origins[current];
+                distances[count] = state.distance(current);
+                count++;
+                double pathDistance = state.distance(current);
+                graph.forEachNeighbor(state.key(current), (adjacentKey, edgeWeight) ->
+                        state.relax(adjacentKey, pathDistance + edgeWeight, current));
+            }
+            return new WGraph_Voronoi(Arrays.copyOf(keys, count), Arrays.copyOf(nearest, count),
+                    Arrays.copyOf(distances, count));
+        } finally {
+            releaseState(state);
         }
+    }
 
-        /**
-         * Add a node to the Heap only if the priority already doesn't exist.
-         * Runs in O(1) if the priorities are different then O(nlogn).
-         * @param node
-         * @param priority
-         */
-        public void add(node_info node, double priority) {
-            elementToPriority.put(node, priority);
-            if (!prioritiesToElements.containsKey(priority)) {
-                prioritiesToElements.put(priority, new LinkedHashSet<>());
+    /**
+     * Returns the nodes of the graph ordered by their distance from src (closest first), each one
+     * as a Pair of the node and its distance.
+     * The iterator is lazy - a node's neighbors are only explored when the next node is requested,
+     * so stopping early costs only the part of the graph that was explored.
+     * Note: if src is not in the graph the iterator is empty.
+     * @param src - start node
+     * @return Iterator<Map.Entry<node_info, Double>>
+     */
+    public Iterator<Map.Entry<node_info, Double>> closestFirst(int src) {
+        return new BoundedSearch(src, Double.MAX_VALUE);
+    }
+
+    /**
+     * Returns all the nodes within distance radius of src (src included) that match the filter,
+     * ordered by their distance from src.
+     * Explanation:
+     * A bounded Dijkstra - nodes that are farther than radius are never inserted to the heap,
+     * so the search stops by itself once the whole ball was settled.
+     * @param src - start node
+     * @param radius - maximum distance (inclusive)
+     * @param filter - which nodes to return (null for all of them), doesn't affect the search itself
+     * @return List<Map.Entry<node_info, Double>>
+     */
+    public List<Map.Entry<node_info, Double>> withinRadius(int src, double radius, Predicate<node_info> filter) {
+        List<Map.Entry<node_info, Double>> result = new ArrayList<>();
+        Iterator<Map.Entry<node_info, Double>> search = new BoundedSearch(src, radius);
+        while (search.hasNext()) {
+            Map.Entry<node_info, Double> next = search.next();
+            if (filter == null || filter.test(next.getKey())) {
+                result.add(next);
             }
-            prioritiesToElements.get(priority).add(node);
         }
+        return result;
+    }
 
-        /**
-         * Decreases value of a key.
-         * Runs in O(1) if the priorities are different then O(nlogn).
-         * @param node
-         * @param priority
-         * @return node_info
-         */
-        public node_info decreaseKey(node_info node, double priority) {
-            this.remove(node);
-            this.add(node, priority);
-            return node;
+    /**
+     * Returns the k closest nodes to src (src included) that match the filter, ordered by their distance.
+     * Note: the list is shorter than k if there are no k such reachable nodes.
+     * Explanation:
+     * We walk on closestFirst(src) and stop as soon as k nodes passed the filter, so the
+     * neighbors of the last node are never explored.
+     * @param src - start node
+     * @param k - the number of nodes to return
+     * @param filter - which nodes to return (null for all of them), doesn't affect the search itself
+     * @return List<Map.Entry<node_info, Double>>
+     */
+    public List<Map.Entry<node_info, Double>> kNearest(int src, int k, Predicate<node_info> filter) {
+        List<Map.Entry<node_info, Double>> result = new ArrayList<>();
+        Iterator<Map.Entry<node_info, Double>> search = new BoundedSearch(src, Double.MAX_VALUE);
+        while (result.size() < k && search.hasNext()) {
+            Map.Entry<node_info, Double> next = search.next();
+            if (filter == null || filter.test(next.getKey())) {
+                result.add(next);
+            }
         }
+        return result;
+    }
 
-        /**
-         * Removes a node from the Priority queue.
-         * Explanation:
-         * We store the priority and the previous priority in a Set, Then we remove the node
-         * if the list is empty there is no point of keeping it so we better remove it.
-         * Then we return a Pair of a node and its previous priority.
-         * @param node
-         * @return Map.Entry<node_info, Double>
-         */
-        public Map.Entry<node_info, Double> remove(node_info node) {
-            double previousPriority = elementToPriority.get(node);
-            Set<node_info> elements = this.prioritiesToElements.get(previousPriority);
-            elements.remove(node);
-            if (elements.isEmpty()) {
-                prioritiesToElements.remove(previousPriority);
+    /**
+     * An inner class that represents a lazy Dijkstra search bounded by a maximum distance.
+     * It is based on a SearchState so it only touches the nodes it reaches.
+     * Explanation:
+     * hasNext() first expands the node that was returned last (relaxing its neighbors that are within
+     * the bound) and only then settles the next closest node.
+     */
+    class BoundedSearch implements Iterator<Map.Entry<node_info, Double>> {
+        private final SearchState state = new SearchState();
+        private final double bound;
+        private int toExpand = SearchState.NONE;
+        private boolean pending = false;
+
+        BoundedSearch(int src, double bound) {
+            this.bound = bound;
+            if (graph.getNode(src) != null && bound >= 0) {
+                state.seed(src);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending) {
+                return true;
+            }
+            if (toExpand != SearchState.NONE) {
+                expand(toExpand);
+                toExpand = SearchState.NONE;
             }
-            elementToPriority.remove(node);
-            return new SimpleEntry<>(node, previousPriority);
+            pending = state.settleNext();
+            return pending;
+        }
+
+        private void expand(int entry) {
+            double distance = state.distance(entry);
+            graph.forEachNeighbor(state.key(entry), (adjacentKey, weight) -> {
+                if (distance + weight <= bound) {
+                    state.relax(adjacentKey, distance + weight, entry);
+                }
+            });
+        }
+
+        @Override
+        public Map.Entry<node_info, Double> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            pending = false;
+            int entry = state.current();
+            toExpand = entry;
+            return new SimpleEntry<>(graph.getNode(state.key(entry)), state.distance(entry));
+        }
+    }
+
+    /**
+     * Returns the loopless paths between src to dest ordered by their length (the shortest one first),
+     * each one as an ordered List of nodes src--> n1-->n2-->...dest.
+     * see: https://en.wikipedia.org/wiki/Yen%27s_algorithm
+     * The paths are computed lazily - asking for the 3 shortest paths only computes 3 of them.
+     * Note: the graph must not be changed while the iterator is in use.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return Iterator<List<node_info>>
+     */
+    public Iterator<List<node_info>> kShortestPaths(int src, int dest) {
+        return kShortestPaths(src, dest, false);
+    }
+
+    /**
+     * Same as kShortestPaths(src, dest) but when parallel is true the spur searches of each
+     * iteration run in parallel (on the common ForkJoinPool), each one with its own pooled SearchState.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param parallel - whether to run the spur searches in parallel
+     * @return Iterator<List<node_info>>
+     */
+    public Iterator<List<node_info>> kShortestPaths(int src, int dest, boolean parallel) {
+        return new YenIterator(src, dest, parallel);
+    }
+
+    /**
+     * An inner class that represents Yen's k shortest loopless paths algorithm as a lazy iterator.
+     * Explanation:
+     * The first path is the regular shortest path. Every following path is found by walking on the last
+     * accepted path: each of its nodes (the "spur" node) is the start of a new search to dest where the nodes
+     * before the spur node are blocked (so the path stays loopless) and the edges leaving the spur node that
+     * were already used by accepted paths with the same root are blocked as well.
+     * Every root + spur path is a candidate and the cheapest candidate is the next path.
+     */
+    class YenIterator implements Iterator<List<node_info>> {
+        private final int dest;
+        private final boolean parallel;
+        private final List<PathCandidate> accepted = new ArrayList<>();
+        private final PriorityQueue<PathCandidate> candidates = new PriorityQueue<>();
+        private final Set<List<Integer>> seen = new HashSet<>();
+        private PathCandidate pending;
+
+        YenIterator(int src, int dest, boolean parallel) {
+            this.dest = dest;
+            this.parallel = parallel;
+            if (graph.getNode(src) != null && graph.getNode(dest) != null) {
+                PathCandidate first = spurPath(src, new int[0], 0, new int[0]);
+                if (first != null) {
+                    offer(first);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending != null) {
+                return true;
+            }
+            if (!accepted.isEmpty()) {
+                generateCandidates(accepted.get(accepted.size() - 1));
+            }
+            pending = candidates.poll();
+            if (pending != null) {
+                accepted.add(pending);
+            }
+            return pending != null;
+        }
+
+        @Override
+        public List<node_info> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            PathCandidate path = pending;
+            pending = null;
+            List<node_info> nodes = new ArrayList<>(path.nodes.length);
+            for (int key : path.nodes) {
+                nodes.add(graph.getNode(key));
+            }
+            return nodes;
+        }
+
+        private void generateCandidates(PathCandidate last) {
+            IntStream spurIndexes = IntStream.range(0, last.nodes.length - 1);
+            if (parallel) {
+                spurIndexes = spurIndexes.parallel();
+            }
+            List<PathCandidate> found = spurIndexes.mapToObj(i -> spurCandidate(last, i))
+                    .filter(c -> c != null)
+                    .collect(Collectors.toList());
+            for (PathCandidate candidate : found) {
+                offer(candidate);
+            }
+        }
+
+        private PathCandidate spurCandidate(PathCandidate last, int spurIndex) {
+            int[] root = Arrays.copyOfRange(last.nodes, 0, spurIndex + 1);
+            int[] blockedHops = new int[accepted.size()];
+            int blockedCount = 0;
+            for (PathCandidate path : accepted) {
+                if (path.nodes.length > spurIndex + 1
+                        && Arrays.equals(path.nodes, 0, spurIndex + 1, root, 0, spurIndex + 1)) {
+                    blockedHops[blockedCount++] = path.nodes[spurIndex + 1];
+                }
+            }
+            PathCandidate spur = spurPath(last.nodes[spurIndex], root, spurIndex,
+                    Arrays.copyOf(blockedHops, blockedCount));
+            if (spur == null) {
+                return null;
+            }
+            int[] nodes = new int[spurIndex + spur.nodes.length];
+            System.arraycopy(root, 0, nodes, 0, spurIndex);
+            System.arraycopy(spur.nodes, 0, nodes, spurIndex, spur.nodes.length);
+            return new PathCandidate(nodes, last.prefixCost(spurIndex) + spur.cost);
         }
 
         /**
-         * Check whether the priority queue is empty.
-         * (It check in both TreeMap & HashMap)
-         * @return boolean
+         * A Dijkstra search from spur to dest where the first blockedCount nodes of blockedNodes are blocked
+         * and so are the edges from spur to blockedHops.
+         * @return PathCandidate - the spur path or null if dest isn't reachable
          */
-        public boolean isEmpty() {
-            return this.prioritiesToElements.isEmpty() && elementToPriority.isEmpty();
+        private PathCandidate spurPath(int spur, int[] blockedNodes, int blockedCount, int[] blockedHops) {
+            SearchState state = acquireState();
+            try {
+                for (int i = 0; i < blockedCount; i++) {
+                    state.block(blockedNodes[i]);
+                }
+                state.seed(spur);
+                while (state.settleNext()) {
+                    int entry = state.current();
+                    int key = state.key(entry);
+                    if (key == dest) {
+                        return new PathCandidate(pathKeys(state, entry), state.distance(entry));
+                    }
+                    double distance = state.distance(entry);
+                    graph.forEachNeighbor(key, (adjacentKey, weight) -> {
+                        if (key != spur || !contains(blockedHops, adjacentKey)) {
+                            state.relax(adjacentKey, distance + weight, entry);
+                        }
+                    });
+                }
+                return null;
+            } finally {
+                releaseState(state);
+            }
+        }
+
+        private void offer(PathCandidate candidate) {
+            List<Integer> key = new ArrayList<>(candidate.nodes.length);
+            for (int node : candidate.nodes) {
+                key.add(node);
+            }
+            if (seen.add(key)) {
+                candidates.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * An inner class that represents a path found by Yen's algorithm - its node keys and total weight.
+     */
+    class PathCandidate implements Comparable<PathCandidate> {
+        final int[] nodes;
+        final double cost;
+
+        PathCandidate(int[] nodes, double cost) {
+            this.nodes = nodes;
+            this.cost = cost;
         }
 
         /**
-         * Remove Min / Extract Min from the Heap.
-         * Explanation:
-         * If the list is not empty we get the lowest priority value in the priority queue then with an
-         * iterator we get the first node (maximum) in the priority and remove it. Else we will get a null
-         * because the list is empty.
-         * @return Map.Entry<node_info, Double>
+         * Return the weight of the path from its first node up to the node at index i.
+         * @param i
+         * @return double
          */
-        public Map.Entry<node_info, Double> removeMin() {
-            if (!isEmpty()) {
-                Map.Entry<Double, Set<node_info>> lowestPriority = this.prioritiesToElements.firstEntry();
-                node_info firstNodeInPriority = lowestPriority.getValue().iterator().next();
-                return remove(firstNodeInPriority);
+        double prefixCost(int i) {
+            double sum = 0;
+            for (int j = 0; j < i; j++) {
+                sum += graph.getEdge(nodes[j], nodes[j + 1]);
             }
-            return null;
+            return sum;
+        }
+
+        @Override
+        public int compareTo(PathCandidate other) {
+            return Double.compare(this.cost, other.cost);
+        }
+    }
+
+    /**
+     * Take a clean SearchState out of the pool (or create a new one if the pool is empty).
+     * @return SearchState
+     */
+    private SearchState acquireState() {
+        SearchState state = statePool.poll();
+        return state != null ? state : new SearchState();
+    }
+
+    /**
+     * Clear a SearchState and give it back to the pool.
+     * @param state
+     */
+    private void releaseState(SearchState state) {
+        state.clear();
+        statePool.offer(state);
+    }
+
+    /**
+     * Return the entries of the path from the search's source to the given entry (the walk on the parents).
+     * @param state
+     * @param entry
+     * @return int[]
+     */
+    private static int[] pathEntries(SearchState state, int entry) {
+        int length = 0;
+        for (int e = entry; e != SearchState.NONE; e = state.parent(e)) {
+            length++;
+        }
+        int[] entries = new int[length];
+        for (int e = entry; e != SearchState.NONE; e = state.parent(e)) {
+            entries[--length] = e;
         }
+        return entries;
     }
 
     /**
-     * Dijkstra algorithm based on a MinHeap as a priority queue.
-     * If there are n different priorities then the time complexity of the sort is O(nlogn) on the other hand
-     * in case that can be atleast V different priorities (in case each node has different priority) then the
-     * sort is O(Vlog(V)).
+     * Return the node keys of the path from the search's source to the given entry.
+     * @param state
+     * @param entry
+     * @return int[]
+     */
+    private static int[] pathKeys(SearchState state, int entry) {
+        int[] keys = pathEntries(state, entry);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = state.key(keys[i]);
+        }
+        return keys;
+    }
+
+    /**
+     * Return the path from the search's source to the given entry (with the distance to every node of it).
+     * @param state
+     * @param entry
+     * @return WGraph_Path
+     */
+    private WGraph_Path pathOf(SearchState state, int entry) {
+        int[] keys = pathEntries(state, entry);
+        double[] distances = new double[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            distances[i] = state.distance(keys[i]);
+            keys[i] = state.key(keys[i]);
+        }
+        return new WGraph_Path(this.graph, keys, distances);
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int element : array) {
+            if (element == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dijkstra algorithm based on a MinHeap as a priority queue (SearchState).
+     * The time complexity is O((V+E)log(V)) where V and E are the vertices and edges the search reaches.
      *
      * Explanation:
      * Like I mentioned in the header I used an algorithm.
-     * First we make a map of parents and their distance and make a new heap
-     * then we store in that heap,parents and distances all the edges while all the distances of all the nodes
-     * in the graph is Infinity (Double.MAX_VALUE) then we update the source node we start with.
-     * if the heap isn't empty get the distance of current and the path and put them in the
-     * distances map.
-     * Then we go all over the neighbors of the current and check for the weight of the edge searching
-     * for the smallest one and decreasing each key and we keep going like that.
-     * Then - finally! we get the shortest path in a map entry
-     * @param src
-     * @return Map.Entry<Map<node_info, node_info>, Map<node_info, Double>>
-     */
-    private Map.Entry<Map<node_info, node_info>, Map<node_info, Double>> dijkstra(int src) {
-        Map<node_info, node_info> parents = new HashMap<>();
-        Map<node_info, Double> distances = new HashMap<>();
-        MinHeap heap = new MinHeap();
-        for (node_info node : this.graph.getV()) {
-            parents.put(node, null);
-            heap.add(node, Double.MAX_VALUE);
-            distances.put(node, Double.MAX_VALUE);
-        }
-        heap.decreaseKey(graph.getNode(src), 0);
-
-        while (!heap.isEmpty()) {
-            Map.Entry<node_info, Double> entry = heap.removeMin();
-            node_info current = entry.getKey();
-            double pathDistance = entry.getValue();
-            distances.put(current, pathDistance);
-
-            for (node_info adjacent : graph.getV(current.getKey())) {
-                double edgeWeight = graph.getEdge(current.getKey(), adjacent.getKey());
-                double currentDistance = pathDistance + edgeWeight;
-                if (currentDistance < distances.get(adjacent)) {
-                    parents.put(adjacent, current);
-                    heap.decreaseKey(adjacent, currentDistance);
-                }
+     * The difference is that instead of adding all the vertices with an Infinity distance to the heap up front,
+     * a vertex is only added to the SearchState once it's reached, so vertices that are never reached cost nothing.
+     * While the heap isn't empty we settle the closest vertex and go all over its neighbors (with forEachNeighbor -
+     * the key of the neighbor and the weight of the edge to it at once) relaxing their distances.
+     * If a dest is given we stop as soon as it's settled since its distance is final.
+     * @param state - a clear SearchState
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param cancelled - stops the search with a CancellationException once it returns true (may be null)
+     * @return int - the entry of dest in state, SearchState.NONE if dest wasn't reached
+     */
+    private int dijkstra(SearchState state, int src, int dest, BooleanSupplier cancelled) {
+        dijkstra(state, src, new int[]{dest}, cancelled);
+        int entry = state.entryOf(dest);
+        return entry != SearchState.NONE && state.isSettled(entry) ? entry : SearchState.NONE;
+    }
+
+    /**
+     * Dijkstra algorithm that stops as soon as all the given targets are settled (see above).
+     * If cancelled is given it's checked once every CANCEL_CHECK_INTERVAL settled vertices (cooperative cancellation).
+     * @param state - a clear SearchState
+     * @param src - start node
+     * @param targets - distinct keys sorted in ascending order, null to settle all the reachable vertices
+     * @param cancelled - stops the search with a CancellationException once it returns true (may be null)
+     */
+    private void dijkstra(SearchState state, int src, int[] targets, BooleanSupplier cancelled) {
+        if (graph.getNode(src) == null) {
+            return;
+        }
+        state.seed(src);
+        int remaining = targets == null ? -1 : targets.length;
+        int settled = 0;
+        while (remaining != 0 && state.settleNext()) {
+            if (cancelled != null && ++settled % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                throw new CancellationException("The search was cancelled");
+            }
+            int current = state.current();
+            int currentKey = state.key(current);
+            if (targets != null && Arrays.binarySearch(targets, currentKey) >= 0 && --remaining == 0) {
+                return;
             }
+            double pathDistance = state.distance(current);
+            graph.forEachNeighbor(currentKey, (adjacentKey, edgeWeight) ->
+                    state.relax(adjacentKey, pathDistance + edgeWeight, current));
         }
-        return new SimpleEntry<>(parents, distances);
     }
 
     /**
      * Saves this weighted (undirected) graph to the given
      * file name
+     * The snapshot is written to a temporary file and renamed over the old one, and the write-ahead log
+     * of the file (see WGraph_Journal) is removed since the snapshot replaces it.
+     * A journal that keeps this very file is compacted instead (it still writes to its log), and a file that
+     * another open journal keeps isn't saved at all.
      * @param file - the file name (may include a relative path).
      * @return true - iff the file was successfully saved
      */
     @Override
     public boolean save(String file) {
         try {
-            String filename = !file.contains(".txt") ? file + ".txt" : file;
-            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename));
-            out.writeObject((WGraph_DS) this.graph);
-            out.close();
+            if (this.graph instanceof WGraph_Journal && ((WGraph_Journal) this.graph).owns(file)) {
+                ((WGraph_Journal) this.graph).compact();
+                return true;
+            }
+            if (WGraph_Journal.isOpen(file)) {
+                throw new IOException(String.format("%s is kept by an open journal", file));
+            }
+            String filename = WGraph_Journal.snapshotName(file);
+            WGraph_DS snapshot = this.graph instanceof WGraph_Journal
+                    ? ((WGraph_Journal) this.graph).getGraph() : (WGraph_DS) this.graph;
+            WGraph_Journal.writeSnapshot(snapshot, Paths.get(filename));
+            Files.deleteIfExists(Paths.get(WGraph_Journal.logName(file)));
             return true;
         } catch (IOException ex) {
             ex.printStackTrace();
@@ -350,18 +825,25 @@ public class WGraph_Algo implements weighted_graph_algorithms {
      * if the file was successfully loaded - the underlying graph
      * of this class will be changed (to the loaded one), in case the
      * graph was not loaded the original graph should remain "as is".
+     * The write-ahead log of the file (see WGraph_Journal), if there is one, is replayed on the snapshot.
      * @param file - file name
      * @return true - iff the graph was successfully loaded.
      */
     @Override
     public boolean load(String file) {
         try {
-            String filename = !file.contains(".txt") ? file + ".txt" : file;
-            ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename));
-            this.graph = (WGraph_DS) in.readObject();            
-            in.close();
+            Path snapshot = Paths.get(WGraph_Journal.snapshotName(file));
+            Path log = Paths.get(WGraph_Journal.logName(file));
+            // a journal that was never compacted has only a log
+            WGraph_DS loaded = !Files.exists(snapshot) && Files.exists(log)
+                    ? new WGraph_DS() : WGraph_Journal.readSnapshot(snapshot);
+            if (Files.exists(log)) {
+                WGraph_Journal.replay(loaded, log);
+            }
+            this.graph = loaded;
+            this.hops = null;
             return true;
-        } catch (IOException | ClassNotFoundException ex) {
+        } catch (IOException ex) {
             ex.printStackTrace();
             System.out.println(ex.getMessage());
             return false;
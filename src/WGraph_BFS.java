@@ -0,0 +1,340 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Hop counts on a snapshot of a weighted graph (the weights are ignored) - the number of edges of the shortest
+ * path between two nodes, the path itself and reachability - by a direction optimizing BFS (Beamer, Asanovic and
+ * Patterson).
+ * Explanation:
+ * The nodes are numbered by their sorted keys and the adjacency lists are copied as indexes (CSR), the frontier
+ * is kept both as a list and as a bitset (a long per 64 nodes). Every level of the BFS is one of:
+ * top-down - every node of the frontier visits its unvisited neighbors (cheap while the frontier is small).
+ * bottom-up - every unvisited node looks for a neighbor in the frontier and stops at the first one it finds
+ *             (cheap when the frontier is big - most of the edges of a big frontier lead to visited nodes).
+ * It goes bottom-up when the edges of the frontier are more than 1/ALPHA of the edges of the unvisited nodes and
+ * back top-down when the frontier shrinks under 1/BETA of the nodes.
+ * Parallel mode - a bottom-up level splits the unvisited nodes into blocks of 64 (a word of the bitset each, so
+ * no two threads write the same word), a top-down level splits the frontier and merges what the threads found.
+ * Note: a snapshot doesn't follow changes of the graph (WGraph_Algo keeps one per mode count).
+ */
+public class WGraph_BFS {
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    // the smallest level that is worth splitting between threads
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final int[] keys;
+    private final int[] offsets;
+    private final int[] adjacent;
+    private final boolean parallel;
+
+    private WGraph_BFS(int[] keys, int[] offsets, int[] adjacent, boolean parallel) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.adjacent = adjacent;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Take a snapshot of a graph.
+     * @param g
+     * @return WGraph_BFS
+     */
+    public static WGraph_BFS of(weighted_graph g) {
+        return of(g, false);
+    }
+
+    /**
+     * Take a snapshot of a graph.
+     * @param g
+     * @param parallel - whether the big levels of every BFS run in parallel (on the common ForkJoinPool)
+     * @return WGraph_BFS
+     */
+    public static WGraph_BFS of(weighted_graph g, boolean parallel) {
+        Collection<node_info> nodes = g.getV();
+        int[] keys = new int[nodes.size()];
+        int i = 0;
+        for (node_info node : nodes) {
+            keys[i++] = node.getKey();
+        }
+        Arrays.sort(keys);
+        int n = keys.length;
+        // a single pass over the adjacency lists (collecting keys), then the keys are turned into indexes
+        int[] offsets = new int[n + 1];
+        int[][] adjacent = {new int[Math.max(16, n)]};
+        int[] count = {0};
+        for (i = 0; i < n; i++) {
+            g.forEachNeighbor(keys[i], (key, w) -> {
+                if (count[0] == adjacent[0].length) {
+                    adjacent[0] = Arrays.copyOf(adjacent[0], 2 * count[0]);
+                }
+                adjacent[0][count[0]++] = key;
+            });
+            offsets[i + 1] = count[0];
+        }
+        int[] indexes = Arrays.copyOf(adjacent[0], count[0]);
+        boolean dense = n == 0 || (keys[0] == 0 && keys[n - 1] == n - 1); // the keys are 0..n-1
+        if (!dense) {
+            for (i = 0; i < indexes.length; i++) {
+                indexes[i] = Arrays.binarySearch(keys, indexes[i]);
+            }
+        }
+        return new WGraph_BFS(keys, offsets, indexes, parallel);
+    }
+
+    /**
+     * Return the number of edges on the path with the fewest edges between src and dest.
+     * @param src
+     * @param dest
+     * @return int - -1 if there is no such path (or no such nodes)
+     */
+    public int hops(int src, int dest) {
+        int s = index(src);
+        int d = index(dest);
+        if (s < 0 || d < 0) {
+            return -1;
+        }
+        return new Search(s, d).levels[d];
+    }
+
+    /**
+     * Return the keys of a path with the fewest edges from src to dest.
+     * @param src
+     * @param dest
+     * @return int[] - null if there is no such path
+     */
+    public int[] path(int src, int dest) {
+        int s = index(src);
+        int d = index(dest);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+        Search search = new Search(s, d);
+        if (search.levels[d] < 0) {
+            return null;
+        }
+        int[] path = new int[search.levels[d] + 1];
+        for (int i = path.length - 1, v = d; i >= 0; i--, v = search.parents[v]) {
+            path[i] = this.keys[v];
+        }
+        return path;
+    }
+
+    /**
+     * Return true iff there is a path between src and dest.
+     * @param src
+     * @param dest
+     * @return boolean
+     */
+    public boolean isReachable(int src, int dest) {
+        return hops(src, dest) >= 0;
+    }
+
+    /**
+     * Return the number of edges from src to every node it reaches.
+     * @param src
+     * @return Map<Integer, Integer> - key -> hops (empty if there is no such node)
+     */
+    public Map<Integer, Integer> hopsFrom(int src) {
+        Map<Integer, Integer> hops = new HashMap<>();
+        int s = index(src);
+        if (s >= 0) {
+            int[] levels = new Search(s, -1).levels;
+            for (int v = 0; v < levels.length; v++) {
+                if (levels[v] >= 0) {
+                    hops.put(this.keys[v], levels[v]);
+                }
+            }
+        }
+        return hops;
+    }
+
+    /**
+     * Return the number of nodes src reaches (itself included).
+     * @param src
+     * @return int - 0 if there is no such node
+     */
+    public int reachable(int src) {
+        int s = index(src);
+        return s < 0 ? 0 : new Search(s, -1).visited;
+    }
+
+    /**
+     * Return true iff every node reaches every other node.
+     * @return boolean
+     */
+    public boolean isConnected() {
+        return this.keys.length <= 1 || new Search(0, -1).visited == this.keys.length;
+    }
+
+    private int index(int key) {
+        int i = Arrays.binarySearch(this.keys, key);
+        return i < 0 ? -1 : i;
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * A single BFS from a source, until the target is reached (-1 - all the reachable nodes).
+     */
+    private class Search {
+        private final int n = keys.length;
+        private final int[] levels = new int[n];
+        private final int[] parents = new int[n];
+        private long[] frontierBits = new long[(n + 63) >>> 6];
+        private long[] nextBits = new long[(n + 63) >>> 6];
+        private int[] frontier = new int[16];
+        private int frontierSize;
+        private int visited;
+
+        Search(int src, int target) {
+            Arrays.fill(this.levels, -1);
+            this.levels[src] = 0;
+            this.parents[src] = -1;
+            this.frontier[0] = src;
+            this.frontierSize = 1;
+            this.visited = 1;
+            long unexploredEdges = adjacent.length;
+            boolean bottomUp = false;
+            for (int level = 0; this.frontierSize > 0 && (target < 0 || this.levels[target] < 0); level++) {
+                long frontierEdges = 0;
+                for (int i = 0; i < this.frontierSize; i++) {
+                    frontierEdges += degree(this.frontier[i]);
+                }
+                unexploredEdges -= frontierEdges;
+                if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                    bottomUp = true;
+                }
+                else if (bottomUp && this.frontierSize < this.n / BETA) {
+                    bottomUp = false;
+                }
+                if (bottomUp) {
+                    bottomUpStep(level);
+                }
+                else {
+                    topDownStep(level);
+                }
+            }
+        }
+
+        private int degree(int v) {
+            return offsets[v + 1] - offsets[v];
+        }
+
+        private void topDownStep(int level) {
+            int[] next;
+            int nextSize = 0;
+            if (parallel && this.frontierSize >= PARALLEL_THRESHOLD) {
+                // every thread collects (node, parent) pairs of a part of the frontier, merged in order
+                int parts = Math.min(64, (this.frontierSize + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD * 4);
+                int[] current = this.frontier;
+                int size = this.frontierSize;
+                int[][] found = IntStream.range(0, parts).parallel().mapToObj(p -> {
+                    int[] pairs = new int[16];
+                    int count = 0;
+                    for (int i = (int) ((long) p * size / parts); i < (long) (p + 1) * size / parts; i++) {
+                        int v = current[i];
+                        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                            if (this.levels[adjacent[e]] < 0) {
+                                if (count + 2 > pairs.length) {
+                                    pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+                                }
+                                pairs[count++] = adjacent[e];
+                                pairs[count++] = v;
+                            }
+                        }
+                    }
+                    return Arrays.copyOf(pairs, count);
+                }).toArray(int[][]::new);
+                next = new int[16];
+                for (int[] pairs : found) {
+                    for (int i = 0; i < pairs.length; i += 2) {
+                        int u = pairs[i];
+                        if (this.levels[u] < 0) {
+                            this.levels[u] = level + 1;
+                            this.parents[u] = pairs[i + 1];
+                            if (nextSize == next.length) {
+                                next = Arrays.copyOf(next, 2 * nextSize);
+                            }
+                            next[nextSize++] = u;
+                        }
+                    }
+                }
+            }
+            else {
+                next = new int[Math.max(16, this.frontierSize)];
+                for (int i = 0; i < this.frontierSize; i++) {
+                    int v = this.frontier[i];
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int u = adjacent[e];
+                        if (this.levels[u] < 0) {
+                            this.levels[u] = level + 1;
+                            this.parents[u] = v;
+                            if (nextSize == next.length) {
+                                next = Arrays.copyOf(next, 2 * nextSize);
+                            }
+                            next[nextSize++] = u;
+                        }
+                    }
+                }
+            }
+            this.frontier = next;
+            this.frontierSize = nextSize;
+            this.visited += nextSize;
+        }
+
+        private void bottomUpStep(int level) {
+            Arrays.fill(this.frontierBits, 0);
+            for (int i = 0; i < this.frontierSize; i++) {
+                int v = this.frontier[i];
+                this.frontierBits[v >>> 6] |= 1L << v;
+            }
+            Arrays.fill(this.nextBits, 0);
+            int words = this.nextBits.length;
+            if (parallel && this.n >= PARALLEL_THRESHOLD) {
+                int blocks = Math.min(words, 256);
+                IntStream.range(0, blocks).parallel().forEach(b ->
+                        bottomUpWords((int) ((long) b * words / blocks), (int) ((long) (b + 1) * words / blocks), level));
+            }
+            else {
+                bottomUpWords(0, words, level);
+            }
+            int nextSize = 0;
+            for (long word : this.nextBits) {
+                nextSize += Long.bitCount(word);
+            }
+            int[] next = new int[Math.max(16, nextSize)];
+            int count = 0;
+            for (int w = 0; w < words; w++) {
+                for (long word = this.nextBits[w]; word != 0; word &= word - 1) {
+                    next[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            this.frontier = next;
+            this.frontierSize = nextSize;
+            this.visited += nextSize;
+        }
+
+        /** Every unvisited node of the words [from, to) looks for a parent in the frontier. */
+        private void bottomUpWords(int from, int to, int level) {
+            for (int u = from << 6; u < Math.min(this.n, to << 6); u++) {
+                if (this.levels[u] >= 0) {
+                    continue;
+                }
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = adjacent[e];
+                    if ((this.frontierBits[v >>> 6] & (1L << v)) != 0) {
+                        this.levels[u] = level + 1;
+                        this.parents[u] = v;
+                        this.nextBits[u >>> 6] |= 1L << u;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
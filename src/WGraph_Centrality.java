@@ -0,0 +1,296 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Centrality measures of the nodes of a weighted (undirected) graph - which nodes are the most critical ones.
+ * betweenness - the number of shortest paths between other pairs of nodes that pass through a node
+ *               (a pair with several shortest paths contributes the share of them that pass through it).
+ *               see: https://en.wikipedia.org/wiki/Betweenness_centrality
+ * closeness - how close a node is to all the nodes it reaches, (r-1)/(sum of distances) scaled by (r-1)/(n-1),
+ *             r - being the number of nodes it reaches (Wasserman and Faust, so it works on disconnected graphs).
+ *             see: https://en.wikipedia.org/wiki/Closeness_centrality
+ * Explanation:
+ * Both are computed with a search from every source (Brandes algorithm for betweenness - a dijkstra that counts
+ * the shortest paths to every node and then walks the nodes back from the farthest one accumulating the
+ * dependencies of the source on them). The sources are split between threads, every thread has its own
+ * SearchState and its own accumulator array and the arrays are summed once all the sources are done.
+ * For graphs that are too big for a search from every node the approximate versions search from a random
+ * sample of sources and scale the result up (see samplingError for how far they may be).
+ * Note: the weights are expected to be positive (a zero weight edge may break the path counting).
+ */
+public class WGraph_Centrality {
+
+    private WGraph_Centrality() {
+    }
+
+    /**
+     * Returns the exact betweenness centrality of every node.
+     * @param g
+     * @return Map<Integer, Double> - key -> betweenness
+     */
+    public static Map<Integer, Double> betweenness(weighted_graph g) {
+        int[] keys = sortedKeys(g);
+        double[] sum = parallel(keys, keys, 1, () -> new Brandes(g, keys));
+        return toMap(keys, sum, 0.5); // every pair was counted from both of its ends
+    }
+
+    /**
+     * Returns an approximation of the betweenness centrality of every node from a random sample of sources.
+     * @param g
+     * @param samples - the number of sources to search from (all of them if there are fewer nodes)
+     * @param seed - the seed of the sample
+     * @return Map<Integer, Double> - key -> betweenness
+     */
+    public static Map<Integer, Double> approximateBetweenness(weighted_graph g, int samples, long seed) {
+        int[] keys = sortedKeys(g);
+        int[] sources = sample(keys, samples, seed);
+        double[] sum = parallel(keys, sources, 1, () -> new Brandes(g, keys));
+        return toMap(keys, sum, 0.5 * keys.length / Math.max(sources.length, 1));
+    }
+
+    /**
+     * Returns the exact closeness centrality of every node.
+     * @param g
+     * @return Map<Integer, Double> - key -> closeness
+     */
+    public static Map<Integer, Double> closeness(weighted_graph g) {
+        int[] keys = sortedKeys(g);
+        return closenessOf(keys, parallel(keys, keys, 2, () -> new Distances(g, keys)), 1);
+    }
+
+    /**
+     * Returns an approximation of the closeness centrality of every node from a random sample of sources
+     * (Eppstein and Wang - the sum of the distances of a node is estimated by its distances to the sources).
+     * @param g
+     * @param samples - the number of sources to search from (all of them if there are fewer nodes)
+     * @param seed - the seed of the sample
+     * @return Map<Integer, Double> - key -> closeness
+     */
+    public static Map<Integer, Double> approximateCloseness(weighted_graph g, int samples, long seed) {
+        int[] keys = sortedKeys(g);
+        int[] sources = sample(keys, samples, seed);
+        double[] sums = parallel(keys, sources, 2, () -> new Distances(g, keys));
+        return closenessOf(keys, sums, (double) keys.length / Math.max(sources.length, 1));
+    }
+
+    /**
+     * Returns how far the approximate versions may be from the exact ones: with a probability of at least
+     * 1-delta, for all the nodes at once (Hoeffding's inequality and a union bound):
+     * betweenness - the error is at most samplingError * n(n-2)/2.
+     * closeness - the error of the average distance of a node is at most samplingError * D (D - the diameter).
+     * @param n - the number of nodes
+     * @param samples - the number of sources
+     * @param delta - the allowed probability of a bigger error
+     * @return double
+     */
+    public static double samplingError(int n, int samples, double delta) {
+        return Math.sqrt(Math.log(2.0 * Math.max(n, 1) / delta) / (2.0 * samples));
+    }
+
+    /**
+     * Run a worker from every source on all the cores, every thread sums into an accumulator of its own.
+     * @param keys - the keys of the graph (sorted)
+     * @param sources - the keys to search from
+     * @param width - the number of accumulated values of every node
+     * @param workers - creates the worker of a thread
+     * @return double[] - the sum of all the accumulators (width values per node)
+     */
+    private static double[] parallel(int[] keys, int[] sources, int width, Supplier<Worker> workers) {
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), sources.length));
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<double[]>> accumulators = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                accumulators.add(pool.submit(() -> {
+                    Worker worker = workers.get();
+                    double[] accumulator = new double[keys.length * width];
+                    for (int i = next.getAndIncrement(); i < sources.length; i = next.getAndIncrement()) {
+                        worker.search(sources[i], accumulator);
+                    }
+                    return accumulator;
+                }));
+            }
+            double[] sum = new double[keys.length * width];
+            for (Future<double[]> accumulator : accumulators) {
+                double[] part = accumulator.get();
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += part[i];
+                }
+            }
+            return sum;
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException("Failed to compute the centrality", ex);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Map<Integer, Double> closenessOf(int[] keys, double[] sums, double scale) {
+        double[] closeness = new double[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            double reached = sums[2 * i + 1] * scale; // the node itself included
+            double distances = sums[2 * i] * scale;
+            if (reached > 1 && distances > 0 && keys.length > 1) {
+                closeness[i] = ((reached - 1) / distances) * ((reached - 1) / (keys.length - 1));
+            }
+        }
+        return toMap(keys, closeness, 1);
+    }
+
+    private static int[] sortedKeys(weighted_graph g) {
+        Collection<node_info> nodes = g.getV();
+        int[] keys = new int[nodes.size()];
+        int i = 0;
+        for (node_info node : nodes) {
+            keys[i++] = node.getKey();
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static int[] sample(int[] keys, int samples, long seed) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("The number of samples must be positive");
+        }
+        int[] shuffled = keys.clone();
+        Random rnd = new Random(seed);
+        int count = Math.min(samples, shuffled.length);
+        for (int i = 0; i < count; i++) {
+            int j = i + rnd.nextInt(shuffled.length - i);
+            int t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+        return Arrays.copyOf(shuffled, count);
+    }
+
+    private static Map<Integer, Double> toMap(int[] keys, double[] values, double scale) {
+        Map<Integer, Double> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], values[i] * scale);
+        }
+        return map;
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /** The per thread part of a centrality - adds what a search from a source contributes to the accumulator. */
+    private interface Worker {
+        void search(int src, double[] accumulator);
+    }
+
+    /**
+     * Brandes algorithm from a single source.
+     * Explanation:
+     * 1. dijkstra from the source that also counts sigma - the number of shortest paths to every node
+     *    (a node reached again at the same distance adds the paths of the new parent).
+     * 2. the nodes are walked back in the reverse order they were settled, every node w gives each of its
+     *    predecessors v (dist(v) + w(v,w) == dist(w)) the share sigma(v)/sigma(w) * (1 + delta(w)) of its dependency.
+     * The arrays are indexed by the entries of the SearchState, so a search only touches what it reached.
+     */
+    private static class Brandes implements Worker {
+        private final weighted_graph graph;
+        private final int[] keys;
+        private final SearchState state = new SearchState();
+        private double[] sigma = new double[16];
+        private double[] delta = new double[16];
+        private int[] order = new int[16];
+
+        Brandes(weighted_graph graph, int[] keys) {
+            this.graph = graph;
+            this.keys = keys;
+        }
+
+        @Override
+        public void search(int src, double[] accumulator) {
+            SearchState s = this.state;
+            s.clear();
+            s.seed(src);
+            sigmaOf(0, 1);
+            int count = 0;
+            while (s.settleNext()) {
+                int current = s.current();
+                if (count == this.order.length) {
+                    this.order = Arrays.copyOf(this.order, 2 * count);
+                }
+                this.order[count++] = current;
+                double pathDistance = s.distance(current);
+                double paths = this.sigma[current];
+                this.graph.forEachNeighbor(s.key(current), (adjacentKey, weight) -> {
+                    double distance = pathDistance + weight;
+                    int entry = s.entryOf(adjacentKey);
+                    if (entry == SearchState.NONE || distance < s.distance(entry)) {
+                        s.relax(adjacentKey, distance, current);
+                        sigmaOf(s.entryOf(adjacentKey), paths);
+                    }
+                    else if (distance == s.distance(entry) && !s.isSettled(entry)) {
+                        this.sigma[entry] += paths;
+                    }
+                });
+            }
+            Arrays.fill(this.delta, 0, s.size(), 0);
+            for (int i = count - 1; i > 0; i--) {
+                int w = this.order[i];
+                double distance = s.distance(w);
+                double share = (1 + this.delta[w]) / this.sigma[w];
+                this.graph.forEachNeighbor(s.key(w), (adjacentKey, weight) -> {
+                    int v = s.entryOf(adjacentKey);
+                    if (v != SearchState.NONE && s.distance(v) + weight == distance) {
+                        this.delta[v] += this.sigma[v] * share;
+                    }
+                });
+                accumulator[Arrays.binarySearch(this.keys, s.key(w))] += this.delta[w];
+            }
+        }
+
+        private void sigmaOf(int entry, double paths) {
+            if (entry >= this.sigma.length) {
+                int capacity = Math.max(entry + 1, 2 * this.sigma.length);
+                this.sigma = Arrays.copyOf(this.sigma, capacity);
+                this.delta = Arrays.copyOf(this.delta, capacity);
+            }
+            this.sigma[entry] = paths;
+        }
+    }
+
+    /** A full dijkstra from a source that adds the distance and a reach count to every node it reaches. */
+    private static class Distances implements Worker {
+        private final weighted_graph graph;
+        private final int[] keys;
+        private final SearchState state = new SearchState();
+
+        Distances(weighted_graph graph, int[] keys) {
+            this.graph = graph;
+            this.keys = keys;
+        }
+
+        @Override
+        public void search(int src, double[] accumulator) {
+            SearchState s = this.state;
+            s.clear();
+            s.seed(src);
+            while (s.settleNext()) {
+                int current = s.current();
+                int index = Arrays.binarySearch(this.keys, s.key(current));
+                accumulator[2 * index] += s.distance(current);
+                accumulator[2 * index + 1]++;
+                double pathDistance = s.distance(current);
+                this.graph.forEachNeighbor(s.key(current), (adjacentKey, weight) ->
+                        s.relax(adjacentKey, pathDistance + weight, current));
+            }
+        }
+    }
+}
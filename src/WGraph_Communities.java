@@ -0,0 +1,498 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Community detection on a weighted (undirected) graph - groups of nodes that are connected by more weight
+ * between them than to the rest of the graph - by the Louvain method (Blondel et al.) run in parallel.
+ * The quality of a partition is its modularity - the share of the weight inside the communities minus the share
+ * expected at random (the degree product):
+ * Q = sum over communities c of in(c) / 2m - resolution * (tot(c) / 2m)^2
+ * in(c) - twice the weight of the edges inside c, tot(c) - the sum of the weighted degrees of its nodes.
+ * see: https://en.wikipedia.org/wiki/Louvain_method
+ * Explanation:
+ * Every level starts with every node in a community of its own and moves nodes to the community of a neighbor
+ * that gains the most modularity, until a round of all the nodes gains less than MIN_GAIN. Then every community
+ * becomes a single node of the next level (its inner edges a self loop, the edges between two communities a
+ * single edge with their total weight) - until a level doesn't merge anything.
+ * Parallel moves - every round splits the nodes into MAX_BATCHES batches (a random node of every block of
+ * MAX_BATCHES consecutive nodes per batch, so neighbors by index are never decided together and a batch still
+ * reads the arrays in order). The nodes of a batch choose their communities in parallel (on the common
+ * ForkJoinPool) by the state before the batch and the moves are applied between the batches. Two single nodes
+ * never swap into each other's community in the same batch (a single node only joins a single node with a
+ * smaller label). The batches depend only on the number of nodes and the seed, not on the threads.
+ * Nodes of a batch that decide together may still lower the modularity between them, so a round that ends below
+ * the modularity it started with is rolled back and ends the moving phase.
+ * Every level is a primitive graph (CSR of indexes, weights, self loops and weighted degrees), aggregation sorts
+ * the nodes by their community and builds the lists of the communities in parallel.
+ * Note: the weights are expected to be non negative (a weight is a strength of a connection here, not a length).
+ */
+public class WGraph_Communities {
+    private static final int MAX_LEVELS = 32;
+    private static final int MAX_ROUNDS = 64;
+    private static final int MAX_BATCHES = 8;
+    private static final double MIN_GAIN = 1e-7;
+
+    private WGraph_Communities() {
+    }
+
+    /**
+     * Find the communities of a graph in parallel (resolution 1, seed 1).
+     * @param g
+     * @return Partition
+     */
+    public static Partition louvain(weighted_graph g) {
+        return louvain(g, 1, 1, true);
+    }
+
+    /**
+     * Find the communities of a graph.
+     * @param g
+     * @param resolution - bigger values give more and smaller communities (1 - the classic modularity)
+     * @param seed - the seed of the order the nodes are visited in
+     * @param parallel - whether the nodes are moved (and the levels aggregated) in parallel
+     * @return Partition
+     */
+    public static Partition louvain(weighted_graph g, double resolution, long seed, boolean parallel) {
+        if (!(resolution > 0)) {
+            throw new IllegalArgumentException(String.format("A resolution of %s", resolution));
+        }
+        Level first = Level.of(g);
+        int n = first.n;
+        int[] labels = identity(n); // the node of the current level every node of the graph belongs to
+        Level level = first;
+        int levels = 0;
+        while (levels < MAX_LEVELS) {
+            int[] communities = level.move(resolution, seed + levels, parallel);
+            int count = renumber(communities);
+            if (count == level.n) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                labels[i] = communities[labels[i]];
+            }
+            level = level.aggregate(communities, count, parallel);
+            levels++;
+        }
+        int count = renumber(labels);
+        return new Partition(first.keys, labels, count, first.modularity(labels, resolution, parallel), levels);
+    }
+
+    /**
+     * Return the modularity of a partition of a graph (resolution 1).
+     * @param g
+     * @param labels - key -> community, every node of the graph must have one
+     * @return double
+     */
+    public static double modularity(weighted_graph g, Map<Integer, Integer> labels) {
+        Level level = Level.of(g);
+        int[] communities = new int[level.n];
+        Map<Integer, Integer> dense = new HashMap<>();
+        for (int i = 0; i < level.n; i++) {
+            Integer label = labels.get(level.keys[i]);
+            if (label == null) {
+                throw new IllegalArgumentException(String.format("Node %d has no community", level.keys[i]));
+            }
+            communities[i] = dense.computeIfAbsent(label, l -> dense.size());
+        }
+        return level.modularity(communities, 1, false);
+    }
+
+    private static int[] identity(int n) {
+        int[] identity = new int[n];
+        for (int i = 0; i < n; i++) {
+            identity[i] = i;
+        }
+        return identity;
+    }
+
+    /**
+     * Renumber the labels to 0..count-1 in the order they first appear.
+     * @return int - the number of distinct labels
+     */
+    private static int renumber(int[] labels) {
+        int[] dense = new int[labels.length];
+        Arrays.fill(dense, -1);
+        int count = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (dense[labels[i]] < 0) {
+                dense[labels[i]] = count++;
+            }
+            labels[i] = dense[labels[i]];
+        }
+        return count;
+    }
+
+    private static IntStream range(int from, int to, boolean parallel) {
+        IntStream range = IntStream.range(from, to);
+        return parallel ? range.parallel() : range;
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * The communities of the nodes of a graph, numbered 0..size()-1 in the order of the sorted keys.
+     */
+    public static class Partition {
+        private final int[] keys;
+        private final int[] labels;
+        private final int size;
+        private final double modularity;
+        private final int levels;
+
+        Partition(int[] keys, int[] labels, int size, double modularity, int levels) {
+            this.keys = keys;
+            this.labels = labels;
+            this.size = size;
+            this.modularity = modularity;
+            this.levels = levels;
+        }
+
+        /**
+         * Return the community of a node.
+         * @param key
+         * @return int - -1 if there is no such node
+         */
+        public int community(int key) {
+            int i = Arrays.binarySearch(this.keys, key);
+            return i < 0 ? -1 : this.labels[i];
+        }
+
+        /**
+         * Return the community of every node.
+         * @return Map<Integer, Integer> - key -> community
+         */
+        public Map<Integer, Integer> labels() {
+            Map<Integer, Integer> labels = new HashMap<>();
+            for (int i = 0; i < this.keys.length; i++) {
+                labels.put(this.keys[i], this.labels[i]);
+            }
+            return labels;
+        }
+
+        /**
+         * Return the number of communities.
+         * @return int
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Return the modularity of the partition (with the resolution it was found with).
+         * @return double
+         */
+        public double modularity() {
+            return this.modularity;
+        }
+
+        /**
+         * Return the number of levels that merged nodes.
+         * @return int
+         */
+        public int levels() {
+            return this.levels;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d communities, modularity %.4f (%d levels)", this.size, this.modularity, this.levels);
+        }
+    }
+
+    /**
+     * A level of the method - a primitive graph of n nodes: the lists of the neighbors (CSR of indexes and
+     * weights, without self loops), the weight of the self loop of every node and its weighted degree
+     * (the weights of its edges and twice its self loop).
+     */
+    private static class Level {
+        private final int n;
+        private final int[] keys; // the keys of the nodes of the first level, null for the others
+        private final int[] offsets;
+        private final int[] adjacent;
+        private final double[] weights;
+        private final double[] self;
+        private final double[] degrees;
+        private final double total; // 2m - the sum of the degrees
+
+        Level(int[] keys, int[] offsets, int[] adjacent, double[] weights, double[] self) {
+            this.n = offsets.length - 1;
+            this.keys = keys;
+            this.offsets = offsets;
+            this.adjacent = adjacent;
+            this.weights = weights;
+            this.self = self;
+            this.degrees = new double[this.n];
+            double total = 0;
+            for (int i = 0; i < this.n; i++) {
+                double degree = 2 * self[i];
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    degree += weights[e];
+                }
+                this.degrees[i] = degree;
+                total += degree;
+            }
+            this.total = total;
+        }
+
+        /** The first level - the graph itself, its nodes by the order of their keys. */
+        static Level of(weighted_graph g) {
+            Collection<node_info> nodes = g.getV();
+            int[] keys = new int[nodes.size()];
+            int i = 0;
+            for (node_info node : nodes) {
+                keys[i++] = node.getKey();
+            }
+            Arrays.sort(keys);
+            int n = keys.length;
+            int[] offsets = new int[n + 1];
+            int[][] adjacent = {new int[Math.max(16, n)]};
+            double[][] weights = {new double[Math.max(16, n)]};
+            int[] count = {0};
+            for (i = 0; i < n; i++) {
+                g.forEachNeighbor(keys[i], (key, w) -> {
+                    if (count[0] == adjacent[0].length) {
+                        adjacent[0] = Arrays.copyOf(adjacent[0], 2 * count[0]);
+                        weights[0] = Arrays.copyOf(weights[0], 2 * count[0]);
+                    }
+                    adjacent[0][count[0]] = key;
+                    weights[0][count[0]++] = w;
+                });
+                offsets[i + 1] = count[0];
+            }
+            int[] indexes = Arrays.copyOf(adjacent[0], count[0]);
+            if (n > 0 && !(keys[0] == 0 && keys[n - 1] == n - 1)) {
+                for (i = 0; i < indexes.length; i++) {
+                    indexes[i] = Arrays.binarySearch(keys, indexes[i]);
+                }
+            }
+            return new Level(keys, offsets, indexes, Arrays.copyOf(weights[0], count[0]), new double[n]);
+        }
+
+        /**
+         * The local moving phase - move the nodes between communities until a round gains less than MIN_GAIN
+         * (a round that loses modularity is undone).
+         * @return int[] - the community of every node
+         */
+        int[] move(double resolution, long seed, boolean parallel) {
+            int[] communities = identity(this.n);
+            if (this.total == 0) {
+                return communities;
+            }
+            double[] tot = this.degrees.clone();
+            int[] sizes = new int[this.n];
+            Arrays.fill(sizes, 1);
+            // batch b takes a node of every block of `batches` consecutive nodes - the one at (b + rotation) of
+            // the block, so a batch sweeps the arrays in order and two consecutive nodes are never in one batch
+            int batches = Math.min(MAX_BATCHES, this.n);
+            int blocks = (this.n + batches - 1) / batches;
+            int[] rotations = new int[blocks];
+            SplittableRandom random = new SplittableRandom(seed);
+            int[] targets = new int[this.n];
+            ThreadLocal<Neighborhood> neighborhoods = ThreadLocal.withInitial(() -> new Neighborhood(this.n));
+            double modularity = modularity(communities, resolution, parallel);
+            int[] previous = new int[this.n];
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                System.arraycopy(communities, 0, previous, 0, this.n);
+                for (int k = 0; k < blocks; k++) {
+                    rotations[k] = random.nextInt(batches);
+                }
+                int moved = 0;
+                for (int b = 0; b < batches; b++) {
+                    int batch = b;
+                    range(0, blocks, parallel).forEach(k -> {
+                        int i = k * batches + (batch + rotations[k]) % batches;
+                        if (i < this.n) {
+                            targets[i] = best(i, communities, tot, sizes, resolution, neighborhoods.get());
+                        }
+                    });
+                    for (int k = 0; k < blocks; k++) {
+                        int i = k * batches + (b + rotations[k]) % batches;
+                        if (i < this.n && targets[i] != communities[i]) {
+                            int old = communities[i];
+                            tot[old] -= this.degrees[i];
+                            sizes[old]--;
+                            tot[targets[i]] += this.degrees[i];
+                            sizes[targets[i]]++;
+                            communities[i] = targets[i];
+                            moved++;
+                        }
+                    }
+                }
+                double next = modularity(communities, resolution, parallel);
+                if (next < modularity) { // the moves of a batch worked against each other - back to the last round
+                    System.arraycopy(previous, 0, communities, 0, this.n);
+                    break;
+                }
+                if (moved == 0 || next - modularity < MIN_GAIN) {
+                    break;
+                }
+                modularity = next;
+            }
+            return communities;
+        }
+
+        /**
+         * Return the community that gains the most modularity for node i (its own on ties).
+         * Explanation:
+         * Moving i out of its community a and into c changes the modularity by (up to the factor 1/m):
+         * [w(i, c) - resolution * k(i) * tot(c) / 2m] - [w(i, a) - resolution * k(i) * (tot(a) - k(i)) / 2m]
+         * w(i, c) - the weight of the edges from i to c, k(i) - the degree of i.
+         */
+        private int best(int i, int[] communities, double[] tot, int[] sizes, double resolution, Neighborhood neighborhood) {
+            int own = communities[i];
+            neighborhood.clear();
+            for (int e = this.offsets[i]; e < this.offsets[i + 1]; e++) {
+                neighborhood.add(communities[this.adjacent[e]], this.weights[e]);
+            }
+            double scale = resolution * this.degrees[i] / this.total;
+            int best = own;
+            double bestGain = neighborhood.weightTo(own) - scale * (tot[own] - this.degrees[i]);
+            for (int t = 0; t < neighborhood.size; t++) {
+                int c = neighborhood.touched[t];
+                if (c == own) {
+                    continue;
+                }
+                double gain = neighborhood.weights[c] - scale * tot[c];
+                if (gain > bestGain || (gain == bestGain && best != own && c < best)) {
+                    best = c;
+                    bestGain = gain;
+                }
+            }
+            if (best != own && sizes[own] == 1 && sizes[best] == 1 && best > own) {
+                return own; // the other single node may be joining this one in the same batch
+            }
+            return best;
+        }
+
+        /**
+         * Merge every community into a single node.
+         * @param communities - the community of every node, 0..count-1
+         * @param count
+         * @return Level
+         */
+        Level aggregate(int[] communities, int count, boolean parallel) {
+            int[] starts = new int[count + 1];
+            for (int i = 0; i < this.n; i++) {
+                starts[communities[i] + 1]++;
+            }
+            for (int c = 0; c < count; c++) {
+                starts[c + 1] += starts[c];
+            }
+            int[] members = new int[this.n];
+            int[] next = Arrays.copyOf(starts, count);
+            for (int i = 0; i < this.n; i++) {
+                members[next[communities[i]]++] = i;
+            }
+            double[] self = new double[count];
+            int[][] lists = new int[count][];
+            double[][] listWeights = new double[count][];
+            ThreadLocal<Neighborhood> neighborhoods = ThreadLocal.withInitial(() -> new Neighborhood(count));
+            range(0, count, parallel).forEach(c -> {
+                Neighborhood neighborhood = neighborhoods.get();
+                neighborhood.clear();
+                double inner = 0;
+                double loops = 0;
+                for (int m = starts[c]; m < starts[c + 1]; m++) {
+                    int i = members[m];
+                    loops += this.self[i];
+                    for (int e = this.offsets[i]; e < this.offsets[i + 1]; e++) {
+                        int d = communities[this.adjacent[e]];
+                        if (d == c) {
+                            inner += this.weights[e];
+                        }
+                        else {
+                            neighborhood.add(d, this.weights[e]);
+                        }
+                    }
+                }
+                self[c] = loops + inner / 2; // every inner edge was seen from both of its ends
+                lists[c] = Arrays.copyOf(neighborhood.touched, neighborhood.size);
+                listWeights[c] = new double[neighborhood.size];
+                for (int t = 0; t < neighborhood.size; t++) {
+                    listWeights[c][t] = neighborhood.weights[neighborhood.touched[t]];
+                }
+            });
+            int[] offsets = new int[count + 1];
+            for (int c = 0; c < count; c++) {
+                offsets[c + 1] = offsets[c] + lists[c].length;
+            }
+            int[] adjacent = new int[offsets[count]];
+            double[] weights = new double[offsets[count]];
+            range(0, count, parallel).forEach(c -> {
+                System.arraycopy(lists[c], 0, adjacent, offsets[c], lists[c].length);
+                System.arraycopy(listWeights[c], 0, weights, offsets[c], lists[c].length);
+            });
+            return new Level(null, offsets, adjacent, weights, self);
+        }
+
+        /**
+         * Return the modularity of a partition of this level.
+         * @param communities - the community of every node, 0..n-1
+         */
+        double modularity(int[] communities, double resolution, boolean parallel) {
+            if (this.total == 0) {
+                return 0;
+            }
+            double inner = range(0, this.n, parallel).mapToDouble(i -> {
+                double in = 2 * this.self[i];
+                for (int e = this.offsets[i]; e < this.offsets[i + 1]; e++) {
+                    if (communities[this.adjacent[e]] == communities[i]) {
+                        in += this.weights[e];
+                    }
+                }
+                return in;
+            }).sum();
+            double[] tot = new double[this.n];
+            for (int i = 0; i < this.n; i++) {
+                tot[communities[i]] += this.degrees[i];
+            }
+            double expected = 0;
+            for (double t : tot) {
+                expected += (t / this.total) * (t / this.total);
+            }
+            return inner / this.total - resolution * expected;
+        }
+    }
+
+    /**
+     * The weights from a node (or a community) to the communities around it - a dense array with the list
+     * of the touched entries, so clearing it costs what was touched.
+     */
+    private static class Neighborhood {
+        private final double[] weights;
+        private final boolean[] seen;
+        private final int[] touched;
+        private int size;
+
+        Neighborhood(int n) {
+            this.weights = new double[n];
+            this.seen = new boolean[n];
+            this.touched = new int[n];
+        }
+
+        void add(int c, double w) {
+            if (!this.seen[c]) {
+                this.seen[c] = true;
+                this.touched[this.size++] = c;
+            }
+            this.weights[c] += w;
+        }
+
+        double weightTo(int c) {
+            return this.seen[c] ? this.weights[c] : 0;
+        }
+
+        void clear() {
+            for (int t = 0; t < this.size; t++) {
+                this.weights[this.touched[t]] = 0;
+                this.seen[this.touched[t]] = false;
+            }
+            this.size = 0;
+        }
+    }
+}
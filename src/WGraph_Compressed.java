@@ -0,0 +1,622 @@
+package ex1.src;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only weighted graph that keeps its adjacency lists compressed (in the spirit of WebGraph), for big sparse
+ * graphs whose neighbors have close ids (for example after WGraph_Reorder.relabel).
+ * Every node gets a dense index by the order of the keys and the neighbors of every index are kept in a single
+ * byte[] stream - sorted and gap encoded with varints, each one followed by the weight of its edge:
+ * Explanation:
+ * first neighbor - the zigzag encoded difference from the index of the node itself (may be negative).
+ * next neighbors - the difference from the previous neighbor minus 1 (the neighbors are distinct and sorted).
+ * varint - 7 bits per byte, the high bit marks that another byte follows, so a small gap takes a single byte.
+ * weight - by the Weights of the graph: EXACT (8 bytes), FLOAT (4 bytes) or QUANTIZED (2 bytes, a linear scale
+ *          between the smallest and the biggest weight of the graph, so the error is at most (max-min)/131070).
+ * forEachNeighbor decodes the list of a node in a single sequential pass, which is all that Dijkstra needs,
+ * while hasEdge/getEdge scan the list of node1 (O(k), k - being its degree).
+ * The tags are kept in a double[] and the infos (which are rarely set) in a map.
+ * Note: a byte[] can't be bigger than 2GB, so the stream is split into chunks of CHUNK_SIZE bytes addressed by long
+ * offsets (like OffHeapBuffer). A record (a gap and its weight, at most MAX_RECORD bytes) never crosses two chunks -
+ * a chunk with less than MAX_RECORD bytes left is skipped by the encoder and the decoder alike. The nodes are
+ * indexed by int - up to 2^31 - 1 nodes (and as many neighbors per node), the size of the lists is bounded only
+ * by the heap.
+ */
+public class WGraph_Compressed implements weighted_graph {
+    private static final int CHUNK_SHIFT = 30;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // the biggest record - a varint of an int and an EXACT weight
+    private static final int MAX_RECORD = 5 + Long.BYTES;
+
+    private final int[] keys;
+    private final boolean denseKeys;
+    private final long[] offsets;
+    private final byte[][] data;
+    private final int[] degrees;
+    private final long edgeCount;
+    private final Weights weights;
+    private final double minWeight;
+    private final double weightScale;
+    private final double[] tags;
+    private final Map<Integer, String> infos;
+
+    //A constructor that is used by of()
+    private WGraph_Compressed(int[] keys, long[] offsets, byte[][] data, int[] degrees, long edgeCount,
+                              Weights weights, double minWeight, double weightScale) {
+        this.keys = keys;
+        this.denseKeys = keys.length == 0 || (long) keys[keys.length - 1] - keys[0] == keys.length - 1;
+        this.offsets = offsets;
+        this.data = data;
+        this.degrees = degrees;
+        this.edgeCount = edgeCount;
+        this.weights = weights;
+        this.minWeight = minWeight;
+        this.weightScale = weightScale;
+        this.tags = new double[keys.length];
+        this.infos = new HashMap<>();
+    }
+
+    /**
+     * Compress the given graph keeping the exact weights.
+     * @param g
+     * @return WGraph_Compressed
+     */
+    public static WGraph_Compressed of(weighted_graph g) {
+        return of(g, Weights.EXACT);
+    }
+
+    /**
+     * Compress the given graph.
+     * @param g
+     * @param weights - how the weights are stored
+     * @return WGraph_Compressed
+     */
+    public static WGraph_Compressed of(weighted_graph g, Weights weights) {
+        int n = g.nodeSize();
+        int[] keys = new int[n];
+        int i = 0;
+        for (node_info node : g.getV()) {
+            keys[i++] = node.getKey();
+        }
+        Arrays.sort(keys);
+        double[] range = {Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int key : keys) {
+            g.forEachNeighbor(key, (adjacentKey, w) -> {
+                range[0] = Math.min(range[0], w);
+                range[1] = Math.max(range[1], w);
+            });
+        }
+        double minWeight = range[0] <= range[1] ? range[0] : 0;
+        double weightScale = range[0] < range[1] ? (range[1] - range[0]) / 65535 : 0;
+
+        long[] offsets = new long[n + 1];
+        int[] degrees = new int[n];
+        Encoder out = new Encoder(2L * g.edgeSize() * (1 + weights.bytes));
+        long[] list = new long[16];
+        double[] values = new double[16];
+        long slots = 0;
+        for (int index = 0; index < n; index++) {
+            offsets[index] = out.size();
+            int degree = g.getV(keys[index]).size();
+            if (list.length < degree) {
+                list = new long[Math.max(degree, 2 * list.length)];
+                values = new double[list.length];
+            }
+            long[] sorted = list;
+            double[] weightOf = values;
+            int[] count = {0};
+            g.forEachNeighbor(keys[index], (adjacentKey, w) -> {
+                // the index of the neighbor in the high bits and its position in the low bits
+                sorted[count[0]] = ((long) Arrays.binarySearch(keys, adjacentKey) << 32) | count[0];
+                weightOf[count[0]] = w;
+                count[0]++;
+            });
+            Arrays.sort(sorted, 0, count[0]);
+            int previous = index;
+            for (int j = 0; j < count[0]; j++) {
+                int adjacent = (int) (sorted[j] >> 32);
+                out.record();
+                if (j == 0) {
+                    int gap = adjacent - index;
+                    out.varint((gap << 1) ^ (gap >> 31));
+                }
+                else {
+                    out.varint(adjacent - previous - 1);
+                }
+                previous = adjacent;
+                double w = weightOf[(int) sorted[j]];
+                switch (weights) {
+                    case EXACT:
+                        out.fixed(Double.doubleToRawLongBits(w), Long.BYTES);
+                        break;
+                    case FLOAT:
+                        out.fixed(Float.floatToRawIntBits((float) w), Integer.BYTES);
+                        break;
+                    default:
+                        out.fixed(weightScale == 0 ? 0 : Math.round((w - minWeight) / weightScale), 2);
+                }
+            }
+            degrees[index] = count[0];
+            slots += count[0];
+        }
+        offsets[n] = out.size();
+        return new WGraph_Compressed(keys, offsets, out.chunks(), degrees, slots / 2,
+                weights, minWeight, weightScale);
+    }
+
+    /**
+     * return the node_data by the node_id,
+     * @param key - the node_id
+     * @return the node_data by the node_id, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : new Node(index);
+    }
+
+    /**
+     * return true iff (if and only if) there is an edge between node1 and node2
+     * Note: this method runs in O(k) time, k - being the degree of node1.
+     * @param node1
+     * @param node2
+     * @return boolean
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return getEdge(node1, node2) != -1;
+    }
+
+    /**
+     * return the weight if the edge (node1, node1). In case
+     * there is no such edge - should return -1
+     * Note: this method runs in O(k) time, k - being the degree of node1.
+     * @param node1
+     * @param node2
+     * @return double
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int index = indexOf(node1);
+        int target = indexOf(node2);
+        if (index < 0 || target < 0) {
+            return -1;
+        }
+        double[] found = {-1};
+        decode(index, (adjacent, w) -> {
+            if (adjacent == target) {
+                found[0] = w;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /**
+     * Returns a view of all the nodes in the graph (by the order of their keys).
+     * Note: this method runs in O(1) time.
+     * @return Collection<node_info>
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new Iterator<node_info>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public node_info next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new Node(index++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    /**
+     * Returns all the nodes that are connected to node_id (the list is decoded once).
+     * @param node_id
+     * @return Collection<node_info>
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int index = existingIndexOf(node_id);
+        int[] adjacent = new int[this.degrees[index]];
+        int[] count = {0};
+        decode(index, (adjacentIndex, w) -> adjacent[count[0]++] = adjacentIndex);
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new Iterator<node_info>() {
+                    private int i = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < adjacent.length;
+                    }
+
+                    @Override
+                    public node_info next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new Node(adjacent[i++]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return adjacent.length;
+            }
+        };
+    }
+
+    /**
+     * Performs the given action on every neighbor of node_id while decoding its list.
+     * @param node_id
+     * @param action
+     */
+    @Override
+    public void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+        decode(existingIndexOf(node_id), (adjacent, w) -> action.accept(this.keys[adjacent], w));
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /** return the number of vertices (nodes) in the graph.
+     * @return int
+     */
+    @Override
+    public int nodeSize() {
+        return this.keys.length;
+    }
+
+    /**
+     * return the number of edges (undirectional graph).
+     * @return int
+     */
+    @Override
+    public int edgeSize() {
+        return (int) this.edgeCount;
+    }
+
+    /**
+     * The graph is read-only so the mode count never changes.
+     * @return int
+     */
+    @Override
+    public int getMC() {
+        return 0;
+    }
+
+    /**
+     * Return how the weights are stored.
+     * @return Weights
+     */
+    public Weights getWeights() {
+        return this.weights;
+    }
+
+    /**
+     * Return the number of bytes of the adjacency lists (the gaps and the weights).
+     * @return long
+     */
+    public long adjacencyBytes() {
+        long bytes = 0;
+        for (byte[] chunk : this.data) {
+            bytes += chunk.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Return the number of bytes held by this graph - the adjacency lists and the arrays of the nodes
+     * (keys, offsets, degrees and tags), without the infos.
+     * @return long
+     */
+    public long compressedBytes() {
+        return adjacencyBytes() + (long) this.keys.length * (2 * Integer.BYTES + Long.BYTES + Double.BYTES) + Long.BYTES;
+    }
+
+    /**
+     * Return the number of bytes the same graph takes in a plain primitive CSR layout (like WGraph_OffHeap):
+     * an int key and a double weight for both sides of every edge, a long offset, an int key and a double tag
+     * for every node.
+     * @return long
+     */
+    public long uncompressedBytes() {
+        return 2 * this.edgeCount * (Integer.BYTES + Double.BYTES)
+                + (long) this.keys.length * (Long.BYTES + Integer.BYTES + Double.BYTES) + Long.BYTES;
+    }
+
+    /**
+     * Decode the list of an index, passing the index of every neighbor and the weight of the edge to it.
+     * @param index
+     * @param action
+     */
+    private void decode(int index, IntDoubleConsumer action) {
+        long start = this.offsets[index];
+        long end = this.offsets[index + 1];
+        if (start == end) {
+            return;
+        }
+        int chunk = (int) (start >>> CHUNK_SHIFT);
+        long base = (long) chunk << CHUNK_SHIFT;
+        byte[] in = this.data[chunk];
+        int pos = (int) (start & CHUNK_MASK);
+        int adjacent = index;
+        boolean first = true;
+        while (base + pos < end) {
+            if (pos > CHUNK_SIZE - MAX_RECORD) { // the rest of the chunk was skipped by the encoder
+                in = this.data[++chunk];
+                base += CHUNK_SIZE;
+                pos = 0;
+            }
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (first) {
+                adjacent += (value >>> 1) ^ -(value & 1);
+                first = false;
+            }
+            else {
+                adjacent += value + 1;
+            }
+            double w;
+            switch (this.weights) {
+                case EXACT:
+                    w = Double.longBitsToDouble(fixed(in, pos, Long.BYTES));
+                    pos += Long.BYTES;
+                    break;
+                case FLOAT:
+                    w = Float.intBitsToFloat((int) fixed(in, pos, Integer.BYTES));
+                    pos += Integer.BYTES;
+                    break;
+                default:
+                    w = this.minWeight + fixed(in, pos, 2) * this.weightScale;
+                    pos += 2;
+            }
+            action.accept(adjacent, w);
+        }
+    }
+
+    /** Read a little endian number of the given number of bytes. */
+    private static long fixed(byte[] in, int pos, int bytes) {
+        long value = 0;
+        for (int i = bytes - 1; i >= 0; i--) {
+            value = (value << 8) | (in[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Return the dense index of a key, -1 if there is no such node.
+     * The keys are sorted, so dense keys (like the keys relabel() gives) are found directly and others
+     * by a binary search.
+     * @param key
+     * @return int
+     */
+    private int indexOf(int key) {
+        if (this.denseKeys) {
+            long index = (long) key - (this.keys.length == 0 ? 0 : this.keys[0]);
+            return index >= 0 && index < this.keys.length ? (int) index : -1;
+        }
+        int index = Arrays.binarySearch(this.keys, key);
+        return index < 0 ? -1 : index;
+    }
+
+    private int existingIndexOf(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("Node %d does not exist", key));
+        }
+        return index;
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * How the weights of the edges are stored.
+     */
+    public enum Weights {
+        /** The exact double (8 bytes). */
+        EXACT(Long.BYTES),
+        /** Rounded to a float (4 bytes). */
+        FLOAT(Integer.BYTES),
+        /** 65536 levels between the smallest and the biggest weight of the graph (2 bytes). */
+        QUANTIZED(2);
+
+        private final int bytes;
+
+        Weights(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * The growing chunks that the lists are encoded into - the last chunk grows by doubling up to CHUNK_SIZE,
+     * afterward a new chunk is started (nothing is copied but the last chunk).
+     */
+    private static class Encoder {
+        private byte[][] chunks = new byte[1][];
+        private int count = 1;
+        private byte[] bytes;
+        private int size;
+        // the expected bytes of all the lists, to size the chunks
+        private final long expected;
+
+        Encoder(long expected) {
+            this.expected = expected;
+            this.bytes = new byte[chunkCapacity(expected)];
+        }
+
+        /** Return the offset of the next byte. */
+        long size() {
+            return ((long) (this.count - 1) << CHUNK_SHIFT) + this.size;
+        }
+
+        /** Start a record - in the next chunk if the rest of this one may be too short for it. */
+        void record() {
+            if (this.size > CHUNK_SIZE - MAX_RECORD) {
+                this.chunks[this.count - 1] = this.bytes;
+                if (this.count == this.chunks.length) {
+                    this.chunks = Arrays.copyOf(this.chunks, 2 * this.count);
+                }
+                this.count++;
+                this.bytes = new byte[chunkCapacity(this.expected - size())];
+                this.size = 0;
+            }
+        }
+
+        void varint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.bytes[this.size++] = (byte) value;
+        }
+
+        void fixed(long value, int count) {
+            ensure(count);
+            for (int i = 0; i < count; i++) {
+                this.bytes[this.size++] = (byte) value;
+                value >>>= 8;
+            }
+        }
+
+        /** Return the chunks, the last one trimmed to its bytes. */
+        byte[][] chunks() {
+            this.chunks[this.count - 1] = Arrays.copyOf(this.bytes, this.size);
+            return Arrays.copyOf(this.chunks, this.count);
+        }
+
+        private void ensure(int more) {
+            if (this.size + more > this.bytes.length) { // a record fits in a chunk, so this never passes CHUNK_SIZE
+                this.bytes = Arrays.copyOf(this.bytes, (int) Math.min(CHUNK_SIZE, Math.max(this.size + more, 2L * this.bytes.length)));
+            }
+        }
+
+        private static int chunkCapacity(long bytes) {
+            return (int) Math.min(CHUNK_SIZE, Math.max(16, bytes));
+        }
+    }
+
+    /** A node of the compressed graph - a light view (flyweight) of an index. */
+    class Node implements node_info {
+        private final int index;
+
+        Node(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getKey() {
+            return keys[this.index];
+        }
+
+        @Override
+        public String getInfo() {
+            return infos.getOrDefault(getKey(), "");
+        }
+
+        @Override
+        public void setInfo(String s) {
+            infos.put(getKey(), s);
+        }
+
+        @Override
+        public double getTag() {
+            return tags[this.index];
+        }
+
+        @Override
+        public void setTag(double t) {
+            tags[this.index] = t;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d", this.getKey());
+        }
+
+        /**
+         * Two views are equal iff they are views of the same index in the same graph.
+         * @param o
+         * @return boolean
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (!(o instanceof Node))
+                return false;
+            Node other = (Node) o;
+            return this.index == other.index && this.owner() == other.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.index;
+        }
+
+        private WGraph_Compressed owner() {
+            return WGraph_Compressed.this;
+        }
+    }
+}
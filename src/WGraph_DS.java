@@ -3,29 +3,50 @@ package ex1.src;
 import java.io.Serializable;
 import java.util.*;
 /**
- * A weighted graph data structure based on weighted_graph interface and contains two inner classes
- * vertex and edge.
+ * A weighted graph data structure based on weighted_graph interface and contains an inner class vertex.
  * Contains 3 Maps, each represents another piece of data:
  * vertices - A map that stores all the vertices (key and node_info object) based on the node_info interface
  * that was implemented in the vertex inner class.
- * adjacent - A map that save a key and a set of node_info which represents its connections to other vertices.
- * edges - A map that contains an edge with its weight.
+ * adjacent - A map that save a key and the set of the node_info it's connected to which represents
+ * its connections to other vertices (the weights are kept only in edges).
+ * edges - A primitive map (LongDoubleHashMap) from an edge to its weight. Every undirected edge is stored once,
+ * under the key edgeKey(node1, node2) which packs the smaller key and the bigger key into a single long.
+ * The attributes are stored apart from the vertices, column-wise: the tags and the (dictionary encoded) infos of
+ * the nodes in NodeColumns and every numeric edge attribute in a column of its own (edgeColumns).
+ * fingerprint - a hash of the structure (the nodes, the edges and their weights) that doesn't depend on the order
+ * it was built in - the sum of a hash of every node and every edge, so every mutation updates it in O(1) by adding
+ * or subtracting the hash of what changed. equals and hashCode compare the fingerprints instead of the maps.
+ * events - the stream of the mutations for the listeners (see WGraph_Events), null while there are none.
+ * memoryBudget - an optional limit of the bytes of the graph (see setMemoryBudget and WGraph_Memory).
  *
  * Hashmaps, Hashmaps and Hashmaps why? -
  * Many of its methods runs in O(1) (get,put,remove,containsKey) which perfectly
  * fits the interface's methods requirements.
  */
 public class WGraph_DS implements weighted_graph, Serializable {
+    private static final long NODE_SALT = 0x9E3779B97F4A7C15L;
+    private static final long NODE_SALT2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long EDGE_SALT = 0x165667B19E3779F9L;
+    private static final long EDGE_SALT2 = 0x27D4EB2F165667C5L;
+
     private Map<Integer, node_info> vertices;
     private Map<Integer, Set<node_info>> adjacent;
-    private Map<Edge, Double> edges;
+    private LongDoubleHashMap edges;
+    private NodeColumns columns;
+    private Map<String, LongDoubleHashMap> edgeColumns;
+    private long fingerprint;
+    private long fingerprint2; // a second, independent sum - 128 bits together
+    private transient WGraph_Events events;
+    private long memoryBudget = Long.MAX_VALUE;
     private int MC;
 
     //Default constructor
     public WGraph_DS() {
         this.adjacent = new HashMap<>();
         this.vertices = new HashMap<>();
-        this.edges = new HashMap<>();
+        this.edges = new LongDoubleHashMap();
+        this.columns = new NodeColumns(16);
+        this.edgeColumns = new HashMap<>();
         this.MC = 0;
     }
 
@@ -46,11 +67,11 @@ public class WGraph_DS implements weighted_graph, Serializable {
      * @param node2
      * @return boolean
      * Explanation:
-     * Check in edges map if there is an edge between the two nodes from both sides
+     * An edge is stored once under its canonical key, so it's a single lookup in the edges map
      */
     @Override
     public boolean hasEdge(int node1, int node2) {
-        return this.edges.containsKey(new Edge(node1, node2)) && this.edges.containsKey(new Edge(node2, node1));
+        return this.edges.containsKey(edgeKey(node1, node2));
     }
 
     /**
@@ -61,16 +82,12 @@ public class WGraph_DS implements weighted_graph, Serializable {
      * @param node2
      * @return double
      * Explanation:
-     * Firstly we want to see if one of the nodes are null or both don't have
-     * an edge between them if one of the conditions above are true then it will
-     * return -1, otherwise return the weight of the edge.
+     * A single lookup of the canonical key in the edges map - an edge can only exist between two nodes
+     * of the graph, so if there is no such key (or no such nodes) it returns -1.
      */
     @Override
     public double getEdge(int node1, int node2) {
-        if (getNode(node1) == null || getNode(node2) == null || !hasEdge(node1, node2))
-            return -1;
-
-        return this.edges.get(new Edge(node1, node2));
+        return this.edges.get(edgeKey(node1, node2), -1);
     }
 
     /**
@@ -87,10 +104,16 @@ public class WGraph_DS implements weighted_graph, Serializable {
     public void addNode(int key) {
         if (getNode(key) != null)
             return;
-        Vertex v = new Vertex(key);
+        checkBudget(nodeSize() + 1, edgeSize());
+        Vertex v = new Vertex(key, this.columns, this.columns.allocate(key));
         this.vertices.put(key, v);
         this.adjacent.put(v.getKey(), new LinkedHashSet<>());
+        this.fingerprint += hash(key, NODE_SALT);
+        this.fingerprint2 += hash(key, NODE_SALT2);
         this.MC++;
+        if (this.events != null) {
+            this.events.publish(WGraph_Events.Type.NODE_ADDED, key, key, Double.NaN, Double.NaN);
+        }
     }
 
     /**
@@ -99,21 +122,35 @@ public class WGraph_DS implements weighted_graph, Serializable {
      * Note2: if the edge node1-node2 already exists - the method simply updates the weight of the edge.
      * Explanation:
      * First of all we check whether w is a negative number. If it does - throw an Exception.
-     * Then we add both nodes to each other's collection afterward we put it in the
-     * edges map and increase the modification.
+     * Then we add both nodes (with the weight) to each other's map afterward we put it in the
+     * edges map, replace the hash of the old edge (if there was) in the fingerprint by the hash of the new one
+     * and increase the modification.
      */
     @Override
     public void connect(int node1, int node2, double w) {
         if (node1 == node2) {
             return;
         }
+        long edgeKey = edgeKey(node1, node2);
+        if (this.memoryBudget != Long.MAX_VALUE && !this.edges.containsKey(edgeKey)) {
+            checkBudget(nodeSize(), edgeSize() + 1);
+        }
 
-        getV(node1).add(getNode(node2));
-        getV(node2).add(getNode(node1));
+        neighbors(node1).add(getNode(node2));
+        neighbors(node2).add(getNode(node1));
 
-        this.edges.put(new Edge(node1, node2), w);
-        this.edges.put(new Edge(node2, node1), w);
+        double old = this.edges.get(edgeKey, -1);
+        if (old != -1) {
+            unprint(edgeKey, old);
+        }
+        this.edges.put(edgeKey, w);
+        this.fingerprint += edgeHash(edgeKey, w, EDGE_SALT);
+        this.fingerprint2 += edgeHash(edgeKey, w, EDGE_SALT2);
         this.MC++;
+        if (this.events != null) {
+            this.events.publish(old == -1 ? WGraph_Events.Type.EDGE_ADDED : WGraph_Events.Type.EDGE_REWEIGHTED,
+                    node1, node2, w, old == -1 ? Double.NaN : old);
+        }
     }
 
     /**
@@ -137,11 +174,37 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public Collection<node_info> getV(int node_id) {
-        node_info node = getNode(node_id);
-        if (node == null) {
+        return neighbors(node_id);
+    }
+
+    /**
+     * Performs the given action on every neighbor of node_id with the key of the neighbor
+     * and the weight of the edge to it.
+     * Explanation:
+     * We walk on the adjacent set and read every weight from the primitive edges map,
+     * without boxing it or creating any Edge.
+     * @param node_id
+     * @param action
+     */
+    @Override
+    public void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+        for (node_info adjacent : neighbors(node_id)) {
+            int key = adjacent.getKey();
+            action.accept(key, this.edges.get(edgeKey(node_id, key), -1));
+        }
+    }
+
+    /**
+     * Return the set of the neighbors of node_id.
+     * @param node_id
+     * @return Set<node_info>
+     */
+    private Set<node_info> neighbors(int node_id) {
+        Set<node_info> neighbors = this.adjacent.get(node_id);
+        if (neighbors == null) {
             throw new IllegalArgumentException(String.format("Node %d does not exist", node_id));
         }
-        return this.adjacent.get(node_id);
+        return neighbors;
     }
 
     /**
@@ -170,7 +233,13 @@ public class WGraph_DS implements weighted_graph, Serializable {
             }
             this.adjacent.remove(key);
             this.vertices.remove(key);
+            ((Vertex) node).detach();
+            this.fingerprint -= hash(key, NODE_SALT);
+            this.fingerprint2 -= hash(key, NODE_SALT2);
             MC++;
+            if (this.events != null) {
+                this.events.publish(WGraph_Events.Type.NODE_REMOVED, key, key, Double.NaN, Double.NaN);
+            }
         }
         return node;
     }
@@ -178,30 +247,28 @@ public class WGraph_DS implements weighted_graph, Serializable {
     /**
      * Removes an Edge from the edge map and from each node's list.
      * Explanation:
-     * Firstly it checks whether the nodes exist or both nodes are connected. If both true, it returns nothing.
-     * Then it removes from each nodes list the other node and as well from the edges map and increase the modification
-     * on the graph.
+     * Firstly it removes the edge from the edges map, if there was no such edge it returns nothing.
+     * Then it removes from each nodes list the other node and increase the modification on the graph.
      * @param node1
      * @param node2
      */
     @Override
     public void removeEdge(int node1, int node2) {
-        if (!hasEdge(node1, node2))
-            MC++;
-        if ((getNode(node1) == null || getNode(node2) == null)) {
+        long edgeKey = edgeKey(node1, node2);
+        double w = this.edges.get(edgeKey, -1);
+        if (!this.edges.remove(edgeKey)) {
             return;
         }
-        if (!this.getV(node1).contains(getNode(node2)) || !this.getV(node2).contains(getNode(node1))) {
-            return;
+        unprint(edgeKey, w);
+        for (LongDoubleHashMap column : this.edgeColumns.values()) {
+            column.remove(edgeKey);
+        }
+        neighbors(node1).remove(getNode(node2));
+        neighbors(node2).remove(getNode(node1));
+        MC++;
+        if (this.events != null) {
+            this.events.publish(WGraph_Events.Type.EDGE_REMOVED, node1, node2, w, Double.NaN);
         }
-        this.edges.get(new Edge(node1, node2));
-        this.edges.get(new Edge(node2, node1));
-
-        this.getV(node1).remove(getNode(node2));
-        this.getV(node2).remove(getNode(node1));
-
-        this.edges.remove(new Edge(node1, node2));
-        this.edges.remove(new Edge(node2, node1));
     }
 
     /** return the number of vertices (nodes) in the graph.
@@ -220,8 +287,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public int edgeSize() {
-        // Assuming the number of edges
-        return this.edges.size() / 2;
+        return this.edges.size();
     }
 
     /**
@@ -235,9 +301,180 @@ public class WGraph_DS implements weighted_graph, Serializable {
     }
 
     /**
-     * Check whether the addresses of the pointers this & o1 are equal
+     * Subscribe a listener to the mutations of the graph (see WGraph_Events), the first listener starts
+     * the delivery thread.
+     * @param listener
+     */
+    public void addListener(WGraph_Events.Listener listener) {
+        if (this.events == null) {
+            this.events = new WGraph_Events();
+        }
+        this.events.add(listener);
+    }
+
+    /**
+     * Unsubscribe a listener, the events that were already published are still delivered to it.
+     * When the last listener is removed the delivery thread stops and the mutations stop publishing events.
+     * @param listener
+     */
+    public void removeListener(WGraph_Events.Listener listener) {
+        if (this.events != null && this.events.remove(listener)) {
+            this.events.close();
+            this.events = null;
+        }
+    }
+
+    /**
+     * Wait until the listeners got all the mutations so far (no action if there are no listeners).
+     */
+    public void flushEvents() {
+        if (this.events != null) {
+            this.events.flush();
+        }
+    }
+
+    /**
+     * Return the bytes the graph takes on the heap, by the structures it's made of (see WGraph_Memory):
+     * vertices - the map from a key to its Vertex, vertex objects - the Vertex flyweights,
+     * adjacent - the map from a key to its adjacency set, adjacency maps - the sets and the entries of their
+     * backing maps, edges - the primitive map of the weights, node columns - the tags and the infos,
+     * edge columns - the edge attributes.
+     * Note: this method runs in O(|V| + |attributes|) time (the adjacency maps are counted by their degrees).
+     * @return WGraph_Memory
+     */
+    public WGraph_Memory memoryFootprint() {
+        long nodes = nodeSize();
+        long adjacencyMaps = 0;
+        for (Set<node_info> neighbors : this.adjacent.values()) {
+            adjacencyMaps += WGraph_Memory.LINKED_HASH_SET + WGraph_Memory.LINKED_HASH_MAP
+                    + neighbors.size() * WGraph_Memory.LINKED_HASH_MAP_ENTRY;
+            if (!neighbors.isEmpty()) {
+                adjacencyMaps += WGraph_Memory.array(WGraph_Memory.tableSlots(neighbors.size(), 16) * WGraph_Memory.REFERENCE);
+            }
+        }
+        long edgeColumns = WGraph_Memory.HASH_MAP;
+        for (Map.Entry<String, LongDoubleHashMap> column : this.edgeColumns.entrySet()) {
+            edgeColumns += WGraph_Memory.HASH_MAP_NODE + column.getValue().bytes()
+                    + WGraph_Memory.array(column.getKey().length()) + WGraph_Memory.align(WGraph_Memory.HEADER + 12);
+        }
+        if (!this.edgeColumns.isEmpty()) {
+            edgeColumns += WGraph_Memory.array(WGraph_Memory.tableSlots(this.edgeColumns.size(), 16) * WGraph_Memory.REFERENCE);
+        }
+        Map<String, Long> parts = new LinkedHashMap<>();
+        parts.put("vertices", hashMapBytes(nodes));
+        parts.put("vertex objects", nodes * WGraph_Memory.VERTEX);
+        parts.put("adjacent", hashMapBytes(nodes));
+        parts.put("adjacency maps", adjacencyMaps);
+        parts.put("edges", this.edges.bytes());
+        parts.put("node columns", this.columns.bytes());
+        parts.put("edge columns", edgeColumns);
+        return new WGraph_Memory(parts);
+    }
+
+    /**
+     * Limit the bytes of the graph - a mutation that would grow the graph (a new node or a new edge) beyond the
+     * budget throws an IllegalStateException before it changes anything, so a bulk load fails fast instead of
+     * running the JVM out of memory (and the loader can move to a compact backend - see WGraph_Memory.fit).
+     * Explanation:
+     * The check is O(1) - it compares the budget with WGraph_Memory.estimate of a WGraph_DS of the new size
+     * (not with memoryFootprint, which is O(|V|)). Reweighting an edge or removing doesn't check the budget.
+     * @param bytes - the budget, Long.MAX_VALUE - no budget
+     */
+    public void setMemoryBudget(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException(String.format("A memory budget of %d bytes", bytes));
+        }
+        this.memoryBudget = bytes;
+    }
+
+    /**
+     * Return the memory budget of the graph (Long.MAX_VALUE - no budget).
+     * @return long
+     */
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Set the tag of every node in the graph at once (a single scan of the tags column).
+     * @param t - the new value of the tags
+     */
+    public void setAllTags(double t) {
+        this.columns.fillTags(t);
+    }
+
+    /**
+     * Returns all the nodes whose info (as it was set with setInfo) equals the given info.
+     * Explanation:
+     * The infos are dictionary encoded, so the info is translated to its code once and the infos
+     * column is scanned comparing ints instead of Strings.
+     * @param info
+     * @return Collection<node_info>
+     */
+    public Collection<node_info> nodesWithInfo(String info) {
+        List<node_info> nodes = new ArrayList<>();
+        for (int key : this.columns.keysWithInfo(info)) {
+            nodes.add(getNode(key));
+        }
+        return nodes;
+    }
+
+    /**
+     * Return the number of distinct infos the nodes hold (the empty info included) - the size of the
+     * dictionary of the infos, an info that no node holds anymore is dropped from it.
+     * @return int
+     */
+    public int infoDictionarySize() {
+        return this.columns.dictionarySize();
+    }
+
+    /**
+     * Set a numeric attribute (the column name) of the edge (node1, node2).
+     * The column is created on its first use and an attribute is removed together with its edge.
+     * @param name - the name of the column
+     * @param node1
+     * @param node2
+     * @param value
+     */
+    public void setEdgeAttribute(String name, int node1, int node2, double value) {
+        long edgeKey = edgeKey(node1, node2);
+        if (!this.edges.containsKey(edgeKey)) {
+            throw new IllegalArgumentException(String.format("Edge %d-%d does not exist", node1, node2));
+        }
+        this.edgeColumns.computeIfAbsent(name, k -> new LongDoubleHashMap()).put(edgeKey, value);
+    }
+
+    /**
+     * Return a numeric attribute (the column name) of the edge (node1, node2).
+     * @param name - the name of the column
+     * @param node1
+     * @param node2
+     * @param missing - the value to return if the edge has no such attribute
+     * @return double
+     */
+    public double getEdgeAttribute(String name, int node1, int node2, double missing) {
+        LongDoubleHashMap column = this.edgeColumns.get(name);
+        return column == null ? missing : column.get(edgeKey(node1, node2), missing);
+    }
+
+    /**
+     * Return the fingerprint of the structure of the graph - graphs with the same nodes and the same edges
+     * (with the same weights) have the same fingerprint, no matter the order they were built in, so it can tell
+     * whether a snapshot of the graph was already taken. Runs in O(1), it's updated by every mutation.
+     * @return long
+     */
+    public long fingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Check whether the two graphs have the same structure (nodes, edges and weights) and mode count.
+     * Note: this method runs in O(1) time.
      * @param o1
      * @return boolean
+     * Explanation:
+     * The structures are compared by their 128 bit fingerprints (two independent sums) instead of the maps,
+     * the chance that two different structures share them is negligible.
      */
     @Override
     public boolean equals(Object o1) {
@@ -251,47 +488,122 @@ public class WGraph_DS implements weighted_graph, Serializable {
             return false;
         }
         WGraph_DS other = (WGraph_DS) o1;
-        return vertices.equals(other.vertices) && 
-               adjacent.equals(other.adjacent) && 
-                edges.equals(other.edges) && 
+        return nodeSize() == other.nodeSize() &&
+                edgeSize() == other.edgeSize() &&
+                this.fingerprint == other.fingerprint &&
+                this.fingerprint2 == other.fingerprint2 &&
                 this.MC == other.MC;
-
     }
 
     /**
      * Prevent collision within the hashmap
+     * Note: this method runs in O(1) time (see fingerprint).
      * @return int
      */
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 31 * hash + this.vertices.hashCode();
-        hash = 31 * hash + this.adjacent.hashCode();
-        hash = 31 * hash + this.edges.hashCode();
+        hash = 31 * hash + Long.hashCode(this.fingerprint);
         hash = 31 * hash + MC;
         return hash;
     }
 
+    /** Throw an IllegalStateException if a graph of the given size doesn't fit the memory budget. */
+    private void checkBudget(int nodes, int edges) {
+        if (this.memoryBudget == Long.MAX_VALUE) {
+            return;
+        }
+        long bytes = WGraph_Memory.estimate(WGraph_Memory.Backend.DS, nodes, edges);
+        if (bytes > this.memoryBudget) {
+            throw new IllegalStateException(String.format(
+                    "A graph of %d nodes and %d edges takes about %d bytes, over the budget of %d bytes",
+                    nodes, edges, bytes, this.memoryBudget));
+        }
+    }
+
+    /** The bytes of a HashMap from a boxed key to an object that isn't counted. */
+    private static long hashMapBytes(long entries) {
+        long bytes = WGraph_Memory.HASH_MAP + entries * (WGraph_Memory.HASH_MAP_NODE + WGraph_Memory.INTEGER);
+        return entries == 0 ? bytes : bytes + WGraph_Memory.array(WGraph_Memory.tableSlots(entries, 16) * WGraph_Memory.REFERENCE);
+    }
+
+    /** Subtract the hash of an edge from the fingerprint. */
+    private void unprint(long edgeKey, double w) {
+        this.fingerprint -= edgeHash(edgeKey, w, EDGE_SALT);
+        this.fingerprint2 -= edgeHash(edgeKey, w, EDGE_SALT2);
+    }
+
+    private static long edgeHash(long edgeKey, double w, long salt) {
+        return hash(edgeKey ^ hash(Double.doubleToLongBits(w), salt), salt);
+    }
+
+    /** A salted SplitMix64 finalizer. */
+    private static long hash(long value, long salt) {
+        long z = value ^ salt;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Return the canonical key of the undirected edge (node1, node2) - the smaller key in the high
+     * 32 bits and the bigger key in the low 32 bits, so (node1, node2) and (node2, node1) share a key.
+     * @param node1
+     * @param node2
+     * @return long
+     */
+    static long edgeKey(int node1, int node2) {
+        int low = Math.min(node1, node2);
+        int high = Math.max(node1, node2);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
     // -----------------------------------INNER CLASSES--------------------------------
-    /** A Vertex inner class on a graph that implements the given interface node_info  */
+    /**
+     * A Vertex inner class on a graph that implements the given interface node_info.
+     * A Vertex is a light view (flyweight) - it only knows its key and its slot in the NodeColumns
+     * where its tag and info are actually stored.
+     */
     public static class Vertex implements node_info, Serializable {
 
-        private double tag;
-        private String info;
+        private NodeColumns columns;
+        private int slot;
         private int key;
 
-        //A Default constructor
+        //A Default constructor - a vertex that doesn't belong to any graph gets columns of its own
         public Vertex() {
-            this.tag = 0;
-            this.setInfo("");
+            this.columns = new NodeColumns(1);
+            this.slot = this.columns.allocate(0);
         }
 
         //A copy constructor
         public Vertex(int key) {
-            this();
+            this.columns = new NodeColumns(1);
+            this.slot = this.columns.allocate(key);
             this.key = key;
         }
 
+        //A constructor of a vertex whose attributes are stored in the given slot of the graph's columns
+        Vertex(int key, NodeColumns columns, int slot) {
+            this.key = key;
+            this.columns = columns;
+            this.slot = slot;
+        }
+
+        /**
+         * Move the attributes of this vertex to columns of its own (when it's removed from the graph,
+         * so its slot can be reused while whoever holds the vertex still sees its tag and info).
+         */
+        void detach() {
+            NodeColumns own = new NodeColumns(1);
+            int ownSlot = own.allocate(this.key);
+            own.setTag(ownSlot, this.columns.tag(this.slot));
+            own.setInfo(ownSlot, this.columns.info(this.slot));
+            this.columns.release(this.slot);
+            this.columns = own;
+            this.slot = ownSlot;
+        }
+
         /**
          * Return the key (id) associated with this node.
          * Note: each node_data should have a unique key.
@@ -308,7 +620,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
          */
         @Override
         public String getInfo() {
-            return "info: " + this.info;
+            return this.columns.displayInfo(this.slot);
         }
 
         /**
@@ -317,7 +629,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
          */
         @Override
         public void setInfo(String s) {
-            this.info = s;
+            this.columns.setInfo(this.slot, s);
         }
 
         /**
@@ -327,7 +639,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
          */
         @Override
         public double getTag() {
-            return this.tag;
+            return this.columns.tag(this.slot);
         }
 
         /**
@@ -337,7 +649,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
          */
         @Override
         public void setTag(double t) {
-            this.tag = t;
+            this.columns.setTag(this.slot, t);
         }
 
         @Override
@@ -346,7 +658,8 @@ public class WGraph_DS implements weighted_graph, Serializable {
         }
 
         /**
-         * Check whether the addresses of the pointers this & o1 are equal
+         * Two vertices are equal iff they have the same key - the identity of a node doesn't depend on its
+         * tag or info, which change while it sits in the adjacency maps.
          * @param o
          * @return boolean
          */
@@ -358,80 +671,16 @@ public class WGraph_DS implements weighted_graph, Serializable {
             if (!(o instanceof Vertex))
                 return false;
             Vertex other = (Vertex) o;
-            return this.key == other.key && this.info.equals(other.info) && this.tag == other.tag;
-        }
-
-        /**
-         * Prevents a collision on the hashmap
-         * @return int
-         */
-        @Override
-        public int hashCode() {
-            int hash = 7;
-            hash = 31 * hash + this.key;
-            hash = 31 * hash + this.info.hashCode();
-            hash = 31 * hash + Double.hashCode(this.tag);
-            return hash;
-        }
-    }
-
-    /** an edge on a graph between two vertices. */
-    public class Edge implements Serializable {
-        private int src;
-        private int dest;
-
-        //Copy constructor
-        public Edge(int source, int destination) {
-            this.src = source;
-            this.dest = destination;
-        }
-
-        /**
-         * Get the source node of the edge
-         * @return int
-         */
-        public int getSrc() {
-            return this.src;
-        }
-
-        /**
-         * Get the destination node of the edge
-         * @return int
-         */
-        public int getDest() {
-            return this.dest;
-        }
-
-        @Override
-        public String toString() {
-            return String.format("%d  -> %d", getSrc(), getDest());
-        }
-
-        /**
-         * Check whether a address of an edge and an object is equal
-         * @param o
-         * @return boolean
-         */
-        @Override
-        public boolean equals(Object o) {
-            if (o == this)
-                return true;
-            if (!(o instanceof Edge))
-                return false;
-            Edge other = (Edge) o;
-            return this.src == other.src && this.dest == other.dest;
+            return this.key == other.key;
         }
 
         /**
-         * Prevents a collision in the hashmap
+         * Prevents a collision on the hashmap (by the key only, see equals)
          * @return int
          */
         @Override
         public int hashCode() {
-            int hash = 7;
-            hash = 31 * hash + this.src;
-            hash = 31 * hash + this.dest;
-            return hash;
+            return Integer.hashCode(this.key);
         }
     }
 }
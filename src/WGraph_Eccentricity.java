@@ -0,0 +1,333 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The eccentricity of the nodes of a weighted (undirected) graph - the distance from a node to the farthest
+ * node it reaches - and its extremes: the diameter (the biggest eccentricity) and the radius (the smallest one).
+ * Note: the eccentricity of a node is taken inside its connected component (an isolated node has 0).
+ *
+ * Explanation:
+ * Instead of a search from every node the bounds of the eccentricities are narrowed by a few searches
+ * (Takes and Kosters, "Determining the diameter of small world networks" - the weighted relative of iFUB).
+ * A search from v gives its exact eccentricity e(v) and, by the triangle inequality, bounds every node w it reaches:
+ *      max(e(v) - d(v,w), d(v,w)) <= e(w) <= e(v) + d(v,w)
+ * A node whose bounds can't change the answer anymore is dropped from the candidates (for the diameter - its upper
+ * bound isn't bigger than the best lower bound, for the radius - its lower bound isn't smaller than the best upper
+ * bound) and the answer is exact once the lower and the upper bounds of the answer meet.
+ * For the diameter the first searched node is also a center (iFUB) - two nodes that are both within half
+ * of the best lower bound from it are at most that bound apart, so such nodes are dropped as well.
+ * The searches start with a double sweep (the node with the highest degree and then the farthest node from it)
+ * and then alternate between the candidate with the biggest upper bound and the one with the smallest lower bound.
+ * With a time budget the search stops when the budget runs out and the bounds found so far are returned.
+ */
+public class WGraph_Eccentricity {
+    private static final int DIAMETER = 0;
+    private static final int RADIUS = 1;
+    private static final int ALL = 2;
+
+    private WGraph_Eccentricity() {
+    }
+
+    /**
+     * Returns the exact diameter of the graph.
+     * @param g
+     * @return Bounds - lower == upper == the diameter
+     */
+    public static Bounds diameter(weighted_graph g) {
+        return diameter(g, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns bounds of the diameter of the graph that were found within the time budget (exact if there was
+     * enough time).
+     * @param g
+     * @param budgetMillis - the time budget
+     * @return Bounds
+     */
+    public static Bounds diameter(weighted_graph g, long budgetMillis) {
+        return new Solver(g).solve(DIAMETER, budgetMillis);
+    }
+
+    /**
+     * Returns the exact radius of the graph.
+     * @param g
+     * @return Bounds - lower == upper == the radius
+     */
+    public static Bounds radius(weighted_graph g) {
+        return radius(g, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns bounds of the radius of the graph that were found within the time budget (exact if there was
+     * enough time).
+     * @param g
+     * @param budgetMillis - the time budget
+     * @return Bounds
+     */
+    public static Bounds radius(weighted_graph g, long budgetMillis) {
+        return new Solver(g).solve(RADIUS, budgetMillis);
+    }
+
+    /**
+     * Returns the exact eccentricity of every node (usually with far fewer searches than nodes).
+     * @param g
+     * @return Map<Integer, Double> - key -> eccentricity
+     */
+    public static Map<Integer, Double> eccentricities(weighted_graph g) {
+        Solver solver = new Solver(g);
+        solver.solve(ALL, Long.MAX_VALUE);
+        Map<Integer, Double> eccentricities = new HashMap<>();
+        for (int i = 0; i < solver.keys.length; i++) {
+            eccentricities.put(solver.keys[i], solver.lower[i]);
+        }
+        return eccentricities;
+    }
+
+    /**
+     * Returns the eccentricity of a single node (a single search).
+     * @param g
+     * @param key
+     * @return double - -1 if there is no such node
+     */
+    public static double eccentricity(weighted_graph g, int key) {
+        if (g.getNode(key) == null) {
+            return -1;
+        }
+        SearchState state = new SearchState();
+        return search(g, state, key);
+    }
+
+    /**
+     * A full dijkstra from src (the state is left with all the reached nodes).
+     * @return double - the eccentricity of src
+     */
+    private static double search(weighted_graph g, SearchState state, int src) {
+        state.clear();
+        state.seed(src);
+        double farthest = 0;
+        while (state.settleNext()) {
+            int current = state.current();
+            double pathDistance = state.distance(current);
+            farthest = pathDistance;
+            g.forEachNeighbor(state.key(current), (adjacentKey, weight) ->
+                    state.relax(adjacentKey, pathDistance + weight, current));
+        }
+        return farthest;
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * Bounds of a diameter or a radius: lower <= the real value <= upper.
+     */
+    public static class Bounds {
+        private final double lower;
+        private final double upper;
+        private final int searches;
+
+        Bounds(double lower, double upper, int searches) {
+            this.lower = lower;
+            this.upper = upper;
+            this.searches = searches;
+        }
+
+        public double lower() {
+            return this.lower;
+        }
+
+        public double upper() {
+            return this.upper;
+        }
+
+        /**
+         * Return true iff the bounds met (the value is exact).
+         * @return boolean
+         */
+        public boolean isExact() {
+            return this.lower == this.upper;
+        }
+
+        /**
+         * Return the number of searches that were needed.
+         * @return int
+         */
+        public int searches() {
+            return this.searches;
+        }
+
+        @Override
+        public String toString() {
+            return isExact() ? String.format("%s (%d searches)", this.lower, this.searches)
+                    : String.format("[%s, %s] (%d searches)", this.lower, this.upper, this.searches);
+        }
+    }
+
+    /** The bounds of all the nodes, by their dense index (the order of the sorted keys). */
+    private static class Solver {
+        private final weighted_graph graph;
+        private final int[] keys;
+        private final double[] lower;
+        private final double[] upper;
+        private final boolean[] candidate;
+        private final int[] degrees;
+        // the distance of every node from the first searched node (the center of the iFUB pruning)
+        private final double[] centerDistance;
+        private final SearchState state = new SearchState();
+        private int candidates;
+        private int searches;
+
+        Solver(weighted_graph graph) {
+            this.graph = graph;
+            Collection<node_info> nodes = graph.getV();
+            this.keys = new int[nodes.size()];
+            int i = 0;
+            for (node_info node : nodes) {
+                this.keys[i++] = node.getKey();
+            }
+            Arrays.sort(this.keys);
+            int n = this.keys.length;
+            this.lower = new double[n];
+            this.upper = new double[n];
+            Arrays.fill(this.upper, Double.MAX_VALUE);
+            this.candidate = new boolean[n];
+            Arrays.fill(this.candidate, true);
+            this.candidates = n;
+            this.centerDistance = new double[n];
+            Arrays.fill(this.centerDistance, Double.MAX_VALUE);
+            this.degrees = new int[n];
+            for (i = 0; i < n; i++) {
+                this.degrees[i] = graph.getV(this.keys[i]).size();
+            }
+        }
+
+        Bounds solve(int goal, long budgetMillis) {
+            long deadline = budgetMillis == Long.MAX_VALUE ? Long.MAX_VALUE
+                    : System.nanoTime() + budgetMillis * 1_000_000;
+            if (this.keys.length == 0) {
+                return new Bounds(0, 0, 0);
+            }
+            int next = highestDegree();
+            while (this.candidates > 0) {
+                if (this.searches > 0 && deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+                    break; // out of time, the bounds so far (at least one search) are the answer
+                }
+                int farthest = bound(next);
+                prune(goal);
+                if (this.candidates == 0) {
+                    break;
+                }
+                if (this.searches == 1 && this.candidate[farthest]) {
+                    next = farthest; // the second sweep
+                }
+                else {
+                    next = this.searches % 2 == 0 ? largestUpper() : smallestLower();
+                }
+            }
+            return goal == RADIUS ? radiusBounds() : diameterBounds();
+        }
+
+        /**
+         * Search from a node and narrow the bounds of every node it reaches.
+         * @return int - the index of the farthest node
+         */
+        private int bound(int index) {
+            double eccentricity = search(this.graph, this.state, this.keys[index]);
+            this.searches++;
+            int farthest = index;
+            for (int e = 0; e < this.state.size(); e++) {
+                int w = Arrays.binarySearch(this.keys, this.state.key(e));
+                double d = this.state.distance(e);
+                this.lower[w] = Math.max(this.lower[w], Math.max(eccentricity - d, d));
+                this.upper[w] = Math.min(this.upper[w], eccentricity + d);
+                if (d == eccentricity) {
+                    farthest = w;
+                }
+                if (this.searches == 1) {
+                    this.centerDistance[w] = d;
+                }
+            }
+            this.lower[index] = eccentricity;
+            this.upper[index] = eccentricity;
+            drop(index);
+            return farthest;
+        }
+
+        private void prune(int goal) {
+            double best = goal == RADIUS ? radiusBounds().upper() : diameterBounds().lower();
+            for (int i = 0; i < this.keys.length; i++) {
+                if (!this.candidate[i]) {
+                    continue;
+                }
+                if (this.lower[i] == this.upper[i]
+                        || (goal == DIAMETER && (this.upper[i] <= best || 2 * this.centerDistance[i] <= best))
+                        || (goal == RADIUS && this.lower[i] >= best)) {
+                    drop(i);
+                }
+            }
+        }
+
+        private void drop(int index) {
+            if (this.candidate[index]) {
+                this.candidate[index] = false;
+                this.candidates--;
+            }
+        }
+
+        private Bounds diameterBounds() {
+            double lowerBound = 0;
+            double upperBound = 0;
+            for (int i = 0; i < this.keys.length; i++) {
+                lowerBound = Math.max(lowerBound, this.lower[i]);
+                upperBound = Math.max(upperBound, this.candidate[i] ? this.upper[i] : this.lower[i]);
+            }
+            return new Bounds(lowerBound, Math.max(lowerBound, upperBound), this.searches);
+        }
+
+        private Bounds radiusBounds() {
+            double lowerBound = Double.MAX_VALUE;
+            double upperBound = Double.MAX_VALUE;
+            for (int i = 0; i < this.keys.length; i++) {
+                upperBound = Math.min(upperBound, this.upper[i]);
+                if (this.candidate[i]) {
+                    lowerBound = Math.min(lowerBound, this.lower[i]);
+                }
+            }
+            return new Bounds(Math.min(lowerBound, upperBound), upperBound, this.searches);
+        }
+
+        private int highestDegree() {
+            int best = 0;
+            for (int i = 1; i < this.keys.length; i++) {
+                if (this.degrees[i] > this.degrees[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        private int largestUpper() {
+            int best = -1;
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.candidate[i] && (best < 0 || this.upper[i] > this.upper[best]
+                        || (this.upper[i] == this.upper[best] && this.degrees[i] > this.degrees[best]))) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        private int smallestLower() {
+            int best = -1;
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.candidate[i] && (best < 0 || this.lower[i] < this.lower[best]
+                        || (this.lower[i] == this.lower[best] && this.degrees[i] > this.degrees[best]))) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package ex1.src;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The stream of the mutations of a WGraph_DS for the listeners that subscribed to it (see WGraph_DS.addListener),
+ * so caches and indexes can follow what changed instead of polling getMC() and rebuilding everything.
+ * Every mutation is a typed event - a node added/removed or an edge added/reweighted/removed.
+ * Explanation:
+ * The graph writes the events into a ring buffer of primitive arrays and a delivery thread hands them to the
+ * listeners in batches (all the events that are waiting, up to MAX_BATCH) - a single producer (the graph isn't
+ * thread safe anyway) and a single consumer, so the ring needs no lock, only two counters:
+ * published - the events that were written, consumed - the events that were delivered.
+ * The producer waits only when the ring is full, the consumer parks when it's empty and the producer wakes it up.
+ * A graph without listeners has no WGraph_Events at all, so its mutations only pay a null check.
+ * Note: the listeners are called on the delivery thread - they should apply the events (which carry all the data
+ * of the mutation) and not read the graph, which may have changed since. flush() waits for the delivery.
+ */
+public class WGraph_Events {
+    private static final int CAPACITY = 1 << 14;
+    private static final int MAX_BATCH = 1024;
+    private static final Type[] TYPES = Type.values();
+
+    private final byte[] types = new byte[CAPACITY];
+    private final int[] nodes1 = new int[CAPACITY];
+    private final int[] nodes2 = new int[CAPACITY];
+    private final double[] weights = new double[CAPACITY];
+    private final double[] oldWeights = new double[CAPACITY];
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread delivery;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+    // the last consumed count the producer saw (so it doesn't read the counter on every event)
+    private long knownConsumed;
+
+    WGraph_Events() {
+        this.delivery = new Thread(this::deliver, "WGraph_Events");
+        this.delivery.setDaemon(true);
+        this.delivery.start();
+    }
+
+    void add(Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener.
+     * @return boolean - true iff there are no more listeners
+     */
+    boolean remove(Listener listener) {
+        this.listeners.remove(listener);
+        return this.listeners.isEmpty();
+    }
+
+    /**
+     * Publish an event (called by the graph - the single producer).
+     */
+    void publish(Type type, int node1, int node2, double w, double oldW) {
+        long sequence = this.published.get();
+        if (sequence - this.knownConsumed >= CAPACITY) {
+            this.knownConsumed = this.consumed.get();
+            while (sequence - this.knownConsumed >= CAPACITY) { // full - wait for the delivery
+                if (!this.delivery.isAlive()) {
+                    throw new IllegalStateException("The delivery of the events stopped with a full ring");
+                }
+                LockSupport.unpark(this.delivery);
+                Thread.onSpinWait();
+                this.knownConsumed = this.consumed.get();
+            }
+        }
+        int slot = (int) sequence & (CAPACITY - 1);
+        this.types[slot] = (byte) type.ordinal();
+        this.nodes1[slot] = node1;
+        this.nodes2[slot] = node2;
+        this.weights[slot] = w;
+        this.oldWeights[slot] = oldW;
+        this.published.set(sequence + 1);
+        if (this.parked) {
+            LockSupport.unpark(this.delivery);
+        }
+    }
+
+    /**
+     * Wait until all the events that were published so far were delivered.
+     * Note: must not be called by a listener (it would wait for itself).
+     */
+    void flush() {
+        long target = this.published.get();
+        while (this.consumed.get() < target && this.delivery.isAlive()) {
+            LockSupport.unpark(this.delivery);
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    /**
+     * Deliver the events that are still waiting and stop the delivery thread.
+     * Note: when called by a listener (on the delivery thread) it doesn't wait - the thread stops by itself
+     * once the waiting events were delivered.
+     */
+    void close() {
+        this.running = false;
+        if (Thread.currentThread() == this.delivery) {
+            return;
+        }
+        LockSupport.unpark(this.delivery);
+        try {
+            this.delivery.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The delivery thread - hands the waiting events to the listeners in batches.
+     */
+    private void deliver() {
+        Batch batch = new Batch();
+        while (true) {
+            long from = this.consumed.get();
+            long available = this.published.get();
+            if (available == from) {
+                if (!this.running) {
+                    return;
+                }
+                this.parked = true;
+                if (this.published.get() == from && this.running) {
+                    LockSupport.park(this);
+                }
+                this.parked = false;
+                continue;
+            }
+            batch.from = from;
+            batch.size = (int) Math.min(available - from, MAX_BATCH);
+            for (Listener listener : this.listeners) {
+                try {
+                    listener.onEvents(batch);
+                } catch (Throwable ex) {
+                    // a failing listener doesn't stop the others
+                    Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, ex);
+                }
+            }
+            this.consumed.set(from + batch.size);
+        }
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * The types of the mutations.
+     */
+    public enum Type {
+        NODE_ADDED, NODE_REMOVED, EDGE_ADDED, EDGE_REWEIGHTED, EDGE_REMOVED
+    }
+
+    /**
+     * A subscriber of the mutations of a graph.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called on the delivery thread with the next events, in the order they happened.
+         * The batch is only valid during the call.
+         * @param batch
+         */
+        void onEvents(Batch batch);
+    }
+
+    /**
+     * A batch of events - a view of a range of the ring buffer.
+     * A node event has the key in node1 (node2 is the same key and the weights are NaN),
+     * an edge event has both keys, the weight of the edge (for a removed edge - its last weight) and for a
+     * reweighted edge the weight before.
+     */
+    public class Batch {
+        private long from;
+        private int size;
+
+        public int size() {
+            return this.size;
+        }
+
+        public Type type(int i) {
+            return TYPES[types[slot(i)]];
+        }
+
+        public int node1(int i) {
+            return nodes1[slot(i)];
+        }
+
+        public int node2(int i) {
+            return nodes2[slot(i)];
+        }
+
+        public double weight(int i) {
+            return weights[slot(i)];
+        }
+
+        public double oldWeight(int i) {
+            return oldWeights[slot(i)];
+        }
+
+        private int slot(int i) {
+            if (i < 0 || i >= this.size) {
+                throw new IndexOutOfBoundsException(String.format("Event %d of a batch of %d", i, this.size));
+            }
+            return (int) (this.from + i) & (CAPACITY - 1);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package ex1.src;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Seeded generators of big synthetic graphs for load tests and benchmarks:
+ * grid - a rows x cols grid (a road network like graph, every node is connected to its 4 neighbors).
+ * erdosRenyi - G(n, p), every pair of nodes is connected with the probability p.
+ * barabasiAlbert - preferential attachment, every new node connects to m earlier nodes chosen by their degree.
+ * rmat - R-MAT, 2^scale nodes and edges that pick a quadrant of the adjacency matrix (a, b, c, d) recursively.
+ * The weights of the edges are drawn from a Weights distribution, the nodes are 0..n-1.
+ * Explanation:
+ * The edges are generated in chunks on all the cores, every chunk draws from its own random generator that is
+ * seeded by the seed and the chunk number only, so the same seed always gives the same graph no matter how many
+ * threads there are. The chunks are handed to the Sink in order on the calling thread (a graph doesn't have to be
+ * thread safe) while the next ones are generated, and only a few chunks are kept in memory at a time.
+ * How every chunk is generated without the ones before it:
+ * erdosRenyi - the pairs of nodes are numbered and a chunk walks its range of pairs with geometric skips
+ *              (Batagelj and Brandes) - O(edges) instead of O(n^2).
+ * barabasiAlbert - the slots of the edge list (source, target) are numbered and the target of an edge is a random
+ *                  earlier slot, taken by a hash of the slot (Sanders and Schulz) - a slot of a source is known
+ *                  directly, a slot of a target is resolved the same way, so no chunk waits for another.
+ * Note: self loops and repeated edges (barabasiAlbert, rmat) are merged by the graph, so there may be
+ * slightly fewer edges than were generated (the return value counts the generated ones).
+ */
+public class WGraph_Generator {
+    private static final int CHUNK = 1 << 16; // edges per chunk
+
+    private WGraph_Generator() {
+    }
+
+    /**
+     * Generate a rows x cols grid, the key of the node at (row, col) is row*cols+col.
+     * @param rows
+     * @param cols
+     * @param weights - the distribution of the weights
+     * @param seed
+     * @param sink - where the nodes and edges go
+     * @return long - the number of generated edges
+     */
+    public static long grid(int rows, int cols, Weights weights, long seed, Sink sink) {
+        int n = nodes((long) rows * cols);
+        addNodes(n, sink);
+        int band = Math.max(1, CHUNK / Math.max(1, 2 * cols)); // rows per chunk
+        return run((rows + band - 1) / band, seed, sink, (chunk, rnd, edges) -> {
+            int to = (int) Math.min(rows, (chunk + 1) * band);
+            for (int r = (int) (chunk * band); r < to; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int key = r * cols + c;
+                    if (c + 1 < cols) {
+                        edges.add(key, key + 1, weights.next(rnd));
+                    }
+                    if (r + 1 < rows) {
+                        edges.add(key, key + cols, weights.next(rnd));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Generate G(n, p) - every pair of nodes is connected with the probability p (about p*n(n-1)/2 edges).
+     * @param n
+     * @param p
+     * @param weights - the distribution of the weights
+     * @param seed
+     * @param sink - where the nodes and edges go
+     * @return long - the number of generated edges
+     */
+    public static long erdosRenyi(int n, double p, Weights weights, long seed, Sink sink) {
+        addNodes(nodes(n), sink);
+        long pairs = (long) n * (n - 1) / 2;
+        if (p <= 0 || pairs == 0) {
+            return 0;
+        }
+        long span = Math.max(1, (long) Math.min(pairs, CHUNK / Math.min(p, 1))); // pairs per chunk
+        double logQ = Math.log(1 - Math.min(p, 1));
+        return run((pairs + span - 1) / span, seed, sink, (chunk, rnd, edges) -> {
+            long end = Math.min(pairs, (chunk + 1) * span);
+            long t = chunk * span - 1;
+            while (true) {
+                t += p >= 1 ? 1 : 1 + (long) (Math.log(1 - rnd.nextDouble()) / logQ);
+                if (t >= end || t < 0) {
+                    break;
+                }
+                // pair number t -> (v, w), w < v, t = v(v-1)/2 + w
+                long v = (long) ((1 + Math.sqrt(1 + 8.0 * t)) / 2);
+                while (v * (v - 1) / 2 > t) {
+                    v--;
+                }
+                while ((v + 1) * v / 2 <= t) {
+                    v++;
+                }
+                edges.add((int) v, (int) (t - v * (v - 1) / 2), weights.next(rnd));
+            }
+        });
+    }
+
+    /**
+     * Generate a Barabasi-Albert graph - it starts with the edge (1, 0) and every next node connects to m earlier
+     * nodes, chosen with a probability proportional to their degree.
+     * @param n
+     * @param m - the number of edges of every new node
+     * @param weights - the distribution of the weights
+     * @param seed
+     * @param sink - where the nodes and edges go
+     * @return long - the number of generated edges
+     */
+    public static long barabasiAlbert(int n, int m, Weights weights, long seed, Sink sink) {
+        if (m < 1) {
+            throw new IllegalArgumentException("m must be positive");
+        }
+        addNodes(nodes(n), sink);
+        if (n < 2) {
+            return 0;
+        }
+        long count = 1 + (long) (n - 2) * m;
+        return run((count + CHUNK - 1) / CHUNK, seed, sink, (chunk, rnd, edges) -> {
+            long end = Math.min(count, (chunk + 1) * CHUNK);
+            for (long e = chunk * CHUNK; e < end; e++) {
+                edges.add(sourceOf(e, m), targetOf(2 * e + 1, m, seed), weights.next(rnd));
+            }
+        });
+    }
+
+    /**
+     * Generate an R-MAT graph with 2^scale nodes and edgeFactor*2^scale edges, every edge picks a quadrant of
+     * the adjacency matrix with the probabilities a, b, c and 1-a-b-c (usually 0.57, 0.19, 0.19), scale times.
+     * @param scale
+     * @param edgeFactor
+     * @param a
+     * @param b
+     * @param c
+     * @param weights - the distribution of the weights
+     * @param seed
+     * @param sink - where the nodes and edges go
+     * @return long - the number of generated edges
+     */
+    public static long rmat(int scale, int edgeFactor, double a, double b, double c, Weights weights, long seed, Sink sink) {
+        if (scale < 0 || scale > 30 || a < 0 || b < 0 || c < 0 || a + b + c > 1) {
+            throw new IllegalArgumentException("Invalid R-MAT parameters");
+        }
+        int n = 1 << scale;
+        addNodes(n, sink);
+        long count = (long) edgeFactor * n;
+        return run((count + CHUNK - 1) / CHUNK, seed, sink, (chunk, rnd, edges) -> {
+            long end = Math.min(count, (chunk + 1) * CHUNK);
+            for (long e = chunk * CHUNK; e < end; e++) {
+                int u = 0;
+                int v = 0;
+                for (int bit = scale - 1; bit >= 0; bit--) {
+                    double r = rnd.nextDouble();
+                    if (r >= a + b + c) {
+                        u |= 1 << bit;
+                        v |= 1 << bit;
+                    }
+                    else if (r >= a + b) {
+                        u |= 1 << bit;
+                    }
+                    else if (r >= a) {
+                        v |= 1 << bit;
+                    }
+                }
+                edges.add(u, v, weights.next(rnd));
+            }
+        });
+    }
+
+    /**
+     * Generate the chunks in parallel and hand them to the sink in order.
+     * @return long - the number of generated edges
+     */
+    private static long run(long chunks, long seed, Sink sink, ChunkGenerator generator) {
+        int threads = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), chunks));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayDeque<Future<Edges>> window = new ArrayDeque<>();
+            long next = 0;
+            long generated = 0;
+            while (next < chunks || !window.isEmpty()) {
+                while (next < chunks && window.size() < 2 * threads) {
+                    long chunk = next++;
+                    window.add(pool.submit(() -> {
+                        Edges edges = new Edges();
+                        generator.generate(chunk, new SplittableRandom(mix(seed + mix(chunk))), edges);
+                        return edges;
+                    }));
+                }
+                Edges edges = window.poll().get();
+                for (int i = 0; i < edges.size; i++) {
+                    sink.connect(edges.node1[i], edges.node2[i], edges.weight[i]);
+                }
+                generated += edges.size;
+            }
+            return generated;
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException("Failed to generate the graph", ex);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int nodes(long n) {
+        if (n < 0 || n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Invalid number of nodes %d", n));
+        }
+        return (int) n;
+    }
+
+    private static void addNodes(int n, Sink sink) {
+        for (int key = 0; key < n; key++) {
+            sink.addNode(key);
+        }
+    }
+
+    /** The source of the e-th edge of a Barabasi-Albert graph. */
+    private static int sourceOf(long e, int m) {
+        return e == 0 ? 1 : (int) (2 + (e - 1) / m);
+    }
+
+    /**
+     * The node of an odd (target) slot of the edge list of a Barabasi-Albert graph - a random slot before the edge,
+     * by a hash of the slot, until it's an even (source) one.
+     */
+    private static int targetOf(long slot, int m, long seed) {
+        while (slot != 1) {
+            long r = Long.remainderUnsigned(mix(seed ^ mix(slot)), slot - 1); // a slot of an earlier edge
+            if (r % 2 == 0) {
+                return sourceOf(r / 2, m);
+            }
+            slot = r;
+        }
+        return 0; // the target of the first edge
+    }
+
+    /** The SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * Where the generated nodes and edges go - a weighted_graph or a Builder of an off-heap graph.
+     */
+    public interface Sink {
+        void addNode(int key);
+
+        void connect(int node1, int node2, double w);
+
+        static Sink of(weighted_graph g) {
+            return new Sink() {
+                @Override
+                public void addNode(int key) {
+                    g.addNode(key);
+                }
+
+                @Override
+                public void connect(int node1, int node2, double w) {
+                    g.connect(node1, node2, w);
+                }
+            };
+        }
+
+        static Sink of(WGraph_OffHeap.Builder builder) {
+            return new Sink() {
+                @Override
+                public void addNode(int key) {
+                    builder.addNode(key);
+                }
+
+                @Override
+                public void connect(int node1, int node2, double w) {
+                    builder.connect(node1, node2, w);
+                }
+            };
+        }
+    }
+
+    /**
+     * A distribution of the weights of the edges.
+     */
+    @FunctionalInterface
+    public interface Weights {
+        double next(SplittableRandom rnd);
+
+        static Weights constant(double w) {
+            return rnd -> w;
+        }
+
+        static Weights uniform(double min, double max) {
+            return rnd -> min + (max - min) * rnd.nextDouble();
+        }
+
+        static Weights exponential(double mean) {
+            return rnd -> -mean * Math.log(1 - rnd.nextDouble());
+        }
+    }
+
+    /** Generates the edges of a single chunk. */
+    private interface ChunkGenerator {
+        void generate(long chunk, SplittableRandom rnd, Edges edges);
+    }
+
+    /** The edges of a chunk in primitive arrays. */
+    private static class Edges {
+        private int[] node1 = new int[64];
+        private int[] node2 = new int[64];
+        private double[] weight = new double[64];
+        private int size;
+
+        void add(int a, int b, double w) {
+            if (this.size == this.node1.length) {
+                this.node1 = Arrays.copyOf(this.node1, 2 * this.size);
+                this.node2 = Arrays.copyOf(this.node2, 2 * this.size);
+                this.weight = Arrays.copyOf(this.weight, 2 * this.size);
+            }
+            this.node1[this.size] = a;
+            this.node2[this.size] = b;
+            this.weight[this.size] = w;
+            this.size++;
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package ex1.src;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A distance oracle of a read-only weighted graph by hub labeling (2-hop labels):
+ * every node keeps a label - a list of (hub, distance) pairs - such that every pair of nodes has a hub
+ * on a shortest path between them in both of their labels, so the distance of a pair is
+ * min(d(u,hub) + d(hub,v)) over the common hubs - a merge of two short sorted lists instead of a search.
+ * Explanation:
+ * The labels are built by Pruned Landmark Labeling (Akiba, Iwata and Yoshida): the nodes are ranked by the number
+ * of shortest paths they cover in a few sample shortest path trees (the hubs of most of the paths first - the high
+ * degree nodes of a scale free graph, the middle of a road like one) and a dijkstra from every node in rank order
+ * adds it as a hub to the label of every node it settles, except that a node whose distance is already answered by
+ * the labels so far is pruned - it gets no label and the search doesn't continue through it, so the later searches are tiny.
+ * The hubs are added in rank order, so every label is sorted by hub rank without sorting.
+ * Parallel build - the nodes are taken in batches of one per thread, the searches of a batch run together and are
+ * pruned by the labels of the batches before (not by each other), so the labels may be a little bigger than
+ * the sequential ones, but they are still exact. With a single thread it's the original algorithm.
+ * The labels are kept in primitive arrays (CSR - offsets, hub ranks and distances) and save/load writes them
+ * with the hubs gap encoded as varints.
+ * Note: the index is a snapshot - it doesn't follow changes of the graph.
+ */
+public class WGraph_HubLabels {
+    private static final int MAGIC = 0x48554231; // "HUB1"
+    // the number of shortest path trees that rank the nodes
+    private static final int SAMPLES = 16;
+
+    // keys[rank] - the key of the node of every rank
+    private final int[] keys;
+    // sortedKeys[i] and rankOf[i] - the ranks by key (for a binary search)
+    private final int[] sortedKeys;
+    private final int[] rankOf;
+    // the label of the node of rank r: hubs[offsets[r]..offsets[r+1]) with their distances
+    private final int[] offsets;
+    private final int[] hubs;
+    private final double[] distances;
+    private final long buildMillis;
+
+    private WGraph_HubLabels(int[] keys, int[] offsets, int[] hubs, double[] distances, long buildMillis) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.hubs = hubs;
+        this.distances = distances;
+        this.buildMillis = buildMillis;
+        int n = keys.length;
+        long[] pairs = new long[n];
+        for (int r = 0; r < n; r++) {
+            pairs[r] = ((long) keys[r] << 32) | r;
+        }
+        Arrays.sort(pairs);
+        this.sortedKeys = new int[n];
+        this.rankOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            this.sortedKeys[i] = (int) (pairs[i] >> 32);
+            this.rankOf[i] = (int) pairs[i];
+        }
+    }
+
+    /**
+     * Build the labels of a graph on all the cores.
+     * @param g
+     * @return WGraph_HubLabels
+     */
+    public static WGraph_HubLabels build(weighted_graph g) {
+        return build(g, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Build the labels of a graph.
+     * @param g
+     * @param threads - the number of searches that run together (1 - the sequential algorithm, the smallest labels)
+     * @return WGraph_HubLabels
+     */
+    public static WGraph_HubLabels build(weighted_graph g, int threads) {
+        long start = System.nanoTime();
+        return new Builder(g, Math.max(1, threads)).build(start);
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest by merging their labels.
+     * Note: if no such path --> returns -1
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return double
+     */
+    public double shortestPathDist(int src, int dest) {
+        int a = rank(src);
+        int b = rank(dest);
+        if (a < 0 || b < 0) {
+            return -1;
+        }
+        if (a == b) {
+            return 0;
+        }
+        int i = this.offsets[a];
+        int iEnd = this.offsets[a + 1];
+        int j = this.offsets[b];
+        int jEnd = this.offsets[b + 1];
+        double best = Double.MAX_VALUE;
+        while (i < iEnd && j < jEnd) {
+            int hubA = this.hubs[i];
+            int hubB = this.hubs[j];
+            if (hubA == hubB) {
+                best = Math.min(best, this.distances[i++] + this.distances[j++]);
+            }
+            else if (hubA < hubB) {
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return best == Double.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Return the number of nodes of the index.
+     * @return int
+     */
+    public int nodeSize() {
+        return this.keys.length;
+    }
+
+    /**
+     * Return the total number of (hub, distance) pairs of all the labels.
+     * @return long
+     */
+    public long labelEntries() {
+        return this.hubs.length;
+    }
+
+    /**
+     * Return the average number of hubs in a label.
+     * @return double
+     */
+    public double averageLabelSize() {
+        return this.keys.length == 0 ? 0 : (double) this.hubs.length / this.keys.length;
+    }
+
+    /**
+     * Return the size of the index in memory (its arrays).
+     * @return long - bytes
+     */
+    public long bytes() {
+        return 3L * this.keys.length * Integer.BYTES + (this.offsets.length) * (long) Integer.BYTES
+                + (long) this.hubs.length * (Integer.BYTES + Double.BYTES);
+    }
+
+    /**
+     * Return how long the build took (0 for a loaded index).
+     * @return long - milliseconds
+     */
+    public long buildMillis() {
+        return this.buildMillis;
+    }
+
+    /**
+     * Save the index to a file.
+     * @param file
+     * @throws IOException
+     */
+    public void save(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(this.keys.length);
+            for (int key : this.keys) {
+                out.writeInt(key);
+            }
+            for (int r = 0; r < this.keys.length; r++) {
+                writeVarint(out, this.offsets[r + 1] - this.offsets[r]);
+                int previous = -1;
+                for (int i = this.offsets[r]; i < this.offsets[r + 1]; i++) {
+                    writeVarint(out, this.hubs[i] - previous - 1);
+                    previous = this.hubs[i];
+                    out.writeDouble(this.distances[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load an index that was saved by save.
+     * @param file
+     * @return WGraph_HubLabels
+     * @throws IOException
+     */
+    public static WGraph_HubLabels load(String file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(String.format("%s is not a hub labels file", file));
+            }
+            int n = in.readInt();
+            int[] keys = new int[n];
+            for (int r = 0; r < n; r++) {
+                keys[r] = in.readInt();
+            }
+            int[] offsets = new int[n + 1];
+            int[] hubs = new int[Math.max(16, n)];
+            double[] distances = new double[hubs.length];
+            int count = 0;
+            for (int r = 0; r < n; r++) {
+                int size = readVarint(in);
+                if (count + size > hubs.length) {
+                    int capacity = Math.max(count + size, 2 * hubs.length);
+                    hubs = Arrays.copyOf(hubs, capacity);
+                    distances = Arrays.copyOf(distances, capacity);
+                }
+                int previous = -1;
+                for (int i = 0; i < size; i++) {
+                    previous += readVarint(in) + 1;
+                    hubs[count] = previous;
+                    distances[count++] = in.readDouble();
+                }
+                offsets[r + 1] = count;
+            }
+            return new WGraph_HubLabels(keys, offsets, Arrays.copyOf(hubs, count), Arrays.copyOf(distances, count), 0);
+        }
+    }
+
+    private int rank(int key) {
+        int i = Arrays.binarySearch(this.sortedKeys, key);
+        return i < 0 ? -1 : this.rankOf[i];
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * Pruned Landmark Labeling over a dense copy of the graph - the nodes are numbered by rank and the adjacency
+     * lists are kept by rank as well (CSR), the labels grow in per node arrays until they are packed.
+     */
+    private static class Builder {
+        private final int n;
+        private final int threads;
+        private final int[] keys;
+        private final int[] adjacency;
+        private final int[] adjacent;
+        private final double[] weights;
+        private final int[][] labelHubs;
+        private final double[][] labelDistances;
+        private final int[] labelSizes;
+
+        Builder(weighted_graph g, int threads) {
+            Collection<node_info> nodes = g.getV();
+            this.n = nodes.size();
+            this.threads = threads;
+            long[] byRank = new long[this.n];
+            int[] sorted = new int[this.n];
+            int i = 0;
+            for (node_info node : nodes) {
+                sorted[i++] = node.getKey();
+            }
+            Arrays.sort(sorted);
+            int[] degrees = new int[this.n];
+            for (i = 0; i < this.n; i++) {
+                int[] degree = {0};
+                g.forEachNeighbor(sorted[i], (key, w) -> degree[0]++);
+                degrees[i] = degree[0];
+            }
+            long[] scores = coverage(g, sorted);
+            for (i = 0; i < this.n; i++) {
+                // the highest score first, ties by key
+                long score = Math.min(Integer.MAX_VALUE, scores[i] + degrees[i]);
+                byRank[i] = ((Integer.MAX_VALUE - score) << 32) | i;
+            }
+            Arrays.sort(byRank);
+            this.keys = new int[this.n];
+            int[] rankBySorted = new int[this.n];
+            for (int r = 0; r < this.n; r++) {
+                int index = (int) byRank[r];
+                this.keys[r] = sorted[index];
+                rankBySorted[index] = r;
+            }
+            this.adjacency = new int[this.n + 1];
+            for (int r = 0; r < this.n; r++) {
+                this.adjacency[r + 1] = this.adjacency[r] + degrees[(int) byRank[r]];
+            }
+            this.adjacent = new int[this.adjacency[this.n]];
+            this.weights = new double[this.adjacency[this.n]];
+            for (int r = 0; r < this.n; r++) {
+                int[] slot = {this.adjacency[r]};
+                g.forEachNeighbor(this.keys[r], (key, w) -> {
+                    this.adjacent[slot[0]] = rankBySorted[Arrays.binarySearch(sorted, key)];
+                    this.weights[slot[0]++] = w;
+                });
+            }
+            this.labelHubs = new int[this.n][];
+            this.labelDistances = new double[this.n][];
+            this.labelSizes = new int[this.n];
+        }
+
+        /**
+         * The number of shortest paths that pass through every node in a few sample shortest path trees (the size
+         * of its subtree) - the nodes that cover the most paths make the best hubs. On a scale free graph these are
+         * the hubs of highest degree, on a road like graph (where all the degrees are about the same) these are
+         * the nodes around the middle of the graph.
+         * @return long[] - by the index of the sorted keys
+         */
+        private static long[] coverage(weighted_graph g, int[] sorted) {
+            long[] scores = new long[sorted.length];
+            int samples = Math.min(SAMPLES, sorted.length);
+            SearchState s = new SearchState();
+            int[] order = new int[16];
+            int[] subtree = new int[16];
+            for (int k = 0; k < samples; k++) {
+                s.clear();
+                s.seed(sorted[(int) ((long) k * sorted.length / samples)]);
+                int count = 0;
+                while (s.settleNext()) {
+                    int current = s.current();
+                    if (count == order.length) {
+                        order = Arrays.copyOf(order, 2 * count);
+                    }
+                    order[count++] = current;
+                    double pathDistance = s.distance(current);
+                    g.forEachNeighbor(s.key(current), (adjacentKey, w) -> s.relax(adjacentKey, pathDistance + w, current));
+                }
+                if (subtree.length < s.size()) {
+                    subtree = new int[Math.max(s.size(), 2 * subtree.length)];
+                }
+                Arrays.fill(subtree, 0, s.size(), 1);
+                // a parent is settled before its children, so the children are summed first walking back
+                for (int i = count - 1; i >= 0; i--) {
+                    int e = order[i];
+                    if (s.parent(e) != SearchState.NONE) {
+                        subtree[s.parent(e)] += subtree[e];
+                    }
+                    scores[Arrays.binarySearch(sorted, s.key(e))] += subtree[e];
+                }
+            }
+            return scores;
+        }
+
+        WGraph_HubLabels build(long start) {
+            ExecutorService pool = this.threads > 1 ? Executors.newFixedThreadPool(this.threads) : null;
+            try {
+                Search[] searches = new Search[this.threads];
+                for (int t = 0; t < this.threads; t++) {
+                    searches[t] = new Search();
+                }
+                for (int first = 0; first < this.n; first += this.threads) {
+                    int batch = Math.min(this.threads, this.n - first);
+                    if (pool == null) {
+                        searches[0].run(first);
+                        add(first, searches[0]);
+                        continue;
+                    }
+                    List<Future<?>> running = new ArrayList<>();
+                    for (int t = 0; t < batch; t++) {
+                        Search search = searches[t];
+                        int hub = first + t;
+                        running.add(pool.submit(() -> search.run(hub)));
+                    }
+                    for (Future<?> future : running) {
+                        future.get();
+                    }
+                    for (int t = 0; t < batch; t++) {
+                        add(first + t, searches[t]);
+                    }
+                }
+            } catch (InterruptedException | ExecutionException ex) {
+                throw new IllegalStateException("Failed to build the hub labels", ex);
+            } finally {
+                if (pool != null) {
+                    pool.shutdown();
+                }
+            }
+            int[] offsets = new int[this.n + 1];
+            for (int r = 0; r < this.n; r++) {
+                offsets[r + 1] = offsets[r] + this.labelSizes[r];
+            }
+            int[] hubs = new int[offsets[this.n]];
+            double[] distances = new double[offsets[this.n]];
+            for (int r = 0; r < this.n; r++) {
+                if (this.labelSizes[r] > 0) {
+                    System.arraycopy(this.labelHubs[r], 0, hubs, offsets[r], this.labelSizes[r]);
+                    System.arraycopy(this.labelDistances[r], 0, distances, offsets[r], this.labelSizes[r]);
+                }
+            }
+            return new WGraph_HubLabels(this.keys, offsets, hubs, distances, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        /** Add the hub of a finished search to the labels of the nodes it wasn't pruned at. */
+        private void add(int hub, Search search) {
+            for (int i = 0; i < search.count; i++) {
+                int v = search.reached[i];
+                int size = this.labelSizes[v];
+                if (this.labelHubs[v] == null) {
+                    this.labelHubs[v] = new int[4];
+                    this.labelDistances[v] = new double[4];
+                }
+                else if (size == this.labelHubs[v].length) {
+                    this.labelHubs[v] = Arrays.copyOf(this.labelHubs[v], 2 * size);
+                    this.labelDistances[v] = Arrays.copyOf(this.labelDistances[v], 2 * size);
+                }
+                this.labelHubs[v][size] = hub;
+                this.labelDistances[v][size] = search.reachedDistances[i];
+                this.labelSizes[v]++;
+            }
+        }
+
+        /** A pruned dijkstra - one per thread, reused for all of its hubs. */
+        private class Search {
+            private final SearchState state = new SearchState();
+            // the distances from the hub to its own hubs, by rank (MAX_VALUE - not a hub of it)
+            private final double[] hubDistances = new double[n];
+            private int[] reached = new int[16];
+            private double[] reachedDistances = new double[16];
+            private int count;
+
+            Search() {
+                Arrays.fill(this.hubDistances, Double.MAX_VALUE);
+            }
+
+            void run(int hub) {
+                this.count = 0;
+                int[] ownHubs = labelHubs[hub];
+                double[] ownDistances = labelDistances[hub];
+                int ownSize = labelSizes[hub];
+                for (int i = 0; i < ownSize; i++) {
+                    this.hubDistances[ownHubs[i]] = ownDistances[i];
+                }
+                SearchState s = this.state;
+                s.clear();
+                s.seed(hub);
+                while (s.settleNext()) {
+                    int current = s.current();
+                    int v = s.key(current);
+                    double distance = s.distance(current);
+                    if (labeled(v) <= distance) {
+                        continue; // pruned - an earlier hub already covers v
+                    }
+                    if (this.count == this.reached.length) {
+                        this.reached = Arrays.copyOf(this.reached, 2 * this.count);
+                        this.reachedDistances = Arrays.copyOf(this.reachedDistances, 2 * this.count);
+                    }
+                    this.reached[this.count] = v;
+                    this.reachedDistances[this.count++] = distance;
+                    for (int e = adjacency[v]; e < adjacency[v + 1]; e++) {
+                        // a node of a higher rank was already a hub, it covers its own paths
+                        if (adjacent[e] > hub) {
+                            s.relax(adjacent[e], distance + weights[e], current);
+                        }
+                    }
+                }
+                for (int i = 0; i < ownSize; i++) {
+                    this.hubDistances[ownHubs[i]] = Double.MAX_VALUE;
+                }
+            }
+
+            /** The distance from the hub to v by the labels so far. */
+            private double labeled(int v) {
+                double best = Double.MAX_VALUE;
+                int[] vHubs = labelHubs[v];
+                double[] vDistances = labelDistances[v];
+                for (int i = 0; i < labelSizes[v]; i++) {
+                    double d = this.hubDistances[vHubs[i]];
+                    if (d != Double.MAX_VALUE) {
+                        best = Math.min(best, d + vDistances[i]);
+                    }
+                }
+                return best;
+            }
+        }
+    }
+}
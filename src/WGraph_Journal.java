@@ -0,0 +1,518 @@
+package ex1.src;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A weighted graph that persists itself incrementally - every mutation is appended to a write-ahead log
+ * instead of rewriting the whole graph, so the cost of persistence is proportional to the rate of changes
+ * and not to the size of the graph.
+ * The journal of a file is made of two files:
+ * snapshot - the whole graph (the same file WGraph_Algo.save writes, with ".txt" appended if missing).
+ * log - the snapshot name + ".log", the mutations since the snapshot, one fixed size record each:
+ *       type (addNode / connect / removeNode / removeEdge), node1, node2, weight and a CRC32 of the record.
+ *
+ * Explanation:
+ * Group commit - the records are kept in a buffer and written + forced (fsync) to the disk together, once there
+ * are groupSize of them, once the oldest one waited maxDelayMillis, on commit() and on close(). The delay is
+ * checked on every mutation and by a shared daemon thread (FLUSHER) that writes the records of a journal that went
+ * idle, so no record waits much longer than maxDelayMillis. A mutation is durable once the commit that holds it
+ * returned. The buffer and the log are guarded by the lock of the journal (the graph itself is not).
+ * A failed commit cuts the log back to its committed bytes and keeps the records pending, so the next commit
+ * writes the whole group again (and no torn record is left in the middle of the log to stop the replay). If the
+ * log can't be cut back the journal fails - it rejects every further mutation (IllegalStateException).
+ * Compaction - once the log is bigger than the snapshot would be, the graph is written to a new snapshot
+ * (a temporary file that is forced and then atomically renamed) and the log is truncated.
+ * Recovery - open() (and WGraph_Algo.load) reads the snapshot and replays the log on top of it. Replay stops at
+ * the first torn or corrupted record (a crash in the middle of a write) and open() cuts the log there.
+ * Every record is idempotent and a record whose nodes don't exist is skipped, so a crash between the rename of a
+ * new snapshot and the truncation of the log only replays records the snapshot already holds.
+ *
+ * Note: only the mutations of the weighted_graph interface are logged - the tags and infos of the nodes
+ * are persisted by the snapshots.
+ */
+public class WGraph_Journal implements weighted_graph, AutoCloseable {
+    private static final byte ADD_NODE = 1;
+    private static final byte CONNECT = 2;
+    private static final byte REMOVE_NODE = 3;
+    private static final byte REMOVE_EDGE = 4;
+    private static final int PAYLOAD_BYTES = 1 + 2 * Integer.BYTES + Double.BYTES;
+    private static final int RECORD_BYTES = PAYLOAD_BYTES + Integer.BYTES;
+    // an estimate of the snapshot bytes per node and per edge, used to decide when to compact
+    private static final int SNAPSHOT_BYTES_PER_ELEMENT = 64;
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+    // the logs of the open journals (absolute paths) - a log that is open must not be deleted under its journal
+    private static final Set<Path> OPEN_LOGS = ConcurrentHashMap.newKeySet();
+    // writes the pending records of the idle journals once they waited maxDelayMillis
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "WGraph_Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final WGraph_DS graph;
+    private final Path snapshot;
+    private final Path log;
+    private FileChannel channel;
+    private final ByteBuffer pending;
+    private final int groupSize;
+    private final long maxDelayMillis;
+    private final CRC32 crc = new CRC32();
+    private int pendingRecords;
+    private long oldestPendingMillis;
+    private long logBytes;
+    // the failure of a commit that couldn't restore the log (the journal rejects mutations since), or null
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    //A constructor that is used by open()
+    private WGraph_Journal(WGraph_DS graph, Path snapshot, Path log, FileChannel channel, long logBytes,
+                           int groupSize, long maxDelayMillis) {
+        this.graph = graph;
+        this.snapshot = snapshot;
+        this.log = log;
+        this.channel = channel;
+        this.logBytes = logBytes;
+        this.groupSize = Math.max(1, groupSize);
+        this.maxDelayMillis = maxDelayMillis;
+        this.pending = ByteBuffer.allocate(this.groupSize * RECORD_BYTES);
+    }
+
+    /**
+     * Open (or create) the journal of the given file name, with groups of 1024 records and a 10ms delay.
+     * @param file - the file name (may include a relative path)
+     * @return WGraph_Journal
+     * @throws IOException
+     */
+    public static WGraph_Journal open(String file) throws IOException {
+        return open(file, 1024, 10);
+    }
+
+    /**
+     * Open (or create) the journal of the given file name and recover its graph.
+     * @param file - the file name (may include a relative path)
+     * @param groupSize - the maximal number of records written by a single commit
+     * @param maxDelayMillis - the maximal time a record waits for its commit (to be written and forced)
+     * @return WGraph_Journal
+     * @throws IOException
+     */
+    public static WGraph_Journal open(String file, int groupSize, long maxDelayMillis) throws IOException {
+        Path snapshot = Paths.get(snapshotName(file));
+        Path log = Paths.get(logName(file));
+        WGraph_DS graph = Files.exists(snapshot) ? readSnapshot(snapshot) : new WGraph_DS();
+        long valid = Files.exists(log) ? replay(graph, log) : 0;
+        FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(valid);
+        channel.position(valid);
+        OPEN_LOGS.add(log.toAbsolutePath().normalize());
+        return new WGraph_Journal(graph, snapshot, log, channel, valid, groupSize, maxDelayMillis);
+    }
+
+    @Override
+    public node_info getNode(int key) {
+        return this.graph.getNode(key);
+    }
+
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return this.graph.hasEdge(node1, node2);
+    }
+
+    @Override
+    public double getEdge(int node1, int node2) {
+        return this.graph.getEdge(node1, node2);
+    }
+
+    /**
+     * add a new node to the graph with the given key (and log it).
+     * @param key
+     */
+    @Override
+    public void addNode(int key) {
+        checkWritable();
+        if (this.graph.getNode(key) == null) {
+            this.graph.addNode(key);
+            append(ADD_NODE, key, 0, 0);
+        }
+    }
+
+    /**
+     * Connect an edge between node1 and node2 (and log it).
+     * @param node1
+     * @param node2
+     * @param w
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        checkWritable();
+        this.graph.connect(node1, node2, w);
+        if (node1 != node2) {
+            append(CONNECT, node1, node2, w);
+        }
+    }
+
+    @Override
+    public Collection<node_info> getV() {
+        return this.graph.getV();
+    }
+
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        return this.graph.getV(node_id);
+    }
+
+    @Override
+    public void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+        this.graph.forEachNeighbor(node_id, action);
+    }
+
+    /**
+     * Delete the node (with the given ID) from the graph (and log it).
+     * @param key
+     * @return the data of the removed node (null if none).
+     */
+    @Override
+    public node_info removeNode(int key) {
+        checkWritable();
+        node_info removed = this.graph.removeNode(key);
+        if (removed != null) {
+            append(REMOVE_NODE, key, 0, 0);
+        }
+        return removed;
+    }
+
+    /**
+     * Delete the edge from the graph (and log it).
+     * @param node1
+     * @param node2
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        checkWritable();
+        if (this.graph.hasEdge(node1, node2)) {
+            this.graph.removeEdge(node1, node2);
+            append(REMOVE_EDGE, node1, node2, 0);
+        }
+    }
+
+    @Override
+    public int nodeSize() {
+        return this.graph.nodeSize();
+    }
+
+    @Override
+    public int edgeSize() {
+        return this.graph.edgeSize();
+    }
+
+    @Override
+    public int getMC() {
+        return this.graph.getMC();
+    }
+
+    /**
+     * Return the graph this journal persists.
+     * Note: changes made on it directly are not logged.
+     * @return WGraph_DS
+     */
+    public WGraph_DS getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Write all the pending records to the log and force them to the disk.
+     * Compacts the log afterward if it grew bigger than a snapshot.
+     * Note: if the write fails (UncheckedIOException) the records stay pending for the next commit.
+     */
+    public synchronized void commit() {
+        try {
+            write();
+            long snapshotEstimate = (long) (this.graph.nodeSize() + this.graph.edgeSize()) * SNAPSHOT_BYTES_PER_ELEMENT;
+            if (this.logBytes > Math.max(MIN_COMPACTION_BYTES, snapshotEstimate)) {
+                compact();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Write the whole graph to a new snapshot and truncate the log.
+     * @throws IOException
+     */
+    public synchronized void compact() throws IOException {
+        checkWritable();
+        writeSnapshot(this.graph, this.snapshot);
+        if (this.pendingRecords > 0) {
+            this.pending.clear();
+            this.pendingRecords = 0; // the snapshot holds them
+        }
+        this.channel.truncate(0);
+        this.channel.position(0);
+        this.channel.force(true);
+        this.logBytes = 0;
+    }
+
+    /**
+     * Return the number of bytes of the log (committed records only).
+     * @return long
+     */
+    public synchronized long logBytes() {
+        return this.logBytes;
+    }
+
+    /**
+     * Commit the pending records and close the log.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            if (this.failure == null) {
+                commit();
+            }
+        } finally {
+            this.closed = true;
+            this.channel.close();
+            OPEN_LOGS.remove(this.log.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * Write the pending records to the log and force them to the disk (see the class doc for a failure).
+     * @throws IOException
+     */
+    private synchronized void write() throws IOException {
+        checkWritable();
+        if (this.pendingRecords == 0) {
+            return;
+        }
+        this.pending.flip();
+        try {
+            while (this.pending.hasRemaining()) {
+                this.channel.write(this.pending);
+            }
+            this.channel.force(false);
+        } catch (IOException ex) {
+            restore(ex);
+            throw ex;
+        }
+        this.pending.clear();
+        this.logBytes += (long) this.pendingRecords * RECORD_BYTES;
+        this.pendingRecords = 0;
+    }
+
+    /**
+     * Undo a failed write - cut the log back to the committed bytes and keep the records pending.
+     * If the log can't be cut back the journal fails.
+     * @param cause
+     */
+    private void restore(IOException cause) {
+        this.pending.limit(this.pending.capacity()).position(this.pendingRecords * RECORD_BYTES);
+        // an interrupt closes the channel (ClosedByInterruptException) and would close the reopened one as well
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (!this.channel.isOpen()) {
+                this.channel = FileChannel.open(this.log, StandardOpenOption.WRITE);
+            }
+            this.channel.truncate(this.logBytes);
+            this.channel.position(this.logBytes);
+        } catch (IOException ex) {
+            cause.addSuppressed(ex);
+            this.failure = cause;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Called by the FLUSHER maxDelayMillis after the first record of a group - writes the group if it's still
+     * pending (a group that was written since has scheduled a call of its own). Only writes - compaction reads
+     * the graph, so it's left to the thread that mutates it.
+     */
+    private synchronized void flushDelayed() {
+        if (this.closed || this.failure != null || this.pendingRecords == 0
+                || System.currentTimeMillis() - this.oldestPendingMillis < this.maxDelayMillis) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException ex) {
+            if (this.failure == null) { // restored - try again later
+                FLUSHER.schedule(this::flushDelayed, this.maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void checkWritable() {
+        if (this.closed) {
+            throw new IllegalStateException("The journal is closed");
+        }
+        if (this.failure != null) {
+            throw new IllegalStateException("The log of the journal failed: " + this.failure.getMessage(), this.failure);
+        }
+    }
+
+    private synchronized void append(byte type, int node1, int node2, double w) {
+        if (this.pendingRecords == 0) {
+            this.oldestPendingMillis = System.currentTimeMillis();
+            FLUSHER.schedule(this::flushDelayed, this.maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        int start = this.pending.position();
+        this.pending.put(type).putInt(node1).putInt(node2).putDouble(w);
+        this.crc.reset();
+        this.crc.update(this.pending.array(), start, PAYLOAD_BYTES);
+        this.pending.putInt((int) this.crc.getValue());
+        this.pendingRecords++;
+        if (this.pendingRecords >= this.groupSize
+                || System.currentTimeMillis() - this.oldestPendingMillis >= this.maxDelayMillis) {
+            commit();
+        }
+    }
+
+    // -----------------------------------FILES--------------------------------
+
+    /**
+     * Return the name of the snapshot of a file (like WGraph_Algo.save names it).
+     * @param file
+     * @return String
+     */
+    static String snapshotName(String file) {
+        return !file.contains(".txt") ? file + ".txt" : file;
+    }
+
+    /**
+     * Return true iff this journal keeps the given file name (its snapshot and its log).
+     * @param file
+     * @return boolean
+     */
+    boolean owns(String file) {
+        return this.log.toAbsolutePath().normalize().equals(Paths.get(logName(file)).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Return true iff an open journal keeps the given file name.
+     * @param file
+     * @return boolean
+     */
+    static boolean isOpen(String file) {
+        return OPEN_LOGS.contains(Paths.get(logName(file)).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Return the name of the log of a file.
+     * @param file
+     * @return String
+     */
+    static String logName(String file) {
+        return snapshotName(file) + ".log";
+    }
+
+    static WGraph_DS readSnapshot(Path snapshot) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(snapshot.toFile())))) {
+            return (WGraph_DS) in.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Write a snapshot atomically - to a temporary file that is forced to the disk and then renamed.
+     * @param graph
+     * @param snapshot
+     * @throws IOException
+     */
+    static void writeSnapshot(WGraph_DS graph, Path snapshot) throws IOException {
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(file))) {
+            out.writeObject(graph);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replay the records of a log on a graph.
+     * @param graph
+     * @param log
+     * @return long - the length of the valid part of the log (the replay stops at a torn or corrupted record)
+     * @throws IOException
+     */
+    static long replay(WGraph_DS graph, Path log) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        CRC32 crc = new CRC32();
+        long valid = 0;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            while (true) {
+                record.clear();
+                while (record.hasRemaining()) {
+                    if (channel.read(record) < 0) {
+                        return valid;
+                    }
+                }
+                crc.reset();
+                crc.update(record.array(), 0, PAYLOAD_BYTES);
+                record.flip();
+                byte type = record.get();
+                int node1 = record.getInt();
+                int node2 = record.getInt();
+                double w = record.getDouble();
+                if (record.getInt() != (int) crc.getValue()) {
+                    return valid;
+                }
+                apply(graph, type, node1, node2, w);
+                valid += RECORD_BYTES;
+            }
+        } catch (EOFException ex) {
+            return valid;
+        }
+    }
+
+    private static void apply(WGraph_DS graph, byte type, int node1, int node2, double w) {
+        switch (type) {
+            case ADD_NODE:
+                graph.addNode(node1);
+                break;
+            case CONNECT:
+                if (graph.getNode(node1) != null && graph.getNode(node2) != null) {
+                    graph.connect(node1, node2, w);
+                }
+                break;
+            case REMOVE_NODE:
+                graph.removeNode(node1);
+                break;
+            case REMOVE_EDGE:
+                graph.removeEdge(node1, node2);
+                break;
+            default:
+                throw new IllegalStateException("Unknown log record " + type);
+        }
+    }
+}
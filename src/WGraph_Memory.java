@@ -0,0 +1,216 @@
+package ex1.src;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The memory a graph takes, by the structures it's made of (see WGraph_DS.memoryFootprint), and estimates of the
+ * memory of a graph of a given size in each of the storage backends, so containers can be sized (and bulk loads
+ * stopped) before the JVM runs out of memory.
+ * Explanation:
+ * The sizes of the objects are those of a 64 bit HotSpot JVM with compressed oops (the default under 32GB):
+ * a 12 byte header, 4 byte references and every object padded to 8 bytes. A hash table is assumed to be at its
+ * load factor (the smallest power of two that holds the entries), so the numbers are estimates, not measurements.
+ * The backends from the biggest and fastest to mutate to the smallest:
+ * DS - WGraph_DS, boxed hash maps and an object for every node and every adjacency entry (an order of magnitude
+ *      more than OFF_HEAP - see estimate for the numbers).
+ * OFF_HEAP - WGraph_OffHeap, a primitive CSR outside the heap (24 bytes per edge).
+ * COMPRESSED_* - WGraph_Compressed, gap encoded CSR with exact, float or quantized weights - assuming the keys
+ *                were reordered for locality (WGraph_Reorder), so a gap takes about 2 bytes.
+ */
+public class WGraph_Memory {
+    static final long HEADER = 12;
+    static final long REFERENCE = 4;
+    static final long INTEGER = 16;
+    static final long HASH_MAP = 48;
+    static final long LINKED_HASH_SET = 16;
+    static final long LINKED_HASH_MAP = 56;
+    static final long HASH_MAP_NODE = 32;
+    static final long LINKED_HASH_MAP_ENTRY = 40;
+    static final long VERTEX = 24;
+    // the bytes of a gap of a compressed adjacency list on a graph with reordered keys
+    private static final long GAP_BYTES = 2;
+
+    private final Map<String, Long> parts;
+    private final long total;
+
+    /**
+     * Create a footprint from its parts.
+     * @param parts - the name of every structure and its bytes (in the order to print them)
+     */
+    WGraph_Memory(Map<String, Long> parts) {
+        this.parts = Collections.unmodifiableMap(new LinkedHashMap<>(parts));
+        long sum = 0;
+        for (long bytes : parts.values()) {
+            sum += bytes;
+        }
+        this.total = sum;
+    }
+
+    /**
+     * Return the bytes of every structure.
+     * @return Map<String, Long>
+     */
+    public Map<String, Long> parts() {
+        return this.parts;
+    }
+
+    /**
+     * Return the bytes of all the structures.
+     * @return long
+     */
+    public long total() {
+        return this.total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> part : this.parts.entrySet()) {
+            sb.append(String.format("%-14s %,15d%n", part.getKey(), part.getValue()));
+        }
+        return sb.append(String.format("%-14s %,15d", "total", this.total)).toString();
+    }
+
+    /**
+     * Estimate the memory of a graph with the given number of nodes and edges in a backend.
+     * @param backend
+     * @param nodes
+     * @param edges
+     * @return long - bytes
+     */
+    public static long estimate(Backend backend, long nodes, long edges) {
+        switch (backend) {
+            case DS:
+                return estimateDS(nodes, edges);
+            case OFF_HEAP:
+                // keys, offsets, tags, a table of at least twice the keys and both sides of every edge
+                return nodes * (Integer.BYTES + Long.BYTES + Double.BYTES) + Long.BYTES
+                        + powerOfTwo(Math.max(32, 2 * nodes)) * Integer.BYTES
+                        + 2 * edges * (Integer.BYTES + Double.BYTES);
+            default:
+                // keys, offsets, degrees and tags, both sides of every edge (a gap and a weight)
+                return nodes * (2 * Integer.BYTES + Long.BYTES + Double.BYTES) + Long.BYTES
+                        + 2 * edges * (GAP_BYTES + backend.weightBytes);
+        }
+    }
+
+    /**
+     * Estimate the memory of a graph with the given number of nodes and edges in every backend.
+     * @param nodes
+     * @param edges
+     * @return Map<Backend, Long> - bytes, in the order of Backend
+     */
+    public static Map<Backend, Long> estimates(long nodes, long edges) {
+        Map<Backend, Long> estimates = new EnumMap<>(Backend.class);
+        for (Backend backend : Backend.values()) {
+            estimates.put(backend, estimate(backend, nodes, edges));
+        }
+        return estimates;
+    }
+
+    /**
+     * Return the first backend (in the order of Backend - the fastest first) whose estimate fits the budget.
+     * @param nodes
+     * @param edges
+     * @param budget - bytes
+     * @return Backend - null if none fits
+     */
+    public static Backend choose(long nodes, long edges, long budget) {
+        for (Backend backend : Backend.values()) {
+            if (estimate(backend, nodes, edges) <= budget) {
+                return backend;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the graph itself if it fits the budget, otherwise a copy of it in the first backend that fits.
+     * Note: the weights of COMPRESSED_FLOAT and COMPRESSED_QUANTIZED are rounded (see WGraph_Compressed).
+     * @param g
+     * @param budget - bytes
+     * @return weighted_graph
+     */
+    public static weighted_graph fit(weighted_graph g, long budget) {
+        long current = g instanceof WGraph_DS ? ((WGraph_DS) g).memoryFootprint().total()
+                : estimate(Backend.DS, g.nodeSize(), g.edgeSize());
+        if (current <= budget) {
+            return g;
+        }
+        Backend backend = choose(g.nodeSize(), g.edgeSize(), budget);
+        if (backend == null) {
+            throw new IllegalStateException(String.format("A graph of %d nodes and %d edges doesn't fit in %d bytes",
+                    g.nodeSize(), g.edgeSize(), budget));
+        }
+        switch (backend) {
+            case DS:
+            case OFF_HEAP:
+                return WGraph_OffHeap.of(g);
+            case COMPRESSED_EXACT:
+                return WGraph_Compressed.of(g, WGraph_Compressed.Weights.EXACT);
+            case COMPRESSED_FLOAT:
+                return WGraph_Compressed.of(g, WGraph_Compressed.Weights.FLOAT);
+            default:
+                return WGraph_Compressed.of(g, WGraph_Compressed.Weights.QUANTIZED);
+        }
+    }
+
+    /**
+     * The estimate of a WGraph_DS - the per node and per edge parts of WGraph_DS.memoryFootprint with an average
+     * degree for every adjacency map.
+     */
+    private static long estimateDS(long nodes, long edges) {
+        long degree = nodes == 0 ? 0 : (2 * edges + nodes - 1) / nodes;
+        long adjacencyMap = LINKED_HASH_SET + LINKED_HASH_MAP + array(tableSlots(degree, 16) * REFERENCE);
+        return HASH_MAP + array(tableSlots(nodes, 16) * REFERENCE) + nodes * (HASH_MAP_NODE + INTEGER) // vertices
+                + nodes * VERTEX
+                + HASH_MAP + array(tableSlots(nodes, 16) * REFERENCE) // adjacent
+                + nodes * (HASH_MAP_NODE + INTEGER + adjacencyMap)
+                + 2 * edges * LINKED_HASH_MAP_ENTRY
+                + 2 * array(powerOfTwo(Math.max(16, 2 * edges)) * Long.BYTES) // edges (half full at most)
+                + powerOfTwo(Math.max(16, nodes)) * (2 * Integer.BYTES + Double.BYTES + 1); // node columns
+    }
+
+    /**
+     * The number of slots of a hash table with the given entries - the smallest power of two that holds them
+     * under a 0.75 load factor (or min).
+     */
+    static long tableSlots(long entries, long min) {
+        long slots = Math.max(1, min);
+        while (slots * 3 / 4 < entries) {
+            slots *= 2;
+        }
+        return slots;
+    }
+
+    private static long powerOfTwo(long n) {
+        return Long.highestOneBit(n - 1) << 1;
+    }
+
+    /** The bytes of an array with the given bytes of elements - its header and length, padded to 8. */
+    static long array(long elementBytes) {
+        return align(HEADER + Integer.BYTES + elementBytes);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * The storage backends, from the fastest to the smallest.
+     */
+    public enum Backend {
+        DS(Double.BYTES), OFF_HEAP(Double.BYTES),
+        COMPRESSED_EXACT(Double.BYTES), COMPRESSED_FLOAT(Float.BYTES), COMPRESSED_QUANTIZED(Short.BYTES);
+
+        private final int weightBytes;
+
+        Backend(int weightBytes) {
+            this.weightBytes = weightBytes;
+        }
+    }
+}
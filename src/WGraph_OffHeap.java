@@ -0,0 +1,625 @@
+package ex1.src;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only weighted graph whose data lives outside of the java heap, so huge graphs
+ * (hundreds of millions of edges) don't put any pressure on the garbage collector or on the maximum heap size.
+ * The graph is stored in a CSR (compressed sparse row) layout - every node gets a dense index and:
+ * keys - the key of every index (int).
+ * offsets - where the neighbors of every index start (long, one more than the number of nodes).
+ * neighbors/weights - the keys of the neighbors of every node sorted by key and the weights of the edges to them.
+ * tags - the tag of every index (double).
+ * table - an open addressing table from a key to its index.
+ * Only the info of nodes (which is rarely set) is kept on the heap.
+ *
+ * The graph is created with a Builder (or by copying another graph with of(g)) and since its memory
+ * isn't managed by the garbage collector it should be closed once it isn't needed anymore -
+ * any use of a closed graph throws an IllegalStateException. close() releases the memory right away (see
+ * OffHeapBuffer) - it must not run while another thread still reads the graph.
+ * Note: the off-heap memory is made of direct ByteBuffers, limited by -XX:MaxDirectMemorySize (see OffHeapBuffer).
+ */
+public class WGraph_OffHeap implements weighted_graph, AutoCloseable {
+    private final int nodeCount;
+    private final long edgeCount;
+    private final int tableMask;
+    private OffHeapBuffer keys;
+    private OffHeapBuffer offsets;
+    private OffHeapBuffer neighbors;
+    private OffHeapBuffer weights;
+    private OffHeapBuffer tags;
+    private OffHeapBuffer table;
+    private final Map<Integer, String> infos;
+
+    //A constructor that is used by the Builder
+    private WGraph_OffHeap(int nodeCount, long edgeCount, OffHeapBuffer keys, OffHeapBuffer offsets,
+                           OffHeapBuffer neighbors, OffHeapBuffer weights, OffHeapBuffer table, int tableMask) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.weights = weights;
+        this.table = table;
+        this.tableMask = tableMask;
+        this.tags = new OffHeapBuffer((long) Math.max(nodeCount, 1) * Double.BYTES);
+        this.infos = new HashMap<>();
+    }
+
+    /**
+     * Copy the given graph into a new off-heap graph.
+     * @param g
+     * @return WGraph_OffHeap
+     */
+    public static WGraph_OffHeap of(weighted_graph g) {
+        Builder builder = new Builder();
+        for (node_info node : g.getV()) {
+            builder.addNode(node.getKey());
+        }
+        for (node_info node : g.getV()) {
+            int key = node.getKey();
+            g.forEachNeighbor(key, (adjacentKey, weight) -> {
+                if (key < adjacentKey) {
+                    builder.connect(key, adjacentKey, weight);
+                }
+            });
+        }
+        return builder.build();
+    }
+
+    /**
+     * return the node_data by the node_id,
+     * @param key - the node_id
+     * @return the node_data by the node_id, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : new Node(index);
+    }
+
+    /**
+     * return true iff (if and only if) there is an edge between node1 and node2
+     * Note: this method runs in O(log(k)) time, k - being the degree of node1.
+     * @param node1
+     * @param node2
+     * @return boolean
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return slotOf(node1, node2) >= 0;
+    }
+
+    /**
+     * return the weight if the edge (node1, node1). In case
+     * there is no such edge - should return -1
+     * Note: this method runs in O(log(k)) time, k - being the degree of node1.
+     * @param node1
+     * @param node2
+     * @return double
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        long slot = slotOf(node1, node2);
+        return slot < 0 ? -1 : this.weights.getDouble(slot * Double.BYTES);
+    }
+
+    /**
+     * Not supported - the graph is read-only (use a Builder).
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_OffHeap is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only (use a Builder).
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_OffHeap is read-only");
+    }
+
+    /**
+     * Returns a view of all the nodes in the graph (the nodes are created while iterating).
+     * Note: this method runs in O(1) time.
+     * @return Collection<node_info>
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new NodeRange(0, this.nodeCount);
+    }
+
+    /**
+     * Returns a view of all the nodes that are connected to node_id.
+     * @param node_id
+     * @return Collection<node_info>
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int index = existingIndexOf(node_id);
+        long start = this.offsets.getLong((long) index * Long.BYTES);
+        long end = this.offsets.getLong((long) (index + 1) * Long.BYTES);
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new Iterator<node_info>() {
+                    private long slot = start;
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < end;
+                    }
+
+                    @Override
+                    public node_info next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return getNode(neighbors.getInt(slot++ * Integer.BYTES));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return (int) (end - start);
+            }
+        };
+    }
+
+    /**
+     * Performs the given action on every neighbor of node_id straight from the off-heap memory.
+     * @param node_id
+     * @param action
+     */
+    @Override
+    public void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+        int index = existingIndexOf(node_id);
+        long end = this.offsets.getLong((long) (index + 1) * Long.BYTES);
+        for (long slot = this.offsets.getLong((long) index * Long.BYTES); slot < end; slot++) {
+            action.accept(this.neighbors.getInt(slot * Integer.BYTES), this.weights.getDouble(slot * Double.BYTES));
+        }
+    }
+
+    /**
+     * Not supported - the graph is read-only (use a Builder).
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_OffHeap is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only (use a Builder).
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_OffHeap is read-only");
+    }
+
+    /** return the number of vertices (nodes) in the graph.
+     * @return int
+     */
+    @Override
+    public int nodeSize() {
+        return this.nodeCount;
+    }
+
+    /**
+     * return the number of edges (undirectional graph), Integer.MAX_VALUE if there are more (see edgeCount()).
+     * @return int
+     */
+    @Override
+    public int edgeSize() {
+        return (int) Math.min(this.edgeCount, Integer.MAX_VALUE);
+    }
+
+    /**
+     * return the number of edges (undirectional graph).
+     * @return long
+     */
+    public long edgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * The graph is read-only so the mode count never changes.
+     * @return int
+     */
+    @Override
+    public int getMC() {
+        return 0;
+    }
+
+    /**
+     * Return the number of off-heap bytes held by this graph.
+     * @return long
+     */
+    public long offHeapBytes() {
+        if (isClosed()) {
+            return 0;
+        }
+        return this.keys.capacity() + this.offsets.capacity() + this.neighbors.capacity()
+                + this.weights.capacity() + this.tags.capacity() + this.table.capacity();
+    }
+
+    /**
+     * Release the off-heap memory of this graph.
+     * Closing a closed graph has no effect.
+     */
+    @Override
+    public void close() {
+        if (isClosed()) {
+            return;
+        }
+        this.keys.free();
+        this.offsets.free();
+        this.neighbors.free();
+        this.weights.free();
+        this.tags.free();
+        this.table.free();
+        this.infos.clear();
+    }
+
+    /**
+     * Check whether the graph was closed.
+     * @return boolean
+     */
+    public boolean isClosed() {
+        return this.keys.isFreed();
+    }
+
+    /**
+     * Return the dense index of a key, -1 if there is no such node.
+     * @param key
+     * @return int
+     */
+    private int indexOf(int key) {
+        return lookup(this.table, this.tableMask, this.keys, key);
+    }
+
+    private int existingIndexOf(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("Node %d does not exist", key));
+        }
+        return index;
+    }
+
+    /**
+     * Binary search node2 between the (sorted) neighbors of node1.
+     * @return long - the slot of the edge, -1 if there is no such edge
+     */
+    private long slotOf(int node1, int node2) {
+        int index = indexOf(node1);
+        if (index < 0) {
+            return -1;
+        }
+        long low = this.offsets.getLong((long) index * Long.BYTES);
+        long high = this.offsets.getLong((long) (index + 1) * Long.BYTES) - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int key = this.neighbors.getInt(middle * Integer.BYTES);
+            if (key < node2) {
+                low = middle + 1;
+            }
+            else if (key > node2) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static int lookup(OffHeapBuffer table, int mask, OffHeapBuffer keys, int key) {
+        int pos = mix(key) & mask;
+        while (true) {
+            int entry = table.getInt((long) pos * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            if (keys.getInt((long) (entry - 1) * Integer.BYTES) == key) {
+                return entry - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    /** Spread the bits of a key so sequential ids don't cluster in the table. */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /** A node of the off-heap graph - a light view (flyweight) of an index. */
+    class Node implements node_info {
+        private final int index;
+
+        Node(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getKey() {
+            return keys.getInt((long) this.index * Integer.BYTES);
+        }
+
+        @Override
+        public String getInfo() {
+            return infos.getOrDefault(getKey(), "");
+        }
+
+        @Override
+        public void setInfo(String s) {
+            infos.put(getKey(), s);
+        }
+
+        @Override
+        public double getTag() {
+            return tags.getDouble((long) this.index * Double.BYTES);
+        }
+
+        @Override
+        public void setTag(double t) {
+            tags.putDouble((long) this.index * Double.BYTES, t);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d", this.getKey());
+        }
+
+        /**
+         * Two views are equal iff they are views of the same index in the same graph.
+         * @param o
+         * @return boolean
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (!(o instanceof Node))
+                return false;
+            Node other = (Node) o;
+            return this.index == other.index && this.owner() == other.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.index;
+        }
+
+        private WGraph_OffHeap owner() {
+            return WGraph_OffHeap.this;
+        }
+    }
+
+    /** A view of the nodes with the indexes [from, to). */
+    class NodeRange extends AbstractCollection<node_info> {
+        private final int from;
+        private final int to;
+
+        NodeRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int index = from;
+
+                @Override
+                public boolean hasNext() {
+                    return index < to;
+                }
+
+                @Override
+                public node_info next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return new Node(index++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return this.to - this.from;
+        }
+    }
+
+    /**
+     * A Builder of an off-heap graph.
+     * The nodes and the edges are collected off-heap as well and build() turns them into the CSR layout:
+     * Explanation:
+     * 1. count the degree of every node and turn the degrees into offsets (prefix sums).
+     * 2. put every edge in the lists of both of its nodes.
+     * 3. sort the list of every node by the neighbor keys, an edge that was connected more than once keeps its
+     *    last weight (like connect() of WGraph_DS) and the lists are compacted.
+     * A Builder can only build a single graph.
+     */
+    public static class Builder {
+        private static final int EDGE_BYTES = 2 * Integer.BYTES + Double.BYTES;
+
+        private OffHeapBuffer keys = new OffHeapBuffer(16L * Integer.BYTES);
+        private OffHeapBuffer table = new OffHeapBuffer(32L * Integer.BYTES);
+        private int tableMask = 31;
+        private int nodeCount;
+        private OffHeapBuffer edges = new OffHeapBuffer(16L * EDGE_BYTES);
+        private long edgeCount;
+
+        /**
+         * Add a node with the given key, if there is already such a node no action is performed.
+         * @param key
+         * @return Builder
+         */
+        public Builder addNode(int key) {
+            checkOpen();
+            if (lookup(this.table, this.tableMask, this.keys, key) >= 0) {
+                return this;
+            }
+            if ((long) (this.nodeCount + 1) * 2 > this.tableMask + 1) {
+                growTable();
+            }
+            this.keys.ensureCapacity((long) (this.nodeCount + 1) * Integer.BYTES);
+            this.keys.putInt((long) this.nodeCount * Integer.BYTES, key);
+            insert(this.table, this.tableMask, key, this.nodeCount);
+            this.nodeCount++;
+            return this;
+        }
+
+        /**
+         * Connect an edge between node1 and node2 (both nodes must be added before).
+         * Connecting a node to itself performs no action.
+         * @param node1
+         * @param node2
+         * @param w
+         * @return Builder
+         */
+        public Builder connect(int node1, int node2, double w) {
+            checkOpen();
+            for (int key : new int[]{node1, node2}) {
+                if (lookup(this.table, this.tableMask, this.keys, key) < 0) {
+                    throw new IllegalArgumentException(String.format("Node %d does not exist", key));
+                }
+            }
+            if (node1 == node2) {
+                return this;
+            }
+            long offset = this.edgeCount * EDGE_BYTES;
+            this.edges.ensureCapacity(offset + EDGE_BYTES);
+            this.edges.putInt(offset, node1);
+            this.edges.putInt(offset + Integer.BYTES, node2);
+            this.edges.putDouble(offset + 2 * Integer.BYTES, w);
+            this.edgeCount++;
+            return this;
+        }
+
+        /**
+         * Build the graph, the Builder can't be used afterward.
+         * @return WGraph_OffHeap
+         */
+        public WGraph_OffHeap build() {
+            checkOpen();
+            int n = this.nodeCount;
+            OffHeapBuffer offsets = new OffHeapBuffer((long) (n + 1) * Long.BYTES);
+            for (long e = 0; e < this.edgeCount; e++) {
+                for (int side = 0; side < 2; side++) {
+                    int index = lookup(this.table, this.tableMask, this.keys, this.edges.getInt(e * EDGE_BYTES + side * Integer.BYTES));
+                    long at = (long) (index + 1) * Long.BYTES;
+                    offsets.putLong(at, offsets.getLong(at) + 1);
+                }
+            }
+            for (int i = 1; i <= n; i++) {
+                offsets.putLong((long) i * Long.BYTES, offsets.getLong((long) i * Long.BYTES) + offsets.getLong((long) (i - 1) * Long.BYTES));
+            }
+            long slots = 2 * this.edgeCount;
+            OffHeapBuffer neighbors = new OffHeapBuffer(Math.max(slots, 1) * Integer.BYTES);
+            OffHeapBuffer weights = new OffHeapBuffer(Math.max(slots, 1) * Double.BYTES);
+            OffHeapBuffer next = new OffHeapBuffer((long) Math.max(n, 1) * Long.BYTES);
+            for (int i = 0; i < n; i++) {
+                next.putLong((long) i * Long.BYTES, offsets.getLong((long) i * Long.BYTES));
+            }
+            for (long e = 0; e < this.edgeCount; e++) {
+                int node1 = this.edges.getInt(e * EDGE_BYTES);
+                int node2 = this.edges.getInt(e * EDGE_BYTES + Integer.BYTES);
+                double w = this.edges.getDouble(e * EDGE_BYTES + 2 * Integer.BYTES);
+                place(next, neighbors, weights, node1, node2, w);
+                place(next, neighbors, weights, node2, node1, w);
+            }
+            next.free();
+            this.edges.free();
+            long written = sortAndCompact(n, offsets, neighbors, weights);
+            WGraph_OffHeap graph = new WGraph_OffHeap(n, written / 2, this.keys, offsets, neighbors, weights,
+                    this.table, this.tableMask);
+            this.keys = null;
+            this.table = null;
+            return graph;
+        }
+
+        private void place(OffHeapBuffer next, OffHeapBuffer neighbors, OffHeapBuffer weights, int from, int to, double w) {
+            int index = lookup(this.table, this.tableMask, this.keys, from);
+            long at = (long) index * Long.BYTES;
+            long slot = next.getLong(at);
+            next.putLong(at, slot + 1);
+            neighbors.putInt(slot * Integer.BYTES, to);
+            weights.putDouble(slot * Double.BYTES, w);
+        }
+
+        /**
+         * Sort the neighbors of every node and drop repeated edges (keeping the last weight).
+         * The lists only move backward, so the compaction is done in place.
+         * @return long - the number of slots that are left
+         */
+        private static long sortAndCompact(int n, OffHeapBuffer offsets, OffHeapBuffer neighbors, OffHeapBuffer weights) {
+            long[] order = new long[16];
+            double[] values = new double[16];
+            long write = 0;
+            long start = 0;
+            for (int i = 0; i < n; i++) {
+                long end = offsets.getLong((long) (i + 1) * Long.BYTES);
+                int degree = (int) (end - start);
+                if (order.length < degree) {
+                    order = new long[Math.max(degree, 2 * order.length)];
+                    values = new double[order.length];
+                }
+                for (int j = 0; j < degree; j++) {
+                    // the key in the high bits and the insertion order in the low bits
+                    order[j] = ((long) neighbors.getInt((start + j) * Integer.BYTES) << 32) | j;
+                    values[j] = weights.getDouble((start + j) * Double.BYTES);
+                }
+                Arrays.sort(order, 0, degree);
+                offsets.putLong((long) i * Long.BYTES, write);
+                for (int j = 0; j < degree; j++) {
+                    int key = (int) (order[j] >> 32);
+                    if (j + 1 < degree && (int) (order[j + 1] >> 32) == key) {
+                        continue; // a later connect of the same edge wins
+                    }
+                    neighbors.putInt(write * Integer.BYTES, key);
+                    weights.putDouble(write * Double.BYTES, values[(int) order[j]]);
+                    write++;
+                }
+                start = end;
+            }
+            offsets.putLong((long) n * Long.BYTES, write);
+            return write;
+        }
+
+        private void growTable() {
+            int capacity = 2 * (this.tableMask + 1);
+            OffHeapBuffer bigger = new OffHeapBuffer((long) capacity * Integer.BYTES);
+            for (int index = 0; index < this.nodeCount; index++) {
+                insert(bigger, capacity - 1, this.keys.getInt((long) index * Integer.BYTES), index);
+            }
+            this.table.free();
+            this.table = bigger;
+            this.tableMask = capacity - 1;
+        }
+
+        private static void insert(OffHeapBuffer table, int mask, int key, int index) {
+            int pos = mix(key) & mask;
+            while (table.getInt((long) pos * Integer.BYTES) != 0) {
+                pos = (pos + 1) & mask;
+            }
+            table.putInt((long) pos * Integer.BYTES, index + 1);
+        }
+
+        private void checkOpen() {
+            if (this.keys == null) {
+                throw new IllegalStateException("The graph was already built");
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ex1.src;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A path on a weighted graph as the search found it - the keys of its nodes, the distance from the first node
+ * to every node of the path (prefix distances) and its total cost, all in primitive arrays.
+ * Most callers only need the keys or the cost, so the nodes themselves (node_info) are only looked up
+ * on demand - asList() is a view that calls getNode() for the nodes that are actually read.
+ */
+public class WGraph_Path {
+    private final weighted_graph graph;
+    private final int[] keys;
+    private final double[] distances;
+
+    /**
+     * Create a path.
+     * @param graph - the graph the path is on (for asList)
+     * @param keys - the keys of the nodes from the source to the destination
+     * @param distances - the distance from the source to every node of the path
+     */
+    WGraph_Path(weighted_graph graph, int[] keys, double[] distances) {
+        this.graph = graph;
+        this.keys = keys;
+        this.distances = distances;
+    }
+
+    /**
+     * Return the number of nodes on the path (the source and the destination included).
+     * @return int
+     */
+    public int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Return the key of the i-th node of the path.
+     * @param i
+     * @return int
+     */
+    public int key(int i) {
+        return this.keys[i];
+    }
+
+    /**
+     * Return a copy of the keys of the nodes of the path.
+     * @return int[]
+     */
+    public int[] keys() {
+        return this.keys.clone();
+    }
+
+    /**
+     * Return the distance from the source to the i-th node of the path.
+     * @param i
+     * @return double
+     */
+    public double distance(int i) {
+        return this.distances[i];
+    }
+
+    /**
+     * Return the total weight of the path.
+     * @return double
+     */
+    public double cost() {
+        return this.distances[this.distances.length - 1];
+    }
+
+    /**
+     * Return the nodes of the path as a read-only list, every node is looked up when it's read.
+     * @return List<node_info>
+     */
+    public List<node_info> asList() {
+        return new AbstractList<node_info>() {
+            @Override
+            public node_info get(int index) {
+                return graph.getNode(keys[index]);
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    /**
+     * Two paths are equal iff they have the same nodes with the same distances.
+     * @param o
+     * @return boolean
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof WGraph_Path))
+            return false;
+        WGraph_Path other = (WGraph_Path) o;
+        return Arrays.equals(this.keys, other.keys) && Arrays.equals(this.distances, other.distances);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.keys);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.keys.length; i++) {
+            sb.append(i == 0 ? "" : "->").append(this.keys[i]);
+        }
+        return sb.append(String.format(" (%s)", cost())).toString();
+    }
+}
@@ -0,0 +1,172 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A batching layer for shortestPathDist queries - under load many queries share the same source, so instead of
+ * a whole search per query the queries are collected for a short window, grouped by their source and every
+ * group is answered by a single search (WGraph_Algo.shortestPathDists) that stops once all of its targets
+ * are settled.
+ * Explanation:
+ * Window - the pending queries are flushed every windowMillis, or as soon as there are maxBatch of them.
+ * Coalescing - queries with the same source and target (within a window) share the same future.
+ * Fan out - the groups of a flush are searched in parallel (on threads threads) and every future is completed
+ *           with the distance of its target (-1 if there is no path).
+ * The cost is latency - a query waits up to windowMillis for its batch, in exchange for throughput when the
+ * sources are skewed (see searches() against queries()).
+ */
+public class WGraph_QueryBatcher implements AutoCloseable {
+    private final WGraph_Algo algo;
+    private final ScheduledExecutorService executor;
+    private final int maxBatch;
+    private final Object lock = new Object();
+    private Map<Integer, Map<Integer, CompletableFuture<Double>>> pending = new HashMap<>();
+    private int pendingCount;
+    private boolean closed;
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * Create a batcher on the given graph.
+     * @param g - the graph (it shouldn't be changed while the batcher is used)
+     * @param windowMillis - how long queries are collected before they are answered
+     * @param maxBatch - the number of pending queries that flushes a batch before its window ends
+     * @param threads - the number of threads that search
+     */
+    public WGraph_QueryBatcher(weighted_graph g, long windowMillis, int maxBatch, int threads) {
+        if (windowMillis < 1 || maxBatch < 1 || threads < 1) {
+            throw new IllegalArgumentException("The window, the batch size and the threads must be positive");
+        }
+        this.algo = new WGraph_Algo();
+        this.algo.init(g);
+        this.maxBatch = maxBatch;
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(threads, task -> {
+            Thread thread = new Thread(task, "WGraph_QueryBatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = pool;
+        this.executor.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a query for the length of the shortest path between src to dest.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return CompletableFuture<Double> - -1 in it if there is no path
+     */
+    public CompletableFuture<Double> shortestPathDist(int src, int dest) {
+        this.queries.incrementAndGet();
+        boolean full;
+        CompletableFuture<Double> result;
+        synchronized (this.lock) {
+            if (this.closed) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(new RejectedExecutionException("The batcher is closed"));
+                return result;
+            }
+            Map<Integer, CompletableFuture<Double>> targets = this.pending.computeIfAbsent(src, s -> new LinkedHashMap<>());
+            result = targets.get(dest);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                targets.put(dest, result);
+                this.pendingCount++;
+            }
+            full = this.pendingCount >= this.maxBatch;
+        }
+        if (full) {
+            try {
+                this.executor.execute(this::flush);
+            } catch (RejectedExecutionException ex) {
+                // closing - close() flushes the pending queries
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Answer all the pending queries now (without waiting for the window to end).
+     */
+    public void flush() {
+        Map<Integer, Map<Integer, CompletableFuture<Double>>> batch;
+        synchronized (this.lock) {
+            if (this.pendingCount == 0) {
+                return;
+            }
+            batch = this.pending;
+            this.pending = new HashMap<>();
+            this.pendingCount = 0;
+        }
+        for (Map.Entry<Integer, Map<Integer, CompletableFuture<Double>>> group : batch.entrySet()) {
+            try {
+                this.executor.execute(() -> search(group.getKey(), group.getValue()));
+            } catch (RejectedExecutionException ex) {
+                search(group.getKey(), group.getValue()); // closing - answer it on the calling thread
+            }
+        }
+    }
+
+    /**
+     * Return the number of queries that were asked.
+     * @return long
+     */
+    public long queries() {
+        return this.queries.get();
+    }
+
+    /**
+     * Return the number of searches that answered them.
+     * @return long
+     */
+    public long searches() {
+        return this.searches.get();
+    }
+
+    /**
+     * Answer the pending queries and stop.
+     */
+    @Override
+    public void close() {
+        synchronized (this.lock) {
+            this.closed = true;
+        }
+        flush();
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void search(int src, Map<Integer, CompletableFuture<Double>> targets) {
+        List<CompletableFuture<Double>> futures = new ArrayList<>(targets.values());
+        int[] keys = new int[targets.size()];
+        int i = 0;
+        for (int target : targets.keySet()) {
+            keys[i++] = target;
+        }
+        try {
+            this.searches.incrementAndGet();
+            double[] distances = this.algo.shortestPathDists(src, keys);
+            for (i = 0; i < keys.length; i++) {
+                futures.get(i).complete(distances[i]);
+            }
+        } catch (RuntimeException ex) {
+            for (CompletableFuture<Double> future : futures) {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package ex1.src;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A service that answers many concurrent shortest path queries on a single graph (with a WGraph_Algo),
+ * keeping the latency of the queries bounded under bursts of load.
+ * Explanation:
+ * Thread per query - every query runs on a thread of its own, a virtual thread when the JVM has them
+ *                    (Executors.newVirtualThreadPerTaskExecutor, java 21+) and a cached platform thread otherwise.
+ * Admission control - at most maxConcurrent queries search at the same time and at most maxPending more wait for
+ *                     their turn, any query beyond that is rejected right away (RejectedExecutionException)
+ *                     instead of growing a queue whose every query would miss its deadline.
+ * Deadlines - every query has a timeout that covers both its waiting and its search. The search checks its
+ *             deadline (and whether its future was cancelled) while it settles vertices and stops in the middle,
+ *             so a late or cancelled query gives its place back right away. The future itself completes at the
+ *             deadline as well (by a timer), so a caller never waits past it even if the search is late to check.
+ * Statistics - the number of waiting and running queries, the number of rejected and timed out queries and
+ *              percentiles of the latency (from submit to result) of the last LATENCY_WINDOW queries.
+ * A query that fails completes its future exceptionally: RejectedExecutionException, TimeoutException,
+ * CancellationException (when the caller cancelled the future) or whatever the search threw (an Error too).
+ */
+public class WGraph_QueryService implements AutoCloseable {
+    private static final int LATENCY_WINDOW = 4096;
+
+    private final WGraph_Algo algo;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Semaphore running;
+    private final int maxConcurrent;
+    private final int maxAdmitted;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long latencyCount;
+
+    /**
+     * Create a service on the given graph.
+     * @param g - the graph (it shouldn't be changed while the service is used)
+     * @param maxConcurrent - the maximal number of queries that search at the same time
+     * @param maxPending - the maximal number of queries that wait for their turn
+     */
+    public WGraph_QueryService(weighted_graph g, int maxConcurrent, int maxPending) {
+        if (maxConcurrent < 1 || maxPending < 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive and maxPending can't be negative");
+        }
+        this.algo = new WGraph_Algo();
+        this.algo.init(g);
+        this.maxConcurrent = maxConcurrent;
+        this.maxAdmitted = maxConcurrent + maxPending;
+        this.running = new Semaphore(maxConcurrent, true);
+        ExecutorService virtual = virtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "WGraph_QueryService");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Find the shortest path between src to dest (see WGraph_Algo.shortestPath).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param timeoutMillis - the deadline of the query (waiting included)
+     * @return CompletableFuture<List<node_info>> - null in it if there is no path
+     */
+    public CompletableFuture<List<node_info>> shortestPath(int src, int dest, long timeoutMillis) {
+        return submit(cancelled -> this.algo.shortestPath(src, dest, cancelled), timeoutMillis);
+    }
+
+    /**
+     * Find the shortest path between src to dest as keys and distances (see WGraph_Algo.findPath).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param timeoutMillis - the deadline of the query (waiting included)
+     * @return CompletableFuture<WGraph_Path> - null in it if there is no path
+     */
+    public CompletableFuture<WGraph_Path> findPath(int src, int dest, long timeoutMillis) {
+        return submit(cancelled -> this.algo.findPath(src, dest, cancelled), timeoutMillis);
+    }
+
+    /**
+     * Find the length of the shortest path between src to dest (see WGraph_Algo.shortestPathDist).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param timeoutMillis - the deadline of the query (waiting included)
+     * @return CompletableFuture<Double> - -1 in it if there is no path
+     */
+    public CompletableFuture<Double> shortestPathDist(int src, int dest, long timeoutMillis) {
+        return submit(cancelled -> this.algo.shortestPathDist(src, dest, cancelled), timeoutMillis);
+    }
+
+    /**
+     * Return true iff the queries run on virtual threads.
+     * @return boolean
+     */
+    public boolean usesVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    /**
+     * Return the number of admitted queries that wait for their turn to search.
+     * @return int
+     */
+    public int queueDepth() {
+        return Math.max(0, this.admitted.get() - inFlight());
+    }
+
+    /**
+     * Return the number of queries that are searching right now.
+     * @return int
+     */
+    public int inFlight() {
+        return this.maxConcurrent - this.running.availablePermits();
+    }
+
+    /**
+     * Return the number of queries that were rejected by the admission control.
+     * @return long
+     */
+    public long rejected() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Return the number of queries that missed their deadline.
+     * @return long
+     */
+    public long timedOut() {
+        return this.timedOut.get();
+    }
+
+    /**
+     * Return the number of queries that were answered.
+     * @return long
+     */
+    public long completed() {
+        return this.completed.get();
+    }
+
+    /**
+     * Return a percentile of the latency of the last answered queries (from submit to result).
+     * @param percentile - between 0 and 100 (50 is the median)
+     * @return double - in milliseconds, 0 if no query was answered yet
+     */
+    public double latencyPercentile(double percentile) {
+        long[] window;
+        synchronized (this.latencies) {
+            window = Arrays.copyOf(this.latencies, (int) Math.min(this.latencyCount, LATENCY_WINDOW));
+        }
+        if (window.length == 0) {
+            return 0;
+        }
+        Arrays.sort(window);
+        int rank = (int) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * window.length) - 1;
+        return window[Math.max(rank, 0)] / 1e6;
+    }
+
+    /**
+     * Stop accepting queries and wait (a little) for the running ones.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Query<T> query, long timeoutMillis) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (this.admitted.incrementAndGet() > this.maxAdmitted) {
+            this.admitted.decrementAndGet();
+            this.rejected.incrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("Too many pending queries"));
+            return result;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            this.executor.execute(() -> run(query, result, start, deadline));
+            CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS, Runnable::run).execute(() -> timeout(result));
+        } catch (RejectedExecutionException ex) {
+            this.admitted.decrementAndGet();
+            this.rejected.incrementAndGet();
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    private <T> void run(Query<T> query, CompletableFuture<T> result, long start, long deadline) {
+        boolean acquired = false;
+        try {
+            acquired = this.running.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                timeout(result);
+                return;
+            }
+            if (result.isDone()) {
+                return; // cancelled while waiting
+            }
+            T answer = query.run(() -> result.isDone() || System.nanoTime() - deadline > 0);
+            if (!result.isDone()) {
+                // counted before the future completes, so a caller that got the answer sees it counted
+                this.completed.incrementAndGet();
+                record(System.nanoTime() - start);
+                result.complete(answer);
+            }
+        } catch (CancellationException ex) {
+            if (!result.isDone()) {
+                timeout(result);
+            }
+        } catch (InterruptedException ex) {
+            result.completeExceptionally(ex);
+            Thread.currentThread().interrupt();
+        } catch (Throwable ex) {
+            result.completeExceptionally(ex);
+        } finally {
+            if (acquired) {
+                this.running.release();
+            }
+            this.admitted.decrementAndGet();
+        }
+    }
+
+    private void timeout(CompletableFuture<?> result) {
+        if (!result.isDone()) {
+            // counted before the future completes (like completed) and taken back if the query won the race
+            this.timedOut.incrementAndGet();
+            if (!result.completeExceptionally(new TimeoutException("The query missed its deadline"))) {
+                this.timedOut.decrementAndGet();
+            }
+        }
+    }
+
+    private void record(long nanos) {
+        synchronized (this.latencies) {
+            this.latencies[(int) (this.latencyCount++ % LATENCY_WINDOW)] = nanos;
+        }
+    }
+
+    /**
+     * Return Executors.newVirtualThreadPerTaskExecutor() if this JVM has virtual threads, null otherwise.
+     * @return ExecutorService
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /** A search that stops with a CancellationException once cancelled returns true. */
+    @FunctionalInterface
+    private interface Query<T> {
+        T run(BooleanSupplier cancelled);
+    }
+}
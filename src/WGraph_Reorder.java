@@ -0,0 +1,277 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Locality aware reordering and partitioning of a weighted graph.
+ * The nodes of a graph are usually kept in hash order, so the neighbors of a node are scattered all over
+ * the memory and a search spends most of its time on cache misses. This class computes an order of the nodes
+ * in which neighbors get close positions, relabels a graph to dense keys 0..n-1 by that order (so a CSR
+ * layout like WGraph_OffHeap stores neighbors next to each other) and splits a graph into parts of
+ * consecutive positions.
+ *
+ * The order is Reverse Cuthill-McKee:
+ * see: https://en.wikipedia.org/wiki/Cuthill%E2%80%93McKee_algorithm
+ * Every connected component is walked in BFS order starting from its vertex with the smallest degree, the
+ * unvisited neighbors of a vertex are visited by increasing degree and the whole order is finally reversed.
+ */
+public class WGraph_Reorder {
+
+    private WGraph_Reorder() {
+    }
+
+    /**
+     * Returns the keys of the graph in Reverse Cuthill-McKee order (position i holds the key of the i-th node).
+     * @param g
+     * @return int[]
+     */
+    public static int[] reverseCuthillMcKee(weighted_graph g) {
+        int[] keys = keysOf(g);
+        int n = keys.length;
+        Map<Integer, Integer> index = indexOf(keys);
+        int[] degree = new int[n];
+        for (int i = 0; i < n; i++) {
+            degree[i] = g.getV(keys[i]).size();
+        }
+        Integer[] byDegree = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byDegree[i] = i;
+        }
+        Arrays.sort(byDegree, (a, b) -> Integer.compare(degree[a], degree[b]));
+
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int head = 0;
+        int tail = 0;
+        List<Integer> unvisited = new ArrayList<>();
+        for (int start : byDegree) {
+            if (visited[start]) {
+                continue;
+            }
+            visited[start] = true;
+            order[tail++] = start;
+            while (head < tail) {
+                int current = order[head++];
+                unvisited.clear();
+                g.forEachNeighbor(keys[current], (adjacentKey, weight) -> {
+                    int adjacent = index.get(adjacentKey);
+                    if (!visited[adjacent]) {
+                        visited[adjacent] = true;
+                        unvisited.add(adjacent);
+                    }
+                });
+                unvisited.sort((a, b) -> Integer.compare(degree[a], degree[b]));
+                for (int adjacent : unvisited) {
+                    order[tail++] = adjacent;
+                }
+            }
+        }
+        int[] ordered = new int[n];
+        for (int i = 0; i < n; i++) {
+            ordered[i] = keys[order[n - 1 - i]];
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns a copy of the graph where the node at position i of the order gets the key i
+     * (the tags are copied as well).
+     * @param g
+     * @param order - all the keys of the graph, each one once
+     * @return WGraph_DS
+     */
+    public static WGraph_DS relabel(weighted_graph g, int[] order) {
+        Map<Integer, Integer> newKey = indexOf(order);
+        if (order.length != g.nodeSize() || newKey.size() != order.length) {
+            throw new IllegalArgumentException("The order must hold every key of the graph exactly once");
+        }
+        WGraph_DS relabeled = new WGraph_DS();
+        for (int i = 0; i < order.length; i++) {
+            node_info node = g.getNode(order[i]);
+            relabeled.addNode(i);
+            relabeled.getNode(i).setTag(node.getTag());
+        }
+        for (int i = 0; i < order.length; i++) {
+            int key = i;
+            g.forEachNeighbor(order[i], (adjacentKey, weight) -> {
+                int adjacent = newKey.get(adjacentKey);
+                if (key < adjacent) {
+                    relabeled.connect(key, adjacent, weight);
+                }
+            });
+        }
+        return relabeled;
+    }
+
+    /**
+     * Split the graph into k parts of (almost) the same size, each part is a range of consecutive
+     * positions of the Reverse Cuthill-McKee order, so most of the edges stay inside a part.
+     * @param g
+     * @param k - the number of parts
+     * @return Map<Integer, Integer> - the part (0..k-1) of every key
+     */
+    public static Map<Integer, Integer> partition(weighted_graph g, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("The number of parts must be positive");
+        }
+        int[] order = reverseCuthillMcKee(g);
+        Map<Integer, Integer> parts = new HashMap<>();
+        for (int i = 0; i < order.length; i++) {
+            parts.put(order[i], (int) ((long) i * k / order.length));
+        }
+        return parts;
+    }
+
+    /**
+     * Measure the locality of the edges by an order - the mean and the maximum (bandwidth) distance
+     * between the positions of the two nodes of an edge and the share of edges whose nodes are at most
+     * NEAR positions apart.
+     * @param g
+     * @param order - all the keys of the graph, each one once
+     * @return double[] - {mean gap, max gap, share of near edges}
+     */
+    public static double[] edgeLocality(weighted_graph g, int[] order) {
+        Map<Integer, Integer> position = indexOf(order);
+        double[] sum = new double[3];
+        for (int key : order) {
+            int from = position.get(key);
+            g.forEachNeighbor(key, (adjacentKey, weight) -> {
+                int gap = Math.abs(position.get(adjacentKey) - from);
+                sum[0] += gap;
+                sum[1] = Math.max(sum[1], gap);
+                if (gap <= Report.NEAR) {
+                    sum[2]++;
+                }
+            });
+        }
+        double directed = Math.max(1, 2.0 * g.edgeSize());
+        return new double[]{sum[0] / directed, sum[1], sum[2] / directed};
+    }
+
+    /**
+     * Compare the current order of the graph (the order of getV()) to Reverse Cuthill-McKee:
+     * the locality of the edges by both orders and the time of shortestPathDist on two CSR copies of the graph
+     * (WGraph_OffHeap) - one in the current order and one relabeled by Reverse Cuthill-McKee.
+     * @param g
+     * @param queries - the number of (random) shortestPathDist queries to time
+     * @param seed - the seed of the queries
+     * @return Report
+     */
+    public static Report evaluate(weighted_graph g, int queries, long seed) {
+        int[] before = keysOf(g);
+        int[] after = reverseCuthillMcKee(g);
+        Report report = new Report();
+        report.before = edgeLocality(g, before);
+        report.after = edgeLocality(g, after);
+        if (before.length == 0 || queries <= 0) {
+            return report;
+        }
+        Map<Integer, Integer> newKey = indexOf(after);
+        Random rnd = new Random(seed);
+        int[][] pairs = new int[queries][2];
+        for (int[] pair : pairs) {
+            pair[0] = before[rnd.nextInt(before.length)];
+            pair[1] = before[rnd.nextInt(before.length)];
+        }
+        try (WGraph_OffHeap original = WGraph_OffHeap.of(g);
+             WGraph_OffHeap reordered = WGraph_OffHeap.of(relabel(g, after))) {
+            WGraph_Algo onOriginal = new WGraph_Algo();
+            onOriginal.init(original);
+            WGraph_Algo onReordered = new WGraph_Algo();
+            onReordered.init(reordered);
+            // warm up both of them before timing
+            onOriginal.shortestPathDist(pairs[0][0], pairs[0][1]);
+            onReordered.shortestPathDist(newKey.get(pairs[0][0]), newKey.get(pairs[0][1]));
+            long start = System.nanoTime();
+            for (int[] pair : pairs) {
+                onOriginal.shortestPathDist(pair[0], pair[1]);
+            }
+            report.originalNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int[] pair : pairs) {
+                onReordered.shortestPathDist(newKey.get(pair[0]), newKey.get(pair[1]));
+            }
+            report.reorderedNanos = System.nanoTime() - start;
+        }
+        return report;
+    }
+
+    private static int[] keysOf(weighted_graph g) {
+        Collection<node_info> nodes = g.getV();
+        int[] keys = new int[nodes.size()];
+        int i = 0;
+        for (node_info node : nodes) {
+            keys[i++] = node.getKey();
+        }
+        return keys;
+    }
+
+    private static Map<Integer, Integer> indexOf(int[] keys) {
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            index.put(keys[i], i);
+        }
+        return index;
+    }
+
+    /**
+     * The result of evaluate() - the locality of the edges before and after reordering and
+     * the time the shortestPathDist queries took on each order.
+     */
+    public static class Report {
+        /** Two positions that are at most NEAR apart are considered close in memory. */
+        public static final int NEAR = 64;
+
+        private double[] before;
+        private double[] after;
+        private long originalNanos;
+        private long reorderedNanos;
+
+        public double meanGapBefore() {
+            return before[0];
+        }
+
+        public double meanGapAfter() {
+            return after[0];
+        }
+
+        public double bandwidthBefore() {
+            return before[1];
+        }
+
+        public double bandwidthAfter() {
+            return after[1];
+        }
+
+        public double nearEdgesBefore() {
+            return before[2];
+        }
+
+        public double nearEdgesAfter() {
+            return after[2];
+        }
+
+        /**
+         * Return how many times shortestPathDist was faster on the reordered graph.
+         * @return double
+         */
+        public double speedup() {
+            return reorderedNanos == 0 ? 1 : (double) originalNanos / reorderedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mean gap %.1f -> %.1f, bandwidth %.0f -> %.0f, near edges %.1f%% -> %.1f%%, "
+                            + "shortestPathDist %.1fms -> %.1fms (x%.2f)",
+                    meanGapBefore(), meanGapAfter(), bandwidthBefore(), bandwidthAfter(),
+                    100 * nearEdgesBefore(), 100 * nearEdgesAfter(),
+                    originalNanos / 1e6, reorderedNanos / 1e6, speedup());
+        }
+    }
+}
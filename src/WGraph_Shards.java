@@ -0,0 +1,384 @@
+package ex1.src;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A weighted graph split into k shards where every shard can live in a JVM process of its own.
+ * A coordinator (this class) answers shortestPathDist by combining searches inside the shards with a search on
+ * a small overlay graph of the boundary nodes (nodes with an edge to another shard).
+ *
+ * Explanation:
+ * 1. The graph is split by WGraph_Reorder.partition (ranges of the Reverse Cuthill-McKee order), every shard gets
+ *    its nodes and the edges between them, the edges between shards (cut edges) stay in the coordinator.
+ * 2. Every shard computes the (intra shard) distances between each pair of its boundary nodes.
+ *    The overlay graph holds all the boundary nodes, the cut edges and an edge for every such distance.
+ * 3. A query src -> dest asks the shard of src for the distances from src to its boundary nodes and the shard of
+ *    dest for the distances from dest to its boundary nodes. Then a Dijkstra on the overlay starts from the boundary
+ *    nodes of src (each one with its distance from src) and the answer is the best boundary node of dest
+ *    (its overlay distance + its distance to dest) - or the intra shard distance if it is shorter
+ *    (when src and dest share a shard).
+ * Any path from src to dest is made of intra shard pieces between boundary nodes and cut edges, so the overlay
+ * covers all of them and the answer is exact.
+ *
+ * The shards talk to the coordinator over their stdin/stdout pipes (Java serialization of the shard and then
+ * a simple request/reply protocol), see Worker.
+ */
+public class WGraph_Shards implements AutoCloseable {
+    private static final int EXIT = 0;
+    private static final int DISTANCES = 1;
+
+    private final Map<Integer, Integer> shardOf;
+    private final List<int[]> boundary;
+    private final List<Shard> shards;
+    private final WGraph_DS overlay;
+
+    //A constructor that builds the overlay over the given (started) shards
+    private WGraph_Shards(Map<Integer, Integer> shardOf, List<int[]> boundary, List<Shard> shards,
+                          List<double[]> cutEdges) {
+        this.shardOf = shardOf;
+        this.boundary = boundary;
+        this.shards = shards;
+        this.overlay = new WGraph_DS();
+        for (int[] nodes : boundary) {
+            for (int key : nodes) {
+                this.overlay.addNode(key);
+            }
+        }
+        for (double[] edge : cutEdges) {
+            this.overlay.connect((int) edge[0], (int) edge[1], edge[2]);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, shards.size()));
+        try {
+            List<Future<double[][]>> matrices = new ArrayList<>();
+            for (int s = 0; s < shards.size(); s++) {
+                int shard = s;
+                matrices.add(pool.submit(() -> boundaryMatrix(shard)));
+            }
+            for (int s = 0; s < shards.size(); s++) {
+                int[] nodes = boundary.get(s);
+                double[][] matrix = matrices.get(s).get();
+                for (int i = 0; i < nodes.length; i++) {
+                    for (int j = i + 1; j < nodes.length; j++) {
+                        if (matrix[i][j] >= 0) {
+                            this.overlay.connect(nodes[i], nodes[j], matrix[i][j]);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            close();
+            throw new IllegalStateException("Failed to build the overlay of the shards", ex);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Split the graph into k shards that are served by the current JVM (mostly for testing).
+     * @param g
+     * @param k - the number of shards
+     * @return WGraph_Shards
+     */
+    public static WGraph_Shards inProcess(weighted_graph g, int k) {
+        Map<Integer, Integer> parts = WGraph_Reorder.partition(g, k);
+        List<WGraph_DS> subgraphs = new ArrayList<>();
+        List<int[]> boundary = new ArrayList<>();
+        List<double[]> cutEdges = new ArrayList<>();
+        split(g, k, parts, subgraphs, boundary, cutEdges);
+        List<Shard> shards = new ArrayList<>();
+        for (WGraph_DS subgraph : subgraphs) {
+            shards.add(new LocalShard(subgraph));
+        }
+        return new WGraph_Shards(parts, boundary, shards, cutEdges);
+    }
+
+    /**
+     * Split the graph into k shards, each one served by a new local JVM process
+     * (started with the java and the class path of the current JVM).
+     * @param g
+     * @param k - the number of shards
+     * @return WGraph_Shards
+     * @throws IOException - if a process could not be started
+     */
+    public static WGraph_Shards localProcesses(weighted_graph g, int k) throws IOException {
+        Map<Integer, Integer> parts = WGraph_Reorder.partition(g, k);
+        List<WGraph_DS> subgraphs = new ArrayList<>();
+        List<int[]> boundary = new ArrayList<>();
+        List<double[]> cutEdges = new ArrayList<>();
+        split(g, k, parts, subgraphs, boundary, cutEdges);
+        List<Shard> shards = new ArrayList<>();
+        try {
+            for (WGraph_DS subgraph : subgraphs) {
+                shards.add(new ProcessShard(subgraph));
+            }
+        } catch (IOException ex) {
+            for (Shard shard : shards) {
+                shard.close();
+            }
+            throw ex;
+        }
+        return new WGraph_Shards(parts, boundary, shards, cutEdges);
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest
+     * Note: if no such path --> returns -1
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return double
+     */
+    public double shortestPathDist(int src, int dest) {
+        Integer srcShard = this.shardOf.get(src);
+        Integer destShard = this.shardOf.get(dest);
+        if (srcShard == null || destShard == null) {
+            return -1;
+        }
+        int[] srcBoundary = this.boundary.get(srcShard);
+        int[] destBoundary = this.boundary.get(destShard);
+        double[] fromSrc = askShard(srcShard, src, srcBoundary, srcShard.equals(destShard) ? dest : null);
+        double[] toDest = askShard(destShard, dest, destBoundary, null);
+
+        double best = Double.MAX_VALUE;
+        if (srcShard.equals(destShard) && fromSrc[srcBoundary.length] >= 0) {
+            best = fromSrc[srcBoundary.length];
+        }
+        SearchState state = new SearchState();
+        for (int i = 0; i < srcBoundary.length; i++) {
+            if (fromSrc[i] >= 0) {
+                state.relax(srcBoundary[i], fromSrc[i], SearchState.NONE);
+            }
+        }
+        Map<Integer, Double> remaining = new HashMap<>();
+        for (int i = 0; i < destBoundary.length; i++) {
+            if (toDest[i] >= 0) {
+                remaining.put(destBoundary[i], toDest[i]);
+            }
+        }
+        while (!remaining.isEmpty() && state.settleNext()) {
+            int current = state.current();
+            double distance = state.distance(current);
+            if (distance >= best) {
+                break; // nothing that is settled from now on can improve the answer
+            }
+            Double last = remaining.remove(state.key(current));
+            if (last != null) {
+                best = Math.min(best, distance + last);
+            }
+            this.overlay.forEachNeighbor(state.key(current), (adjacentKey, weight) ->
+                    state.relax(adjacentKey, distance + weight, current));
+        }
+        return best == Double.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Return the number of shards.
+     * @return int
+     */
+    public int shardCount() {
+        return this.shards.size();
+    }
+
+    /**
+     * Return the shard of a node, -1 if there is no such node.
+     * @param key
+     * @return int
+     */
+    public int shardOf(int key) {
+        return this.shardOf.getOrDefault(key, -1);
+    }
+
+    /**
+     * Return the overlay graph (boundary nodes, cut edges and intra shard boundary distances).
+     * @return weighted_graph
+     */
+    public weighted_graph getOverlay() {
+        return this.overlay;
+    }
+
+    /**
+     * Stop all the shards.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : this.shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * Ask a shard for the distances from src to the targets (and to extra at the end, if given).
+     */
+    private double[] askShard(int shard, int src, int[] targets, Integer extra) {
+        int[] all = targets;
+        if (extra != null) {
+            all = Arrays.copyOf(targets, targets.length + 1);
+            all[targets.length] = extra;
+        }
+        try {
+            return this.shards.get(shard).distances(src, all);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private double[][] boundaryMatrix(int shard) throws IOException {
+        int[] nodes = this.boundary.get(shard);
+        double[][] matrix = new double[nodes.length][];
+        for (int i = 0; i < nodes.length; i++) {
+            matrix[i] = this.shards.get(shard).distances(nodes[i], nodes);
+        }
+        return matrix;
+    }
+
+    /**
+     * Split g by parts into k subgraphs, the boundary nodes of each one and the cut edges ({node1, node2, w}).
+     */
+    private static void split(weighted_graph g, int k, Map<Integer, Integer> parts, List<WGraph_DS> subgraphs,
+                              List<int[]> boundary, List<double[]> cutEdges) {
+        List<List<Integer>> boundaryLists = new ArrayList<>();
+        for (int s = 0; s < k; s++) {
+            subgraphs.add(new WGraph_DS());
+            boundaryLists.add(new ArrayList<>());
+        }
+        for (node_info node : g.getV()) {
+            subgraphs.get(parts.get(node.getKey())).addNode(node.getKey());
+        }
+        for (node_info node : g.getV()) {
+            int key = node.getKey();
+            int part = parts.get(key);
+            boolean[] isBoundary = {false};
+            g.forEachNeighbor(key, (adjacentKey, weight) -> {
+                if (parts.get(adjacentKey) != part) {
+                    isBoundary[0] = true;
+                    if (key < adjacentKey) {
+                        cutEdges.add(new double[]{key, adjacentKey, weight});
+                    }
+                }
+                else if (key < adjacentKey) {
+                    subgraphs.get(part).connect(key, adjacentKey, weight);
+                }
+            });
+            if (isBoundary[0]) {
+                boundaryLists.get(part).add(key);
+            }
+        }
+        for (List<Integer> list : boundaryLists) {
+            boundary.add(list.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /** A shard as the coordinator sees it. */
+    private interface Shard {
+        double[] distances(int src, int[] targets) throws IOException;
+
+        void close();
+    }
+
+    /** A shard that is served by the current JVM. */
+    private static class LocalShard implements Shard {
+        private final WGraph_Algo algo = new WGraph_Algo();
+
+        LocalShard(weighted_graph subgraph) {
+            this.algo.init(subgraph);
+        }
+
+        @Override
+        public double[] distances(int src, int[] targets) {
+            return this.algo.shortestPathDists(src, targets);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /** A shard that is served by a Worker in a process of its own. */
+    private static class ProcessShard implements Shard {
+        private final Process process;
+        private final ObjectOutputStream out;
+        private final ObjectInputStream in;
+
+        ProcessShard(WGraph_DS subgraph) throws IOException {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            this.process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Worker.class.getName())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            this.out = new ObjectOutputStream(new BufferedOutputStream(this.process.getOutputStream()));
+            this.out.writeObject(subgraph);
+            this.out.flush();
+            this.in = new ObjectInputStream(new BufferedInputStream(this.process.getInputStream()));
+        }
+
+        @Override
+        public synchronized double[] distances(int src, int[] targets) throws IOException {
+            this.out.writeInt(DISTANCES);
+            this.out.writeInt(src);
+            this.out.writeInt(targets.length);
+            for (int target : targets) {
+                this.out.writeInt(target);
+            }
+            this.out.flush();
+            double[] result = new double[targets.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = this.in.readDouble();
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                this.out.writeInt(EXIT);
+                this.out.flush();
+                this.process.waitFor();
+            } catch (IOException ex) {
+                this.process.destroy();
+            } catch (InterruptedException ex) {
+                this.process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The main class of a shard process.
+     * It reads its subgraph (a serialized WGraph_DS) from stdin and then answers requests until EXIT:
+     * DISTANCES src count target1..targetN -> N doubles (the distances from src, -1 for an unreachable target)
+     */
+    public static class Worker {
+        public static void main(String[] args) throws IOException, ClassNotFoundException {
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(System.in));
+            WGraph_Algo algo = new WGraph_Algo();
+            algo.init((WGraph_DS) in.readObject());
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(System.out));
+            out.flush();
+            while (in.readInt() == DISTANCES) {
+                int src = in.readInt();
+                int[] targets = new int[in.readInt()];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = in.readInt();
+                }
+                for (double distance : algo.shortestPathDists(src, targets)) {
+                    out.writeDouble(distance);
+                }
+                out.flush();
+            }
+        }
+    }
+}
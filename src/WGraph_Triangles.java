@@ -0,0 +1,299 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * The triangles of a weighted graph (the weights are ignored) and the clustering coefficients they give:
+ * local - the share of the pairs of neighbors of a node that are connected, 2*T(v) / (d(v)*(d(v)-1))
+ *         (0 for a node with fewer than 2 neighbors).
+ *         see: https://en.wikipedia.org/wiki/Clustering_coefficient
+ * average - the mean of the local coefficients of all the nodes.
+ * transitivity (global) - the share of the paths of length 2 (wedges) that are closed, 3*T / wedges.
+ * Explanation:
+ * The nodes are ranked by their degree (ties by key) and every edge is oriented from the lower rank to the
+ * higher, so every node keeps only its higher ranked neighbors - as ranks, in a sorted array (a CSR of |E|
+ * entries). A triangle u < v < w (by rank) is found exactly once - at u, when the list of u is intersected with
+ * the list of v. The orientation bounds every list by sqrt(2|E|), so a hub costs its forward list and not its
+ * degree squared (Chiba and Nishizeki, Schank and Wagner's "forward" algorithm).
+ * Two sorted lists are intersected by a merge, or by galloping (an exponential search of the longer list for
+ * every entry of the shorter one) when one is more than GALLOP_RATIO times longer than the other.
+ * The nodes are split between the threads of the common ForkJoinPool (a parallel IntStream) - every thread
+ * counts the triangles of its nodes and adds the triangles it finds to the other two nodes in an
+ * AtomicLongArray. Everything is counted once on construction, so the queries are O(1) (O(log n) by key).
+ * Note: the adjacency of the snapshot is indexed by int - up to 2^31 - 1 entries (about a billion edges).
+ */
+public class WGraph_Triangles {
+    private static final int GALLOP_RATIO = 16;
+
+    private final int[] keys;
+    private final int[] degrees;
+    private final long[] triangles;
+    private final long total;
+
+    private WGraph_Triangles(int[] keys, int[] degrees, long[] triangles, long total) {
+        this.keys = keys;
+        this.degrees = degrees;
+        this.triangles = triangles;
+        this.total = total;
+    }
+
+    /**
+     * Count the triangles of a graph in parallel.
+     * @param g
+     * @return WGraph_Triangles
+     */
+    public static WGraph_Triangles of(weighted_graph g) {
+        return of(g, true);
+    }
+
+    /**
+     * Count the triangles of a graph.
+     * @param g
+     * @param parallel - whether the nodes are split between the threads of the common ForkJoinPool
+     * @return WGraph_Triangles
+     */
+    public static WGraph_Triangles of(weighted_graph g, boolean parallel) {
+        Collection<node_info> nodes = g.getV();
+        int[] keys = new int[nodes.size()];
+        int i = 0;
+        for (node_info node : nodes) {
+            keys[i++] = node.getKey();
+        }
+        Arrays.sort(keys);
+        int n = keys.length;
+        // the adjacency lists as indexes of the sorted keys, in a single pass (like WGraph_BFS)
+        int[] offsets = new int[n + 1];
+        int[][] adjacent = {new int[Math.max(16, n)]};
+        int[] count = {0};
+        for (i = 0; i < n; i++) {
+            g.forEachNeighbor(keys[i], (key, w) -> {
+                if (count[0] == adjacent[0].length) {
+                    adjacent[0] = Arrays.copyOf(adjacent[0], (int) Math.min(Integer.MAX_VALUE - 8, 2L * count[0]));
+                }
+                adjacent[0][count[0]++] = key;
+            });
+            offsets[i + 1] = count[0];
+        }
+        int[] neighbors = adjacent[0];
+        boolean dense = n == 0 || (keys[0] == 0 && keys[n - 1] == n - 1);
+        int[] degrees = new int[n];
+        range(n, parallel).forEach(v -> {
+            degrees[v] = offsets[v + 1] - offsets[v];
+            if (!dense) {
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    neighbors[e] = Arrays.binarySearch(keys, neighbors[e]);
+                }
+            }
+        });
+        // rank by degree (ties by index) - a node of rank r is at index order[r]
+        long[] byDegree = new long[n];
+        for (int v = 0; v < n; v++) {
+            byDegree[v] = ((long) degrees[v] << 32) | v;
+        }
+        if (parallel) {
+            Arrays.parallelSort(byDegree);
+        }
+        else {
+            Arrays.sort(byDegree);
+        }
+        int[] order = new int[n];
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            order[r] = (int) byDegree[r];
+            rank[order[r]] = r;
+        }
+        // the forward lists - the higher ranked neighbors of every rank, sorted
+        int[] forwardOffsets = new int[n + 1];
+        for (int r = 0; r < n; r++) {
+            int v = order[r];
+            int forward = 0;
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (rank[neighbors[e]] > r) {
+                    forward++;
+                }
+            }
+            forwardOffsets[r + 1] = forwardOffsets[r] + forward;
+        }
+        int[] forward = new int[forwardOffsets[n]];
+        range(n, parallel).forEach(r -> {
+            int v = order[r];
+            int at = forwardOffsets[r];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int u = rank[neighbors[e]];
+                if (u > r) {
+                    forward[at++] = u;
+                }
+            }
+            Arrays.sort(forward, forwardOffsets[r], at);
+        });
+        // count - a triangle r < s < t is found at r, when the lists of r and s are intersected
+        AtomicLongArray found = new AtomicLongArray(n); // by rank
+        long total = range(n, parallel).mapToLong(r -> {
+            long atR = 0;
+            for (int e = forwardOffsets[r]; e < forwardOffsets[r + 1]; e++) {
+                int s = forward[e];
+                long atS = intersect(forward, e + 1, forwardOffsets[r + 1], forwardOffsets[s], forwardOffsets[s + 1], found);
+                if (atS > 0) {
+                    found.addAndGet(s, atS);
+                    atR += atS;
+                }
+            }
+            if (atR > 0) {
+                found.addAndGet(r, atR);
+            }
+            return atR;
+        }).sum();
+        long[] triangles = new long[n];
+        for (int r = 0; r < n; r++) {
+            triangles[order[r]] = found.get(r);
+        }
+        return new WGraph_Triangles(keys, degrees, triangles, total);
+    }
+
+    /**
+     * Return the number of triangles in the graph.
+     * @return long
+     */
+    public long total() {
+        return this.total;
+    }
+
+    /**
+     * Return the number of triangles a node is part of.
+     * @param key
+     * @return long - 0 if there is no such node
+     */
+    public long triangles(int key) {
+        int i = Arrays.binarySearch(this.keys, key);
+        return i < 0 ? 0 : this.triangles[i];
+    }
+
+    /**
+     * Return the local clustering coefficient of a node.
+     * @param key
+     * @return double - 0 if there is no such node (or it has fewer than 2 neighbors)
+     */
+    public double clustering(int key) {
+        int i = Arrays.binarySearch(this.keys, key);
+        return i < 0 ? 0 : local(i);
+    }
+
+    /**
+     * Return the local clustering coefficient of every node.
+     * @return Map<Integer, Double> - key -> clustering coefficient
+     */
+    public Map<Integer, Double> clusteringCoefficients() {
+        Map<Integer, Double> coefficients = new HashMap<>();
+        for (int i = 0; i < this.keys.length; i++) {
+            coefficients.put(this.keys[i], local(i));
+        }
+        return coefficients;
+    }
+
+    /**
+     * Return the mean of the local clustering coefficients of all the nodes.
+     * @return double - 0 for an empty graph
+     */
+    public double averageClustering() {
+        double sum = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            sum += local(i);
+        }
+        return this.keys.length == 0 ? 0 : sum / this.keys.length;
+    }
+
+    /**
+     * Return the number of paths of length 2 (a node and a pair of its neighbors).
+     * @return long
+     */
+    public long wedges() {
+        long wedges = 0;
+        for (int d : this.degrees) {
+            wedges += (long) d * (d - 1) / 2;
+        }
+        return wedges;
+    }
+
+    /**
+     * Return the transitivity (global clustering coefficient) - the share of the wedges that are closed.
+     * @return double - 0 if there are no wedges
+     */
+    public double transitivity() {
+        long wedges = wedges();
+        return wedges == 0 ? 0 : 3.0 * this.total / wedges;
+    }
+
+    private double local(int i) {
+        long d = this.degrees[i];
+        return d < 2 ? 0 : 2.0 * this.triangles[i] / (d * (d - 1));
+    }
+
+    private static IntStream range(int n, boolean parallel) {
+        IntStream range = IntStream.range(0, n);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * Intersect two sorted ranges of the same array, adding 1 to found of every common entry.
+     * @return long - the number of common entries
+     */
+    private static long intersect(int[] a, int from1, int to1, int from2, int to2, AtomicLongArray found) {
+        int length1 = to1 - from1;
+        int length2 = to2 - from2;
+        if (length1 == 0 || length2 == 0) {
+            return 0;
+        }
+        if (length1 > length2) {
+            return intersect(a, from2, to2, from1, to1, found);
+        }
+        long common = 0;
+        if ((long) length1 * GALLOP_RATIO < length2) {
+            // gallop - every entry of the short range is searched in the rest of the long one
+            int low = from2;
+            for (int i = from1; i < to1 && low < to2; i++) {
+                int x = a[i];
+                int step = 1;
+                int high = low;
+                while (high < to2 && a[high] < x) {
+                    low = high + 1;
+                    high += step;
+                    step <<= 1;
+                }
+                int at = Arrays.binarySearch(a, low, Math.min(high + 1, to2), x);
+                if (at >= 0) {
+                    found.incrementAndGet(x);
+                    common++;
+                    low = at + 1;
+                }
+                else {
+                    low = -at - 1;
+                }
+            }
+            return common;
+        }
+        int i = from1;
+        int j = from2;
+        while (i < to1 && j < to2) {
+            int x = a[i];
+            int y = a[j];
+            if (x < y) {
+                i++;
+            }
+            else if (x > y) {
+                j++;
+            }
+            else {
+                found.incrementAndGet(x);
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return common;
+    }
+}
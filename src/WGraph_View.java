@@ -0,0 +1,444 @@
+package ex1.src;
+
+import java.util.AbstractCollection;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+/**
+ * A read-only view of another weighted graph without some of its nodes and edges and with some of its weights
+ * changed, for "what-if" questions (route around a closed road, a failed node, a slower link) without copying
+ * the graph - WGraph_Algo runs on a view like on any other weighted_graph.
+ * A view is defined by:
+ * masks - nodes and edges that were taken out (withoutNode, withoutNodes(BitSet) and withoutEdge).
+ * filters - predicates a node or an edge must pass (filterNodes, filterEdges).
+ * weights - edges whose weight is overridden (withWeight).
+ * Explanation:
+ * Nothing is copied - every call goes to the underlying graph and the result is filtered on the way,
+ * so creating a view costs the size of its masks. The masks are checked in O(1) without boxing (a BitSet
+ * and LongDoubleHashMaps keyed by the node or by the edge, like in WGraph_DS) and an empty mask isn't probed at
+ * all, so a search on a view costs about the same as a search on the graph itself. The neighbors the underlying
+ * graph gives are in it by definition, so forEachNeighbor checks only the masks and the filters of them.
+ * nodeSize/edgeSize/getV().size() are computed from the masks when there are no filters, otherwise they
+ * count the nodes (and edges) that pass the filters.
+ * Note: the view follows the changes of the underlying graph (it is a view, not a snapshot).
+ */
+public class WGraph_View implements weighted_graph {
+    private final weighted_graph graph;
+    private final LongDoubleHashMap removedNodes = new LongDoubleHashMap(); // the keys of withoutNode
+    private BitSet nodeMask;
+    private final LongDoubleHashMap removedEdges = new LongDoubleHashMap();
+    private final LongDoubleHashMap weights = new LongDoubleHashMap();
+    private IntPredicate nodeFilter;
+    private EdgeFilter edgeFilter;
+    private int MC;
+
+    /**
+     * Create a view of the whole graph (without any mask yet).
+     * @param graph
+     */
+    public WGraph_View(weighted_graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Take a node (and its edges) out of the view.
+     * @param key
+     * @return WGraph_View
+     */
+    public WGraph_View withoutNode(int key) {
+        if (this.removedNodes.put(key, 0)) {
+            this.MC++;
+        }
+        return this;
+    }
+
+    /**
+     * Take all the nodes whose (non negative) key is set in the mask out of the view.
+     * The BitSet is not copied - changing it changes the view (call withoutNodes again afterward, so the mode
+     * count changes and whoever caches by it - like WGraph_Algo - sees the change).
+     * @param mask
+     * @return WGraph_View
+     */
+    public WGraph_View withoutNodes(BitSet mask) {
+        this.nodeMask = mask;
+        this.MC++;
+        return this;
+    }
+
+    /**
+     * Take an edge out of the view.
+     * @param node1
+     * @param node2
+     * @return WGraph_View
+     */
+    public WGraph_View withoutEdge(int node1, int node2) {
+        if (this.removedEdges.put(WGraph_DS.edgeKey(node1, node2), 0)) {
+            this.MC++;
+        }
+        return this;
+    }
+
+    /**
+     * Override the weight of an existing edge of the underlying graph.
+     * @param node1
+     * @param node2
+     * @param w - the new weight
+     * @return WGraph_View
+     */
+    public WGraph_View withWeight(int node1, int node2, double w) {
+        if (!this.graph.hasEdge(node1, node2)) {
+            throw new IllegalArgumentException(String.format("There is no edge between %d and %d", node1, node2));
+        }
+        this.weights.put(WGraph_DS.edgeKey(node1, node2), w);
+        this.MC++;
+        return this;
+    }
+
+    /**
+     * Keep only the nodes that pass the filter (on top of the masks).
+     * @param filter - null to remove the filter
+     * @return WGraph_View
+     */
+    public WGraph_View filterNodes(IntPredicate filter) {
+        this.nodeFilter = filter;
+        this.MC++;
+        return this;
+    }
+
+    /**
+     * Keep only the edges that pass the filter (on top of the masks), the filter sees the original weight.
+     * @param filter - null to remove the filter
+     * @return WGraph_View
+     */
+    public WGraph_View filterEdges(EdgeFilter filter) {
+        this.edgeFilter = filter;
+        this.MC++;
+        return this;
+    }
+
+    /**
+     * Return the underlying graph.
+     * @return weighted_graph
+     */
+    public weighted_graph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * return the node_data by the node_id,
+     * @param key - the node_id
+     * @return the node_data by the node_id, null if none (or not in the view).
+     */
+    @Override
+    public node_info getNode(int key) {
+        return isVisible(key) ? this.graph.getNode(key) : null;
+    }
+
+    /**
+     * return true iff (if and only if) there is an edge between node1 and node2 in the view.
+     * @param node1
+     * @param node2
+     * @return boolean
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return getEdge(node1, node2) != -1;
+    }
+
+    /**
+     * return the weight of the edge (node1, node2) in the view (the overridden one if there is).
+     * In case there is no such edge - should return -1
+     * @param node1
+     * @param node2
+     * @return double
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        if (!isVisible(node1) || !isVisible(node2)) {
+            return -1;
+        }
+        double w = this.graph.getEdge(node1, node2);
+        if (w == -1) {
+            return -1;
+        }
+        return weightOf(node1, node2, w);
+    }
+
+    /**
+     * Not supported - a view is read-only (change its masks or the underlying graph).
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_View is read-only");
+    }
+
+    /**
+     * Not supported - a view is read-only (change its masks or the underlying graph).
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_View is read-only");
+    }
+
+    /**
+     * Returns a view of the nodes that are in the view.
+     * @return Collection<node_info>
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new Filtered(this.graph.getV()) {
+            @Override
+            public int size() {
+                return nodeSize();
+            }
+        };
+    }
+
+    /**
+     * Returns the nodes that are connected to node_id in the view.
+     * @param node_id
+     * @return Collection<node_info>
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        existing(node_id);
+        return new Filtered(this.graph.getV(node_id)) {
+            @Override
+            boolean accept(node_info node) {
+                return hasEdge(node_id, node.getKey());
+            }
+        };
+    }
+
+    /**
+     * Performs the given action on every neighbor of node_id in the view (with the weight of the view).
+     * @param node_id
+     * @param action
+     */
+    @Override
+    public void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+        existing(node_id);
+        this.graph.forEachNeighbor(node_id, (adjacentKey, w) -> {
+            if (!isHidden(adjacentKey)) { // a neighbor of the graph is in it, only the masks are checked
+                double weight = weightOf(node_id, adjacentKey, w);
+                if (weight != -1) {
+                    action.accept(adjacentKey, weight);
+                }
+            }
+        });
+    }
+
+    /**
+     * Not supported - a view is read-only (use withoutNode).
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_View is read-only");
+    }
+
+    /**
+     * Not supported - a view is read-only (use withoutEdge).
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_View is read-only");
+    }
+
+    /** return the number of vertices (nodes) in the view.
+     * Note: O(mask) without a node filter, O(n) with one.
+     * @return int
+     */
+    @Override
+    public int nodeSize() {
+        if (this.nodeFilter != null) {
+            int count = 0;
+            for (node_info node : this.graph.getV()) {
+                if (isVisible(node.getKey())) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int[] removed = {0};
+        this.removedNodes.forEach((key, ignored) -> {
+            if (this.graph.getNode((int) key) != null && !isMasked((int) key)) {
+                removed[0]++;
+            }
+        });
+        if (this.nodeMask != null) {
+            for (int key = this.nodeMask.nextSetBit(0); key >= 0; key = this.nodeMask.nextSetBit(key + 1)) {
+                if (this.graph.getNode(key) != null) {
+                    removed[0]++;
+                }
+            }
+        }
+        return this.graph.nodeSize() - removed[0];
+    }
+
+    /**
+     * return the number of edges in the view.
+     * Note: O(the edges of the masked nodes) without filters, O(n+e) with them.
+     * @return int
+     */
+    @Override
+    public int edgeSize() {
+        if (this.nodeFilter != null || this.edgeFilter != null) {
+            int directed = 0;
+            for (node_info node : this.graph.getV()) {
+                if (isVisible(node.getKey())) {
+                    int[] count = {0};
+                    forEachNeighbor(node.getKey(), (adjacentKey, w) -> count[0]++);
+                    directed += count[0];
+                }
+            }
+            return directed / 2;
+        }
+        // the edges of the hidden nodes (an edge between two hidden nodes is counted once)
+        LongDoubleHashMap hidden = new LongDoubleHashMap();
+        hiddenNodes().forEach((node, ignored) -> {
+            int key = (int) node;
+            this.graph.forEachNeighbor(key, (adjacentKey, w) -> hidden.put(WGraph_DS.edgeKey(key, adjacentKey), 0));
+        });
+        int[] removed = {hidden.size()};
+        this.removedEdges.forEach((edge, ignored) -> {
+            int node1 = (int) (edge >> 32);
+            int node2 = (int) edge;
+            if (!hidden.containsKey(edge) && this.graph.hasEdge(node1, node2)) {
+                removed[0]++;
+            }
+        });
+        return this.graph.edgeSize() - removed[0];
+    }
+
+    /**
+     * The mode count of the view - changes of the underlying graph and of the masks.
+     * @return int
+     */
+    @Override
+    public int getMC() {
+        return this.graph.getMC() + this.MC;
+    }
+
+    private boolean isMasked(int key) {
+        return this.nodeMask != null && key >= 0 && this.nodeMask.get(key);
+    }
+
+    /**
+     * Return true iff the masks or the node filter take the key out of the view (whether or not it's a node).
+     */
+    private boolean isHidden(int key) {
+        return (this.removedNodes.size() != 0 && this.removedNodes.containsKey(key)) || isMasked(key)
+                || (this.nodeFilter != null && !this.nodeFilter.test(key));
+    }
+
+    private boolean isVisible(int key) {
+        return !isHidden(key) && this.graph.getNode(key) != null;
+    }
+
+    /**
+     * Return the nodes of the underlying graph that the masks take out, as keys of a LongDoubleHashMap.
+     */
+    private LongDoubleHashMap hiddenNodes() {
+        LongDoubleHashMap hidden = new LongDoubleHashMap();
+        this.removedNodes.forEach((key, ignored) -> {
+            if (this.graph.getNode((int) key) != null) {
+                hidden.put(key, 0);
+            }
+        });
+        if (this.nodeMask != null) {
+            for (int key = this.nodeMask.nextSetBit(0); key >= 0; key = this.nodeMask.nextSetBit(key + 1)) {
+                if (this.graph.getNode(key) != null) {
+                    hidden.put(key, 0);
+                }
+            }
+        }
+        return hidden;
+    }
+
+    /**
+     * Return the weight of an edge of the underlying graph in the view, -1 if the edge is not in the view.
+     */
+    private double weightOf(int node1, int node2, double w) {
+        if (this.removedEdges.size() == 0 && this.weights.size() == 0) {
+            return this.edgeFilter == null || this.edgeFilter.test(node1, node2, w) ? w : -1;
+        }
+        long edge = WGraph_DS.edgeKey(node1, node2);
+        if (this.removedEdges.containsKey(edge) || (this.edgeFilter != null && !this.edgeFilter.test(node1, node2, w))) {
+            return -1;
+        }
+        return this.weights.get(edge, w);
+    }
+
+    private void existing(int key) {
+        if (!isVisible(key)) {
+            throw new IllegalArgumentException(String.format("Node %d does not exist", key));
+        }
+    }
+
+    // -----------------------------------INNER CLASSES--------------------------------
+    /**
+     * Represents a predicate on an edge - its two nodes and its weight.
+     */
+    @FunctionalInterface
+    public interface EdgeFilter {
+        boolean test(int node1, int node2, double w);
+    }
+
+    /** The nodes of a collection of the underlying graph that are in the view. */
+    private class Filtered extends AbstractCollection<node_info> {
+        private final Collection<node_info> nodes;
+
+        Filtered(Collection<node_info> nodes) {
+            this.nodes = nodes;
+        }
+
+        boolean accept(node_info node) {
+            return isVisible(node.getKey());
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            Iterator<node_info> all = this.nodes.iterator();
+            return new Iterator<node_info>() {
+                private node_info next = advance();
+
+                private node_info advance() {
+                    while (all.hasNext()) {
+                        node_info node = all.next();
+                        if (accept(node)) {
+                            return node;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != null;
+                }
+
+                @Override
+                public node_info next() {
+                    if (this.next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    node_info current = this.next;
+                    this.next = advance();
+                    return current;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int count = 0;
+            for (node_info ignored : this) {
+                count++;
+            }
+            return count;
+        }
+    }
+}
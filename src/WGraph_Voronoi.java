@@ -0,0 +1,120 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * A graph Voronoi partition - the nearest source of every node that a multi-source search reached
+ * and the distance to it (see WGraph_Algo.voronoi).
+ * The reached nodes are kept in the order the search settled them (by increasing distance) in primitive
+ * arrays, and a primitive map (LongDoubleHashMap) from a key to its position answers the queries of a single node.
+ * A node that no source reaches (or that doesn't exist) has -1 as its source and as its distance.
+ */
+public class WGraph_Voronoi {
+    private final int[] keys;
+    private final int[] sources;
+    private final double[] distances;
+    private final LongDoubleHashMap positions;
+
+    /**
+     * Create a partition, the arrays are kept as they are.
+     * @param keys - the reached nodes by increasing distance
+     * @param sources - the nearest source of every reached node
+     * @param distances - the distance from every reached node to its nearest source
+     */
+    WGraph_Voronoi(int[] keys, int[] sources, double[] distances) {
+        this.keys = keys;
+        this.sources = sources;
+        this.distances = distances;
+        this.positions = new LongDoubleHashMap();
+        for (int i = 0; i < keys.length; i++) {
+            this.positions.put(keys[i], i);
+        }
+    }
+
+    /**
+     * Return the number of nodes that were reached from any source.
+     * @return int
+     */
+    public int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Return the key of the i-th closest node (to its nearest source).
+     * @param i
+     * @return int
+     */
+    public int key(int i) {
+        return this.keys[i];
+    }
+
+    /**
+     * Return the nearest source of the i-th closest node.
+     * @param i
+     * @return int
+     */
+    public int source(int i) {
+        return this.sources[i];
+    }
+
+    /**
+     * Return the distance of the i-th closest node from its nearest source.
+     * @param i
+     * @return double
+     */
+    public double distance(int i) {
+        return this.distances[i];
+    }
+
+    /**
+     * Return true iff a path from some source reaches the node.
+     * @param key
+     * @return boolean
+     */
+    public boolean isReached(int key) {
+        return this.positions.containsKey(key);
+    }
+
+    /**
+     * Return the nearest source of a node, -1 if no source reaches it (see isReached for a source whose key is -1).
+     * @param key
+     * @return int
+     */
+    public int sourceOf(int key) {
+        int position = positionOf(key);
+        return position < 0 ? -1 : this.sources[position];
+    }
+
+    /**
+     * Return the distance from a node to its nearest source, -1 if no source reaches it.
+     * @param key
+     * @return double
+     */
+    public double distanceOf(int key) {
+        int position = positionOf(key);
+        return position < 0 ? -1 : this.distances[position];
+    }
+
+    /**
+     * Return the keys of the cell of a source - all the nodes whose nearest source it is, by increasing distance.
+     * @param source
+     * @return int[]
+     */
+    public int[] cell(int source) {
+        int[] cell = new int[16];
+        int count = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.sources[i] == source) {
+                if (count == cell.length) {
+                    cell = Arrays.copyOf(cell, count * 2);
+                }
+                cell[count++] = this.keys[i];
+            }
+        }
+        return Arrays.copyOf(cell, count);
+    }
+
+    private int positionOf(int key) {
+        return (int) this.positions.get(key, -1);
+    }
+}
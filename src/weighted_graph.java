@@ -60,6 +60,18 @@ public interface weighted_graph {
      * @return Collection<node_data>
      */
     public Collection<node_info> getV(int node_id);
+    /**
+     * Performs the given action on every neighbor of node_id with the key of the neighbor
+     * and the weight of the edge to it - without creating node_info objects.
+     * Note: this method can run in O(k) time, k - being the degree of node_id.
+     * @param node_id
+     * @param action
+     */
+    public default void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+        for (node_info adjacent : getV(node_id)) {
+            action.accept(adjacent.getKey(), getEdge(node_id, adjacent.getKey()));
+        }
+    }
     /**
      * Delete the node (with the given ID) from the graph -
      * and removes all edges which starts or ends at this node.
@@ -3,7 +3,11 @@ package ex1.tests;
 import ex1.src.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,6 +67,131 @@ class WGraph_AlgoTest {
         }
     }
     
+    @Test
+    void findPath() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        WGraph_Path path = ag0.findPath(0, 10);
+        assertArrayEquals(new int[]{0, 1, 5, 7, 10}, path.keys());
+        assertEquals(ag0.shortestPathDist(0, 10), path.cost());
+        assertEquals(0, path.distance(0));
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(path.distance(i - 1) + g0.getEdge(path.key(i - 1), path.key(i)), path.distance(i), 0.0000001);
+        }
+        assertEquals(5, path.asList().size());
+        assertSame(g0.getNode(7), path.asList().get(3));
+        assertEquals(path, ag0.findPath(0, 10));
+        assertEquals(1, ag0.findPath(4, 4).size());
+        assertNull(ag0.findPath(0, 11));
+    }
+
+    @Test
+    void voronoi() {
+        weighted_graph g0 = WGraph_DSTest.graph_creator(200, 500, 12);
+        g0.addNode(999); // unreachable
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        int[] sources = {4, 80, 150, 1000};
+        WGraph_Voronoi cells = ag0.voronoi(sources);
+        int reached = 0;
+        for (node_info n : g0.getV()) {
+            double best = -1;
+            for (int source : new int[]{4, 80, 150}) {
+                double d = ag0.shortestPathDist(source, n.getKey());
+                if (d >= 0 && (best < 0 || d < best)) {
+                    best = d;
+                }
+            }
+            assertEquals(best, cells.distanceOf(n.getKey()), 0.0000001);
+            if (best >= 0) {
+                reached++;
+                assertEquals(best, ag0.shortestPathDist(cells.sourceOf(n.getKey()), n.getKey()), 0.0000001);
+            }
+        }
+        assertEquals(reached, cells.size());
+        assertFalse(cells.isReached(999));
+        assertEquals(-1, cells.sourceOf(999)); // like distanceOf
+        assertEquals(-1, cells.sourceOf(12345));
+        assertEquals(4, cells.sourceOf(4));
+        assertEquals(cells.size(), cells.cell(4).length + cells.cell(80).length + cells.cell(150).length);
+        for (int i = 1; i < cells.size(); i++) {
+            assertTrue(cells.distance(i - 1) <= cells.distance(i));
+        }
+    }
+
+    @Test
+    void noPath() {
+        weighted_graph g0 = WGraph_DSTest.graph_creator(3, 0, 1);
+        g0.connect(0, 1, 2);
+        weighted_graph_algorithms ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        assertEquals(-1, ag0.shortestPathDist(0, 2));
+        assertNull(ag0.shortestPath(0, 2));
+        assertEquals(2, ag0.shortestPath(1, 0).size());
+    }
+
+    @Test
+    void withinRadius() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        List<Map.Entry<node_info, Double>> ball = ag0.withinRadius(0, 3, null);
+        Set<Integer> keys = new HashSet<>();
+        double last = 0;
+        for (Map.Entry<node_info, Double> e : ball) {
+            assertTrue(e.getValue() >= last);
+            assertTrue(e.getValue() <= 3);
+            last = e.getValue();
+            keys.add(e.getKey().getKey());
+        }
+        assertEquals(Set.of(0, 1, 2, 3, 4, 5), keys);
+        assertEquals(0, ag0.withinRadius(0, -1, null).size());
+        assertEquals(0, ag0.withinRadius(42, 10, null).size());
+    }
+
+    @Test
+    void kNearest() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        List<Map.Entry<node_info, Double>> far = ag0.kNearest(0, 3, n -> n.getKey() > 5);
+        int[] checkKey = {7, 10, 9};
+        double[] checkDist = {3.1, 5.1, 13};
+        for (int i = 0; i < checkKey.length; i++) {
+            assertEquals(checkKey[i], far.get(i).getKey().getKey());
+            assertEquals(checkDist[i], far.get(i).getValue(), 0.0001);
+        }
+        assertEquals(11, ag0.kNearest(0, 100, null).size());
+    }
+
+    @Test
+    void kShortestPaths() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        double[] checkDist = {5.1, 16.1, 24.1, 33};
+        for (boolean parallel : new boolean[]{false, true}) {
+            Iterator<List<node_info>> paths = ag0.kShortestPaths(0, 10, parallel);
+            for (double expected : checkDist) {
+                assertTrue(paths.hasNext());
+                List<node_info> path = paths.next();
+                assertEquals(0, path.get(0).getKey());
+                assertEquals(10, path.get(path.size() - 1).getKey());
+                Set<node_info> loopless = new HashSet<>(path);
+                assertEquals(path.size(), loopless.size());
+                double dist = 0;
+                for (int i = 1; i < path.size(); i++) {
+                    dist += g0.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+                }
+                assertEquals(expected, dist, 0.0001);
+            }
+        }
+        Iterator<List<node_info>> single = ag0.kShortestPaths(9, 9);
+        assertEquals(1, single.next().size());
+        assertFalse(single.hasNext());
+    }
+
     @Test
     void save_load() {
         weighted_graph g0 = WGraph_DSTest.graph_creator(10,30,1);
@@ -0,0 +1,112 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_BFSTest {
+
+    @Test
+    void sameAsUnitWeights() {
+        for (int seed = 1; seed <= 3; seed++) {
+            weighted_graph g = new WGraph_DS();
+            // a big dense part (bottom-up levels) with a long tail (top-down levels) and another component
+            WGraph_Generator.barabasiAlbert(20000, 5, WGraph_Generator.Weights.constant(1), seed, WGraph_Generator.Sink.of(g));
+            for (int i = 20000; i < 20100; i++) {
+                g.addNode(i);
+                g.connect(i, i - 1, 1);
+            }
+            g.addNode(-1);
+            g.addNode(-2);
+            g.connect(-1, -2, 7);
+            WGraph_Algo algo = new WGraph_Algo();
+            algo.init(g);
+            for (boolean parallel : new boolean[]{false, true}) {
+                WGraph_BFS bfs = WGraph_BFS.of(g, parallel);
+                Map<Integer, Integer> hops = bfs.hopsFrom(20099);
+                assertEquals(20100, hops.size());
+                assertEquals(20100, bfs.reachable(0));
+                assertFalse(bfs.isConnected());
+                for (int dest : new int[]{0, 1, 500, 19999, 20050, 20099, -1}) {
+                    double expected = algo.shortestPathDist(20099, dest);
+                    assertEquals(expected, bfs.hops(20099, dest));
+                    assertEquals(expected, dest == -1 ? -1 : hops.get(dest));
+                    int[] path = bfs.path(20099, dest);
+                    if (expected < 0) {
+                        assertNull(path);
+                        continue;
+                    }
+                    assertEquals(expected + 1, path.length);
+                    assertEquals(20099, path[0]);
+                    assertEquals(dest, path[path.length - 1]);
+                    for (int i = 1; i < path.length; i++) {
+                        assertTrue(g.hasEdge(path[i - 1], path[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void algo() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 5; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 10);
+        g.connect(1, 2, 10);
+        g.connect(0, 3, 1);
+        g.connect(3, 4, 1);
+        g.connect(4, 2, 1);
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        assertTrue(algo.isConnected());
+        assertEquals(2, algo.hopDistance(0, 2));
+        assertEquals(3, algo.shortestPathDist(0, 2));
+        List<node_info> path = algo.hopPath(0, 2);
+        assertEquals(3, path.size());
+        assertEquals(1, path.get(1).getKey());
+        g.removeEdge(1, 2);
+        g.removeEdge(4, 2);
+        assertFalse(algo.isConnected()); // the snapshot follows the mode count
+        assertFalse(algo.isReachable(0, 2));
+        assertEquals(-1, algo.hopDistance(0, 2));
+        assertNull(algo.hopPath(0, 2));
+        assertEquals(-1, algo.hopDistance(0, 99));
+        assertTrue(algo.isReachable(1, 4));
+        algo.init(new WGraph_DS());
+        assertTrue(algo.isConnected());
+    }
+
+    @Test
+    void anotherGraphSameModeCount() throws Exception {
+        weighted_graph connected = new WGraph_DS();
+        connected.addNode(0);
+        connected.addNode(1);
+        connected.connect(0, 1, 1);
+        weighted_graph apart = new WGraph_DS();
+        apart.addNode(0);
+        apart.addNode(1);
+        apart.addNode(2);
+        assertEquals(connected.getMC(), apart.getMC());
+        String file = Files.createTempDirectory("bfs").resolve("g").toString();
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(apart);
+        assertTrue(algo.save(file));
+        algo.init(connected);
+        assertTrue(algo.isConnected());
+        assertTrue(algo.load(file)); // the loaded graph keeps the mode count
+        assertEquals(connected.getMC(), algo.getGraph().getMC());
+        assertFalse(algo.isConnected());
+        assertEquals(-1, algo.hopDistance(0, 1));
+        algo.init(connected);
+        assertEquals(1, algo.hopDistance(0, 1));
+        algo.init(apart);
+        assertFalse(algo.isReachable(0, 1));
+    }
+}
@@ -0,0 +1,119 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_CentralityTest {
+
+    @Test
+    void smallGraphs() {
+        weighted_graph line = WGraph_DSTest.graph_creator(4, 0, 1);
+        line.connect(0, 1, 1);
+        line.connect(1, 2, 1);
+        line.connect(2, 3, 1);
+        Map<Integer, Double> b = WGraph_Centrality.betweenness(line);
+        assertEquals(0, b.get(0), 0.0000001);
+        assertEquals(2, b.get(1), 0.0000001);
+        assertEquals(2, b.get(2), 0.0000001);
+        Map<Integer, Double> c = WGraph_Centrality.closeness(line);
+        assertEquals(0.5, c.get(0), 0.0000001);
+        assertEquals(0.75, c.get(1), 0.0000001);
+
+        weighted_graph square = WGraph_DSTest.graph_creator(5, 0, 1);
+        square.connect(0, 1, 2);
+        square.connect(1, 2, 2);
+        square.connect(2, 3, 2);
+        square.connect(3, 0, 2);
+        b = WGraph_Centrality.betweenness(square);
+        for (int key = 0; key < 4; key++) {
+            assertEquals(0.5, b.get(key), 0.0000001);
+        }
+        assertEquals(0, WGraph_Centrality.closeness(square).get(4), 0.0000001);
+    }
+
+    @Test
+    void bruteForce() {
+        Random rnd = new Random(5);
+        int n = 40;
+        weighted_graph g = WGraph_DSTest.graph_creator(n, 0, 1);
+        for (int i = 0; i < 90; i++) {
+            int a = rnd.nextInt(n);
+            int b = rnd.nextInt(n);
+            if (a != b) {
+                g.connect(a, b, 1 + rnd.nextInt(3)); // small integers, so there are ties
+            }
+        }
+        double[][] d = new double[n][n];
+        double[][] sigma = new double[n][n];
+        for (int s = 0; s < n; s++) {
+            for (int t = 0; t < n; t++) {
+                d[s][t] = s == t ? 0 : (g.hasEdge(s, t) ? g.getEdge(s, t) : Double.MAX_VALUE);
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int s = 0; s < n; s++) {
+                for (int t = 0; t < n; t++) {
+                    if (d[s][k] != Double.MAX_VALUE && d[k][t] != Double.MAX_VALUE) {
+                        d[s][t] = Math.min(d[s][t], d[s][k] + d[k][t]);
+                    }
+                }
+            }
+        }
+        // the number of shortest paths, by increasing distance from s
+        for (int s = 0; s < n; s++) {
+            Integer[] byDistance = new Integer[n];
+            for (int t = 0; t < n; t++) {
+                byDistance[t] = t;
+            }
+            int src = s;
+            Arrays.sort(byDistance, (x, y) -> Double.compare(d[src][x], d[src][y]));
+            sigma[s][s] = 1;
+            for (int t : byDistance) {
+                for (int v = 0; v < n; v++) {
+                    if (t != s && g.hasEdge(v, t) && d[s][v] + g.getEdge(v, t) == d[s][t]) {
+                        sigma[s][t] += sigma[s][v];
+                    }
+                }
+            }
+        }
+        Map<Integer, Double> b = WGraph_Centrality.betweenness(g);
+        for (int v = 0; v < n; v++) {
+            double expected = 0;
+            for (int s = 0; s < n; s++) {
+                for (int t = s + 1; t < n; t++) {
+                    if (s != v && t != v && d[s][t] != Double.MAX_VALUE && d[s][v] + d[v][t] == d[s][t]) {
+                        expected += sigma[s][v] * sigma[v][t] / sigma[s][t];
+                    }
+                }
+            }
+            assertEquals(expected, b.get(v), 0.000001);
+        }
+        // sampling every node is exact
+        Map<Integer, Double> all = WGraph_Centrality.approximateBetweenness(g, n, 3);
+        Map<Integer, Double> c = WGraph_Centrality.closeness(g);
+        Map<Integer, Double> allC = WGraph_Centrality.approximateCloseness(g, 1000, 3);
+        for (int v = 0; v < n; v++) {
+            assertEquals(b.get(v), all.get(v), 0.000001);
+            assertEquals(c.get(v), allC.get(v), 0.000001);
+        }
+    }
+
+    @Test
+    void sampling() {
+        weighted_graph g = WGraph_DSTest.graph_creator(300, 1200, 9);
+        int samples = 150;
+        Map<Integer, Double> exact = WGraph_Centrality.betweenness(g);
+        Map<Integer, Double> approx = WGraph_Centrality.approximateBetweenness(g, samples, 1);
+        double bound = WGraph_Centrality.samplingError(300, samples, 0.01) * 300 * 298 / 2;
+        for (int v = 0; v < 300; v++) {
+            assertTrue(Math.abs(exact.get(v) - approx.get(v)) <= bound);
+        }
+        assertThrows(IllegalArgumentException.class, () -> WGraph_Centrality.approximateCloseness(g, 0, 1));
+    }
+}
@@ -0,0 +1,95 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_CommunitiesTest {
+
+    @Test
+    void modularity() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) {
+            g.addNode(i);
+        }
+        // two triangles joined by a single edge
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 1);
+        g.connect(0, 2, 1);
+        g.connect(3, 4, 1);
+        g.connect(4, 5, 1);
+        g.connect(3, 5, 1);
+        g.connect(2, 3, 1);
+        Map<Integer, Integer> labels = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            labels.put(i, i / 3);
+        }
+        // in = 2 * 3 per triangle, tot = 7 per triangle, 2m = 14
+        double expected = 2 * (6.0 / 14 - (7.0 / 14) * (7.0 / 14));
+        assertEquals(expected, WGraph_Communities.modularity(g, labels), 1e-12);
+        WGraph_Communities.Partition partition = WGraph_Communities.louvain(g);
+        assertEquals(2, partition.size());
+        assertEquals(expected, partition.modularity(), 1e-12);
+        assertEquals(partition.community(0), partition.community(2));
+        assertNotEquals(partition.community(2), partition.community(3));
+        assertEquals(-1, partition.community(99));
+        labels.remove(5);
+        assertThrows(IllegalArgumentException.class, () -> WGraph_Communities.modularity(g, labels));
+        assertThrows(IllegalArgumentException.class, () -> WGraph_Communities.louvain(g, 0, 1, true));
+        assertEquals(0, WGraph_Communities.louvain(new WGraph_DS()).size());
+    }
+
+    @Test
+    void plantedPartition() {
+        // 40 groups of 50 (random keys), dense inside, sparse and heavy-free between
+        int groups = 40;
+        int size = 50;
+        Random rnd = new Random(5);
+        weighted_graph g = new WGraph_DS();
+        int[] keys = new int[groups * size];
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < keys.length; i++) {
+            do {
+                keys[i] = rnd.nextInt(1_000_000) - 500_000;
+            } while (!used.add(keys[i]));
+            g.addNode(keys[i]);
+        }
+        for (int a = 0; a < keys.length; a++) {
+            for (int b = a + 1; b < keys.length; b++) {
+                boolean inside = a / size == b / size;
+                if (rnd.nextDouble() < (inside ? 0.3 : 0.002)) {
+                    g.connect(keys[a], keys[b], inside ? 1 + rnd.nextInt(3) : 1);
+                }
+            }
+        }
+        WGraph_Communities.Partition sequential = WGraph_Communities.louvain(g, 1, 7, false);
+        WGraph_Communities.Partition parallel = WGraph_Communities.louvain(g, 1, 7, true);
+        assertEquals(sequential.labels(), parallel.labels()); // the batches don't depend on the threads
+        assertEquals(groups, parallel.size());
+        for (int a = 0; a < keys.length; a++) {
+            assertEquals(parallel.community(keys[a - a % size]), parallel.community(keys[a]));
+        }
+        assertEquals(WGraph_Communities.modularity(g, parallel.labels()), parallel.modularity(), 1e-9);
+        assertTrue(parallel.modularity() > 0.8);
+        assertTrue(parallel.levels() >= 1);
+        // a high resolution splits the groups
+        assertTrue(WGraph_Communities.louvain(g, 100, 7, true).size() > groups);
+    }
+
+    @Test
+    void grid() {
+        weighted_graph g = new WGraph_DS();
+        WGraph_Generator.grid(60, 60, WGraph_Generator.Weights.uniform(1, 2), 3, WGraph_Generator.Sink.of(g));
+        WGraph_Communities.Partition partition = WGraph_Communities.louvain(g);
+        assertTrue(partition.modularity() > 0.85, partition.toString());
+        assertTrue(partition.levels() >= 2);
+        assertEquals(WGraph_Communities.modularity(g, partition.labels()), partition.modularity(), 1e-9);
+    }
+}
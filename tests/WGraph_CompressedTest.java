@@ -0,0 +1,54 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_CompressedTest {
+
+    @Test
+    void copyOfGraph() {
+        weighted_graph g = WGraph_DSTest.graph_creator(60, 250, 5);
+        g.addNode(-40); // the keys are not dense anymore
+        g.connect(-40, 59, 2.5);
+        WGraph_Compressed c = WGraph_Compressed.of(g);
+        assertEquals(g.nodeSize(), c.nodeSize());
+        assertEquals(g.edgeSize(), c.edgeSize());
+        for (node_info n : g.getV()) {
+            assertEquals(n.getKey(), c.getNode(n.getKey()).getKey());
+            assertEquals(g.getV(n.getKey()).size(), c.getV(n.getKey()).size());
+            for (node_info m : g.getV()) {
+                assertEquals(g.hasEdge(n.getKey(), m.getKey()), c.hasEdge(n.getKey(), m.getKey()));
+                assertEquals(g.getEdge(n.getKey(), m.getKey()), c.getEdge(n.getKey(), m.getKey()));
+            }
+        }
+        assertNull(c.getNode(60));
+        assertThrows(IllegalArgumentException.class, () -> c.getV(60));
+        assertThrows(UnsupportedOperationException.class, () -> c.connect(0, 1, 1));
+        c.getNode(3).setTag(2);
+        assertEquals(2, c.getNode(3).getTag());
+    }
+
+    @Test
+    void weights() {
+        weighted_graph g = WGraph_Reorder.relabel(WGraph_DSTest.graph_creator(300, 1200, 11),
+                WGraph_Reorder.reverseCuthillMcKee(WGraph_DSTest.graph_creator(300, 1200, 11)));
+        WGraph_Algo exact = new WGraph_Algo();
+        exact.init(g);
+        for (WGraph_Compressed.Weights weights : WGraph_Compressed.Weights.values()) {
+            WGraph_Compressed c = WGraph_Compressed.of(g, weights);
+            assertEquals(weights, c.getWeights());
+            assertTrue(c.compressedBytes() < c.uncompressedBytes());
+            WGraph_Algo ag = new WGraph_Algo();
+            ag.init(c);
+            double error = weights == WGraph_Compressed.Weights.EXACT ? 0 : 0.001;
+            for (int dest = 0; dest < 300; dest += 23) {
+                assertEquals(exact.shortestPathDist(0, dest), ag.shortestPathDist(0, dest), error + 0.0000001);
+            }
+        }
+        WGraph_Compressed exactCopy = WGraph_Compressed.of(g, WGraph_Compressed.Weights.EXACT);
+        WGraph_Compressed quantized = WGraph_Compressed.of(g, WGraph_Compressed.Weights.QUANTIZED);
+        assertTrue(quantized.adjacencyBytes() < exactCopy.adjacencyBytes());
+    }
+}
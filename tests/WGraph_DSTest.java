@@ -134,6 +134,120 @@ class WGraph_DSTest {
     }
 
 
+    @Test
+    void forEachNeighbor() {
+        weighted_graph g = graph_creator(10, 30, 2);
+        for (node_info n : g.getV()) {
+            int[] count = {0};
+            g.forEachNeighbor(n.getKey(), (key, w) -> {
+                assertEquals(g.getEdge(n.getKey(), key), w);
+                count[0]++;
+            });
+            assertEquals(g.getV(n.getKey()).size(), count[0]);
+        }
+        assertThrows(IllegalArgumentException.class, () -> g.forEachNeighbor(10, (key, w) -> {}));
+    }
+
+    @Test
+    void fingerprint() {
+        WGraph_DS g1 = new WGraph_DS();
+        WGraph_DS g2 = new WGraph_DS();
+        for (int i = 0; i < 5; i++) {
+            g1.addNode(i);
+            g2.addNode(4 - i);
+        }
+        g1.connect(0, 1, 1);
+        g1.connect(1, 2, 2);
+        g1.connect(3, 4, 3);
+        g2.connect(4, 3, 3);
+        g2.connect(2, 1, 2);
+        g2.connect(1, 0, 1);
+        assertEquals(g1.fingerprint(), g2.fingerprint());
+        assertEquals(g1, g2);
+        assertEquals(g1.hashCode(), g2.hashCode());
+        long before = g1.fingerprint();
+        g1.connect(0, 1, 1.5);
+        assertNotEquals(before, g1.fingerprint());
+        g1.connect(0, 1, 1);
+        g1.addNode(9);
+        g1.connect(9, 0, 1);
+        g1.removeNode(9);
+        assertEquals(before, g1.fingerprint()); // the same structure again
+        assertNotEquals(g1, g2); // but a different mode count
+
+        // the identity of a node doesn't depend on its tag, the adjacency sets stay consistent
+        for (node_info n : g2.getV()) {
+            n.setTag(n.getKey() * 10);
+            n.setInfo("changed");
+        }
+        assertTrue(g2.getV(1).contains(g2.getNode(0)));
+        g2.removeEdge(1, 0);
+        assertFalse(g2.getV(1).contains(g2.getNode(0)));
+        assertEquals(1, g2.getV(1).size());
+    }
+
+    @Test
+    void attributes() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 5; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 2);
+        g.getNode(1).setInfo("red");
+        g.getNode(3).setInfo("red");
+        g.getNode(4).setInfo("blue");
+        assertEquals("info: red", g.getNode(1).getInfo());
+        assertEquals("info: ", g.getNode(0).getInfo());
+        assertEquals(2, g.nodesWithInfo("red").size());
+        assertEquals(0, g.nodesWithInfo("green").size());
+
+        g.setEdgeAttribute("capacity", 1, 0, 7);
+        assertEquals(7, g.getEdgeAttribute("capacity", 0, 1, -1));
+        assertEquals(-1, g.getEdgeAttribute("capacity", 1, 2, -1));
+        assertThrows(IllegalArgumentException.class, () -> g.setEdgeAttribute("capacity", 0, 2, 1));
+        g.removeEdge(0, 1);
+        assertEquals(-1, g.getEdgeAttribute("capacity", 0, 1, -1));
+
+        node_info removed = g.removeNode(3);
+        g.addNode(5);
+        assertEquals("info: red", removed.getInfo());
+        assertEquals("info: ", g.getNode(5).getInfo());
+        assertEquals(1, g.nodesWithInfo("red").size());
+
+        g.setAllTags(2.5);
+        for (node_info n : g.getV()) {
+            assertEquals(2.5, n.getTag());
+        }
+        assertEquals(0, removed.getTag());
+    }
+
+    @Test
+    void infoDictionary() {
+        WGraph_DS g = new WGraph_DS();
+        g.addNode(0);
+        g.addNode(1);
+        g.getNode(1).setInfo("shared");
+        for (int i = 0; i < 100000; i++) {
+            g.getNode(0).setInfo("label " + i);
+            assertTrue(g.infoDictionarySize() <= 3);
+        }
+        assertEquals("info: label 99999", g.getNode(0).getInfo());
+        assertEquals(1, g.nodesWithInfo("shared").size());
+        assertEquals(0, g.nodesWithInfo("label 5").size());
+        g.getNode(0).setInfo("shared");
+        assertEquals(2, g.infoDictionarySize());
+        assertEquals(2, g.nodesWithInfo("shared").size());
+        node_info removed = g.removeNode(1);
+        g.removeNode(0);
+        assertEquals(1, g.infoDictionarySize()); // only the empty info
+        assertEquals("info: shared", removed.getInfo()); // a removed node keeps its info
+        g.addNode(2);
+        g.getNode(2).setInfo("new");
+        assertEquals("info: new", g.getNode(2).getInfo());
+        assertEquals(2, g.infoDictionarySize());
+    }
+
     ///////////////////////////////////
     /**
      * Generate a random graph with v_size nodes and e_size edges
@@ -0,0 +1,51 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_EccentricityTest {
+
+    @Test
+    void exact() {
+        for (int seed = 1; seed <= 5; seed++) {
+            weighted_graph g = WGraph_DSTest.graph_creator(150, 300, seed);
+            g.addNode(1000);
+            g.addNode(1001);
+            g.connect(1000, 1001, 0.5); // another component
+            double diameter = 0;
+            double radius = Double.MAX_VALUE;
+            Map<Integer, Double> all = WGraph_Eccentricity.eccentricities(g);
+            for (node_info n : g.getV()) {
+                double e = WGraph_Eccentricity.eccentricity(g, n.getKey());
+                assertEquals(e, all.get(n.getKey()), 0.0000001);
+                diameter = Math.max(diameter, e);
+                radius = Math.min(radius, e);
+            }
+            WGraph_Eccentricity.Bounds d = WGraph_Eccentricity.diameter(g);
+            assertTrue(d.isExact());
+            assertEquals(diameter, d.lower(), 0.0000001);
+            assertTrue(d.searches() < g.nodeSize());
+            WGraph_Eccentricity.Bounds r = WGraph_Eccentricity.radius(g);
+            assertTrue(r.isExact());
+            assertEquals(radius, r.upper(), 0.0000001);
+        }
+        assertEquals(-1, WGraph_Eccentricity.eccentricity(new WGraph_DS(), 1));
+        assertEquals(0, WGraph_Eccentricity.diameter(new WGraph_DS()).upper());
+    }
+
+    @Test
+    void budget() {
+        weighted_graph g = WGraph_DSTest.graph_creator(2000, 6000, 3);
+        WGraph_Eccentricity.Bounds exact = WGraph_Eccentricity.diameter(g);
+        WGraph_Eccentricity.Bounds quick = WGraph_Eccentricity.diameter(g, 0);
+        assertEquals(1, quick.searches());
+        assertTrue(quick.lower() <= exact.lower() && exact.upper() <= quick.upper());
+        WGraph_Eccentricity.Bounds radius = WGraph_Eccentricity.radius(g, 0);
+        double r = WGraph_Eccentricity.radius(g).lower();
+        assertTrue(radius.lower() <= r && r <= radius.upper());
+    }
+}
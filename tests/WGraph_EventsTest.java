@@ -0,0 +1,139 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_EventsTest {
+
+    @Test
+    void types() {
+        WGraph_DS g = new WGraph_DS();
+        List<String> events = new ArrayList<>();
+        WGraph_Events.Listener listener = batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                WGraph_Events.Type type = batch.type(i);
+                events.add(type == WGraph_Events.Type.NODE_ADDED || type == WGraph_Events.Type.NODE_REMOVED
+                        ? type + " " + batch.node1(i)
+                        : type + " " + batch.node1(i) + "-" + batch.node2(i) + " " + batch.weight(i) + " " + batch.oldWeight(i));
+            }
+        };
+        g.addListener(listener);
+        g.addNode(1);
+        g.addNode(2);
+        g.addNode(2); // no action - no event
+        g.connect(1, 2, 3);
+        g.connect(2, 1, 4);
+        g.removeNode(1);
+        g.flushEvents();
+        assertEquals(List.of("NODE_ADDED 1", "NODE_ADDED 2", "EDGE_ADDED 1-2 3.0 NaN", "EDGE_REWEIGHTED 2-1 4.0 3.0",
+                "EDGE_REMOVED 1-2 4.0 NaN", "NODE_REMOVED 1"), events);
+        g.removeListener(listener);
+        g.addNode(5);
+        g.flushEvents();
+        assertEquals(6, events.size());
+    }
+
+    @Test
+    void mirror() {
+        WGraph_DS g = new WGraph_DS();
+        WGraph_DS mirror = new WGraph_DS();
+        int[] batches = {0};
+        WGraph_Events.Listener listener = batch -> {
+            batches[0]++;
+            for (int i = 0; i < batch.size(); i++) {
+                switch (batch.type(i)) {
+                    case NODE_ADDED:
+                        mirror.addNode(batch.node1(i));
+                        break;
+                    case NODE_REMOVED:
+                        mirror.removeNode(batch.node1(i));
+                        break;
+                    case EDGE_ADDED:
+                    case EDGE_REWEIGHTED:
+                        mirror.connect(batch.node1(i), batch.node2(i), batch.weight(i));
+                        break;
+                    case EDGE_REMOVED:
+                        mirror.removeEdge(batch.node1(i), batch.node2(i));
+                        break;
+                }
+            }
+        };
+        g.addListener(listener);
+        Random rnd = new Random(3);
+        int mutations = 200000; // more than the ring holds
+        for (int i = 0; i < mutations; i++) {
+            int a = rnd.nextInt(500);
+            int b = rnd.nextInt(500);
+            int op = rnd.nextInt(10);
+            if (op < 2) {
+                g.addNode(a);
+            }
+            else if (op < 3) {
+                g.removeNode(a);
+            }
+            else if (g.getNode(a) != null && g.getNode(b) != null) {
+                if (op < 8) {
+                    g.connect(a, b, rnd.nextInt(5));
+                }
+                else {
+                    g.removeEdge(a, b);
+                }
+            }
+        }
+        g.flushEvents();
+        assertEquals(g.fingerprint(), mirror.fingerprint());
+        assertEquals(g.nodeSize(), mirror.nodeSize());
+        assertEquals(g.edgeSize(), mirror.edgeSize());
+        assertTrue(batches[0] < mutations); // delivered in batches
+        g.removeListener(listener);
+    }
+
+    @Test
+    void failingListener() {
+        WGraph_DS g = new WGraph_DS();
+        List<Integer> keys = new ArrayList<>();
+        WGraph_Events.Listener failing = batch -> {
+            throw new AssertionError("an Error, not a RuntimeException");
+        };
+        WGraph_Events.Listener listener = batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                keys.add(batch.node1(i));
+            }
+        };
+        g.addListener(failing);
+        g.addListener(listener);
+        g.addNode(1);
+        g.flushEvents();
+        g.addNode(2); // the delivery thread survived the Error
+        g.flushEvents();
+        assertEquals(List.of(1, 2), keys);
+        g.removeListener(failing);
+        g.removeListener(listener);
+    }
+
+    @Test
+    void removeFromListener() {
+        WGraph_DS g = new WGraph_DS();
+        List<Integer> keys = new ArrayList<>();
+        WGraph_Events.Listener[] self = new WGraph_Events.Listener[1];
+        self[0] = batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                keys.add(batch.node1(i));
+            }
+            g.removeListener(self[0]); // the last listener - closes the events on the delivery thread
+        };
+        g.addListener(self[0]);
+        g.addNode(1);
+        g.flushEvents(); // doesn't hang
+        assertEquals(List.of(1), keys);
+        g.addNode(2);
+        g.flushEvents();
+        assertEquals(List.of(1), keys);
+    }
+}
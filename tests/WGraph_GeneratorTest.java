@@ -0,0 +1,81 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_GeneratorTest {
+
+    @Test
+    void grid() {
+        weighted_graph g = new WGraph_DS();
+        long generated = WGraph_Generator.grid(300, 500, WGraph_Generator.Weights.uniform(1, 2), 7, WGraph_Generator.Sink.of(g));
+        assertEquals(300 * 500, g.nodeSize());
+        assertEquals(300 * 499 + 500 * 299, g.edgeSize());
+        assertEquals(generated, g.edgeSize());
+        assertTrue(g.hasEdge(0, 1));
+        assertTrue(g.hasEdge(0, 500));
+        assertFalse(g.hasEdge(499, 500));
+        double w = g.getEdge(1000, 1001);
+        assertTrue(w >= 1 && w < 2);
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        assertTrue(algo.isConnected());
+    }
+
+    @Test
+    void deterministic() {
+        weighted_graph g1 = new WGraph_DS();
+        weighted_graph g2 = new WGraph_DS();
+        WGraph_Generator.barabasiAlbert(20000, 3, WGraph_Generator.Weights.exponential(1), 11, WGraph_Generator.Sink.of(g1));
+        WGraph_Generator.barabasiAlbert(20000, 3, WGraph_Generator.Weights.exponential(1), 11, WGraph_Generator.Sink.of(g2));
+        assertEquals(g1, g2);
+        weighted_graph g3 = new WGraph_DS();
+        WGraph_Generator.barabasiAlbert(20000, 3, WGraph_Generator.Weights.exponential(1), 12, WGraph_Generator.Sink.of(g3));
+        assertNotEquals(g1, g3);
+
+        WGraph_OffHeap.Builder builder = new WGraph_OffHeap.Builder();
+        weighted_graph g4 = new WGraph_DS();
+        WGraph_Generator.rmat(12, 8, 0.57, 0.19, 0.19, WGraph_Generator.Weights.constant(1), 5, WGraph_Generator.Sink.of(builder));
+        WGraph_Generator.rmat(12, 8, 0.57, 0.19, 0.19, WGraph_Generator.Weights.constant(1), 5, WGraph_Generator.Sink.of(g4));
+        try (WGraph_OffHeap offHeap = builder.build()) {
+            assertEquals(g4.nodeSize(), offHeap.nodeSize());
+            assertEquals(g4.edgeSize(), offHeap.edgeSize());
+            for (node_info n : g4.getV()) {
+                assertEquals(g4.getV(n.getKey()).size(), offHeap.getV(n.getKey()).size());
+            }
+        }
+    }
+
+    @Test
+    void erdosRenyi() {
+        weighted_graph g = new WGraph_DS();
+        int n = 4000;
+        double p = 0.01;
+        long generated = WGraph_Generator.erdosRenyi(n, p, WGraph_Generator.Weights.constant(1), 3, WGraph_Generator.Sink.of(g));
+        assertEquals(generated, g.edgeSize()); // no repeated edges
+        double expected = p * n * (n - 1) / 2;
+        assertEquals(expected, g.edgeSize(), 5 * Math.sqrt(expected));
+        weighted_graph complete = new WGraph_DS();
+        WGraph_Generator.erdosRenyi(50, 1, WGraph_Generator.Weights.constant(1), 3, WGraph_Generator.Sink.of(complete));
+        assertEquals(50 * 49 / 2, complete.edgeSize());
+    }
+
+    @Test
+    void barabasiAlbert() {
+        weighted_graph g = new WGraph_DS();
+        int n = 50000;
+        WGraph_Generator.barabasiAlbert(n, 4, WGraph_Generator.Weights.constant(1), 9, WGraph_Generator.Sink.of(g));
+        assertEquals(n, g.nodeSize());
+        assertTrue(g.edgeSize() > 0.9 * 4 * n && g.edgeSize() <= 4 * n);
+        int maxDegree = 0;
+        for (node_info node : g.getV()) {
+            maxDegree = Math.max(maxDegree, g.getV(node.getKey()).size());
+        }
+        assertTrue(maxDegree > 200); // hubs - a heavy tail
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        assertTrue(algo.isConnected());
+    }
+}
@@ -0,0 +1,74 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_HubLabelsTest {
+
+    @Test
+    void exact() {
+        for (int seed = 1; seed <= 4; seed++) {
+            weighted_graph g = WGraph_DSTest.graph_creator(300, 900, seed);
+            g.addNode(-5);
+            g.addNode(1000);
+            g.connect(-5, 1000, 2); // another component
+            WGraph_Algo algo = new WGraph_Algo();
+            algo.init(g);
+            WGraph_HubLabels sequential = WGraph_HubLabels.build(g, 1);
+            WGraph_HubLabels parallel = WGraph_HubLabels.build(g, 4);
+            assertEquals(g.nodeSize(), sequential.nodeSize());
+            assertTrue(parallel.labelEntries() >= sequential.labelEntries());
+            int[] keys = {0, 7, 150, 299, -5, 1000};
+            for (int src : keys) {
+                for (node_info n : g.getV()) {
+                    double expected = algo.shortestPathDist(src, n.getKey());
+                    assertEquals(expected, sequential.shortestPathDist(src, n.getKey()), 0.0000001);
+                    assertEquals(expected, parallel.shortestPathDist(n.getKey(), src), 0.0000001);
+                }
+            }
+        }
+    }
+
+    @Test
+    void grid() {
+        weighted_graph g = new WGraph_DS();
+        WGraph_Generator.grid(30, 30, WGraph_Generator.Weights.uniform(1, 2), 3, WGraph_Generator.Sink.of(g));
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        WGraph_HubLabels labels = WGraph_HubLabels.build(g);
+        for (int src = 0; src < 900; src += 97) {
+            for (int dest = 0; dest < 900; dest++) {
+                assertEquals(algo.shortestPathDist(src, dest), labels.shortestPathDist(src, dest), 0.0000001);
+            }
+        }
+        assertTrue(labels.averageLabelSize() < 900);
+        assertTrue(labels.bytes() > 0);
+        assertEquals(-1, labels.shortestPathDist(0, 900));
+        assertEquals(0, labels.shortestPathDist(5, 5));
+    }
+
+    @Test
+    void saveLoad() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(200, 500, 5);
+        WGraph_HubLabels labels = WGraph_HubLabels.build(g, 2);
+        File file = File.createTempFile("labels", ".hub");
+        try {
+            labels.save(file.getPath());
+            WGraph_HubLabels loaded = WGraph_HubLabels.load(file.getPath());
+            assertEquals(labels.labelEntries(), loaded.labelEntries());
+            assertTrue(file.length() < labels.bytes());
+            for (int src = 0; src < 200; src += 13) {
+                for (int dest = 0; dest < 200; dest++) {
+                    assertEquals(labels.shortestPathDist(src, dest), loaded.shortestPathDist(src, dest));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
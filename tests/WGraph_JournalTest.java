@@ -0,0 +1,183 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_JournalTest {
+
+    @Test
+    void recover() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("g").toString();
+        weighted_graph expected = WGraph_DSTest.graph_creator(50, 120, 3);
+        try (WGraph_Journal journal = WGraph_Journal.open(file, 16, 1000)) {
+            for (node_info node : expected.getV()) {
+                journal.addNode(node.getKey());
+            }
+            for (node_info node : expected.getV()) {
+                for (node_info ni : expected.getV(node.getKey())) {
+                    journal.connect(node.getKey(), ni.getKey(), expected.getEdge(node.getKey(), ni.getKey()));
+                }
+            }
+            journal.removeNode(7);
+            expected.removeNode(7);
+            journal.removeEdge(1, 2);
+            expected.removeEdge(1, 2);
+        }
+        try (WGraph_Journal journal = WGraph_Journal.open(file)) {
+            assertSameStructure(expected, journal);
+            assertTrue(journal.logBytes() > 0);
+        }
+        // WGraph_Algo.load replays the log as well, and save replaces it
+        WGraph_Algo ag = new WGraph_Algo();
+        assertTrue(ag.load(file));
+        assertSameStructure(expected, ag.getGraph());
+        assertTrue(ag.save(file));
+        assertFalse(Files.exists(Path.of(file + ".txt.log")));
+        ag = new WGraph_Algo();
+        assertTrue(ag.load(file));
+        assertSameStructure(expected, ag.getGraph());
+    }
+
+    @Test
+    void tornRecord() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("g").toString();
+        try (WGraph_Journal journal = WGraph_Journal.open(file, 1, 1000)) {
+            journal.addNode(1);
+            journal.addNode(2);
+            journal.connect(1, 2, 4.5);
+        }
+        Path log = Path.of(file + ".txt.log");
+        long whole = Files.size(log);
+        try (RandomAccessFile raf = new RandomAccessFile(log.toFile(), "rw")) {
+            raf.setLength(whole - 3); // a crash in the middle of the last record
+        }
+        try (WGraph_Journal journal = WGraph_Journal.open(file)) {
+            assertEquals(2, journal.nodeSize());
+            assertFalse(journal.hasEdge(1, 2));
+            journal.connect(1, 2, 1.5);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(log.toFile(), "rw")) {
+            raf.seek(Files.size(log) - 1);
+            int last = raf.read();
+            raf.seek(Files.size(log) - 1);
+            raf.write(last ^ 0xFF); // a corrupted checksum
+        }
+        try (WGraph_Journal journal = WGraph_Journal.open(file)) {
+            assertEquals(2, journal.nodeSize());
+            assertFalse(journal.hasEdge(1, 2));
+        }
+    }
+
+    @Test
+    void compact() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("g").toString();
+        try (WGraph_Journal journal = WGraph_Journal.open(file)) {
+            for (int i = 0; i < 10; i++) {
+                journal.addNode(i);
+            }
+            journal.connect(0, 9, 2);
+            journal.getNode(3).setInfo("kept");
+            journal.commit();
+            assertTrue(journal.logBytes() > 0);
+            journal.compact();
+            assertEquals(0, journal.logBytes());
+            journal.removeEdge(0, 9);
+        }
+        try (WGraph_Journal journal = WGraph_Journal.open(file)) {
+            assertEquals(10, journal.nodeSize());
+            assertEquals(0, journal.edgeSize());
+            assertEquals("info: kept", journal.getNode(3).getInfo());
+        }
+    }
+
+    @Test
+    void saveOpenJournal() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("g").toString();
+        try (WGraph_Journal journal = WGraph_Journal.open(file)) {
+            for (int i = 0; i < 10; i++) {
+                journal.addNode(i);
+            }
+            journal.connect(0, 1, 1);
+            WGraph_Algo ag = new WGraph_Algo();
+            ag.init(journal);
+            assertTrue(ag.save(file)); // compacts - the log stays the journal's
+            WGraph_Algo other = new WGraph_Algo();
+            other.init(WGraph_DSTest.graph_creator(3, 2, 1));
+            assertFalse(other.save(file)); // the journal keeps the file
+            journal.connect(2, 3, 4);
+            journal.removeNode(9);
+            journal.commit();
+        }
+        WGraph_Algo ag = new WGraph_Algo();
+        assertTrue(ag.load(file));
+        assertEquals(9, ag.getGraph().nodeSize());
+        assertEquals(4, ag.getGraph().getEdge(2, 3));
+        assertEquals(1, ag.getGraph().getEdge(0, 1));
+    }
+
+    @Test
+    void idleCommit() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("g").toString();
+        try (WGraph_Journal journal = WGraph_Journal.open(file, 1000, 20)) {
+            journal.addNode(1);
+            journal.addNode(2);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (journal.logBytes() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(journal.logBytes() > 0); // written without another mutation or commit()
+            assertEquals(journal.logBytes(), Files.size(Path.of(file + ".txt.log")));
+        }
+    }
+
+    @Test
+    void failedWrite() throws Exception {
+        String file = Files.createTempDirectory("journal").resolve("g").toString();
+        try (WGraph_Journal journal = WGraph_Journal.open(file, 1000, 60000)) {
+            journal.addNode(1);
+            journal.commit();
+            long committed = journal.logBytes();
+            journal.addNode(2);
+            journal.addNode(3);
+            Thread.currentThread().interrupt(); // the write fails with ClosedByInterruptException
+            assertThrows(UncheckedIOException.class, journal::commit);
+            assertTrue(Thread.interrupted());
+            assertEquals(committed, journal.logBytes());
+            assertEquals(committed, Files.size(Path.of(file + ".txt.log"))); // no torn record
+            journal.connect(2, 3, 5);
+            journal.commit(); // the group that failed is written again
+        }
+        try (WGraph_Journal journal = WGraph_Journal.open(file)) {
+            assertEquals(3, journal.nodeSize());
+            assertEquals(5, journal.getEdge(2, 3));
+        }
+        // a log that can't be restored fails the journal
+        try (WGraph_Journal journal = WGraph_Journal.open(file, 1000, 60000)) {
+            journal.addNode(4);
+            Files.delete(Path.of(file + ".txt.log"));
+            Thread.currentThread().interrupt();
+            assertThrows(UncheckedIOException.class, journal::commit);
+            assertTrue(Thread.interrupted());
+            assertThrows(IllegalStateException.class, () -> journal.addNode(5));
+            assertNull(journal.getNode(5));
+        }
+    }
+
+    private static void assertSameStructure(weighted_graph expected, weighted_graph actual) {
+        assertEquals(expected.nodeSize(), actual.nodeSize());
+        assertEquals(expected.edgeSize(), actual.edgeSize());
+        for (node_info node : expected.getV()) {
+            assertNotNull(actual.getNode(node.getKey()));
+            for (node_info ni : expected.getV(node.getKey())) {
+                assertEquals(expected.getEdge(node.getKey(), ni.getKey()), actual.getEdge(node.getKey(), ni.getKey()));
+            }
+        }
+    }
+}
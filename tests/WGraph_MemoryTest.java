@@ -0,0 +1,90 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_MemoryTest {
+
+    @Test
+    void footprint() {
+        WGraph_DS g = new WGraph_DS();
+        WGraph_Memory empty = g.memoryFootprint();
+        WGraph_Generator.grid(100, 100, WGraph_Generator.Weights.uniform(1, 10), 1, WGraph_Generator.Sink.of(g));
+        g.getNode(5).setInfo("a");
+        WGraph_Memory memory = g.memoryFootprint();
+        assertEquals(7, memory.parts().size());
+        long sum = 0;
+        for (long bytes : memory.parts().values()) {
+            assertTrue(bytes > 0);
+            sum += bytes;
+        }
+        assertEquals(sum, memory.total());
+        assertTrue(memory.total() > empty.total());
+        assertTrue(memory.toString().contains("adjacency maps"));
+        // the estimate of the same size is close to the breakdown (a grid is almost regular)
+        long estimate = WGraph_Memory.estimate(WGraph_Memory.Backend.DS, g.nodeSize(), g.edgeSize());
+        assertTrue(Math.abs(estimate - memory.total()) < memory.total() / 10, estimate + " " + memory.total());
+        g.removeEdge(0, 1);
+        assertTrue(g.memoryFootprint().parts().get("adjacency maps") < memory.parts().get("adjacency maps"));
+    }
+
+    @Test
+    void backends() {
+        Map<WGraph_Memory.Backend, Long> estimates = WGraph_Memory.estimates(100000, 1000000);
+        long previous = Long.MAX_VALUE;
+        for (WGraph_Memory.Backend backend : WGraph_Memory.Backend.values()) {
+            assertTrue(estimates.get(backend) < previous, backend.toString()); // the order of Backend
+            previous = estimates.get(backend);
+        }
+        long offHeap = estimates.get(WGraph_Memory.Backend.OFF_HEAP);
+        assertEquals(WGraph_Memory.Backend.DS, WGraph_Memory.choose(100000, 1000000, Long.MAX_VALUE));
+        assertEquals(WGraph_Memory.Backend.OFF_HEAP, WGraph_Memory.choose(100000, 1000000, offHeap));
+        assertNull(WGraph_Memory.choose(100000, 1000000, 1000));
+
+        weighted_graph g = new WGraph_DS();
+        WGraph_Generator.erdosRenyi(2000, 0.01, WGraph_Generator.Weights.uniform(0, 5), 2, WGraph_Generator.Sink.of(g));
+        try (WGraph_OffHeap oh = WGraph_OffHeap.of(g)) {
+            long estimate = WGraph_Memory.estimate(WGraph_Memory.Backend.OFF_HEAP, g.nodeSize(), g.edgeSize());
+            assertTrue(Math.abs(estimate - oh.offHeapBytes()) < oh.offHeapBytes() / 20, estimate + " " + oh.offHeapBytes());
+        }
+        assertSame(g, WGraph_Memory.fit(g, Long.MAX_VALUE));
+        long budget = WGraph_Memory.estimate(WGraph_Memory.Backend.COMPRESSED_EXACT, g.nodeSize(), g.edgeSize()) * 11 / 10;
+        weighted_graph compact = WGraph_Memory.fit(g, budget);
+        assertTrue(compact instanceof WGraph_Compressed);
+        assertTrue(((WGraph_Compressed) compact).compressedBytes() <= budget);
+        assertEquals(g.edgeSize(), compact.edgeSize());
+        assertEquals(g.getEdge(0, 1), compact.getEdge(0, 1));
+        assertThrows(IllegalStateException.class, () -> WGraph_Memory.fit(g, 1000));
+    }
+
+    @Test
+    void budget() {
+        WGraph_DS g = new WGraph_DS();
+        assertEquals(Long.MAX_VALUE, g.getMemoryBudget());
+        assertThrows(IllegalArgumentException.class, () -> g.setMemoryBudget(0));
+        g.setMemoryBudget(WGraph_Memory.estimate(WGraph_Memory.Backend.DS, 1000, 2000));
+        for (int i = 0; i < 1000; i++) {
+            g.addNode(i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            g.connect(i, (i + 1) % 1000, 1);
+            g.connect(i, (i + 2) % 1000, 1);
+        }
+        int edges = g.edgeSize();
+        assertEquals(2000, edges);
+        int mc = g.getMC();
+        assertThrows(IllegalStateException.class, () -> g.addNode(1000));
+        assertEquals(mc, g.getMC()); // failed before any change
+        assertThrows(IllegalStateException.class, () -> g.connect(0, 500, 1));
+        assertFalse(g.hasEdge(0, 500));
+        g.connect(0, 1, 5); // reweighting doesn't grow the graph
+        assertEquals(5, g.getEdge(0, 1), 0);
+        g.removeEdge(0, 1);
+        g.connect(0, 500, 1);
+        assertEquals(edges, g.edgeSize());
+    }
+}
@@ -0,0 +1,94 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_OffHeapTest {
+
+    @Test
+    void copyOfGraph() {
+        weighted_graph g = WGraph_DSTest.graph_creator(50, 200, 3);
+        try (WGraph_OffHeap off = WGraph_OffHeap.of(g)) {
+            assertEquals(g.nodeSize(), off.nodeSize());
+            assertEquals(g.edgeSize(), off.edgeSize());
+            for (node_info n : g.getV()) {
+                assertEquals(n.getKey(), off.getNode(n.getKey()).getKey());
+                assertEquals(g.getV(n.getKey()).size(), off.getV(n.getKey()).size());
+                for (node_info m : g.getV()) {
+                    assertEquals(g.hasEdge(n.getKey(), m.getKey()), off.hasEdge(n.getKey(), m.getKey()));
+                    assertEquals(g.getEdge(n.getKey(), m.getKey()), off.getEdge(n.getKey(), m.getKey()));
+                }
+            }
+            assertNull(off.getNode(50));
+        }
+    }
+
+    @Test
+    void builder() {
+        WGraph_OffHeap.Builder builder = new WGraph_OffHeap.Builder();
+        builder.addNode(-5).addNode(7).addNode(3).addNode(7);
+        builder.connect(-5, 7, 1).connect(7, 3, 2).connect(3, 3, 4).connect(7, -5, 9);
+        assertThrows(IllegalArgumentException.class, () -> builder.connect(3, 4, 1));
+        WGraph_OffHeap g = builder.build();
+        assertThrows(IllegalStateException.class, () -> builder.addNode(1));
+        assertEquals(3, g.nodeSize());
+        assertEquals(2, g.edgeSize());
+        assertEquals(9, g.getEdge(-5, 7));
+        assertEquals(9, g.getEdge(7, -5));
+        assertFalse(g.hasEdge(3, 3));
+        assertEquals(-1, g.getEdge(3, -5));
+        double[] sum = {0};
+        g.forEachNeighbor(7, (key, w) -> sum[0] += key * w);
+        assertEquals(-5 * 9 + 3 * 2, sum[0]);
+        node_info n = g.getNode(3);
+        n.setTag(1.5);
+        n.setInfo("three");
+        assertEquals(1.5, g.getNode(3).getTag());
+        assertEquals("three", g.getNode(3).getInfo());
+        assertThrows(UnsupportedOperationException.class, () -> g.addNode(1));
+        assertThrows(UnsupportedOperationException.class, () -> g.removeEdge(7, 3));
+        g.close();
+        assertTrue(g.isClosed());
+        assertThrows(IllegalStateException.class, () -> g.getEdge(-5, 7));
+    }
+
+    @Test
+    void closeReleases() {
+        BufferPoolMXBean direct = null;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct = pool;
+            }
+        }
+        assertNotNull(direct);
+        WGraph_OffHeap g = WGraph_OffHeap.of(WGraph_DSTest.graph_creator(20000, 100000, 5));
+        long before = direct.getMemoryUsed();
+        long bytes = g.offHeapBytes();
+        g.close();
+        assertTrue(before - direct.getMemoryUsed() >= bytes, before + " " + direct.getMemoryUsed()); // without a GC
+    }
+
+    @Test
+    void algorithms() {
+        weighted_graph g = WGraph_DSTest.graph_creator(200, 600, 7);
+        WGraph_Algo onHeap = new WGraph_Algo();
+        onHeap.init(g);
+        try (WGraph_OffHeap off = WGraph_OffHeap.of(g)) {
+            WGraph_Algo offHeap = new WGraph_Algo();
+            offHeap.init(off);
+            assertEquals(onHeap.isConnected(), offHeap.isConnected());
+            for (int dest = 0; dest < 200; dest += 17) {
+                assertEquals(onHeap.shortestPathDist(0, dest), offHeap.shortestPathDist(0, dest), 0.0000001);
+            }
+            List<Map.Entry<node_info, Double>> ball = offHeap.withinRadius(0, 0.5, null);
+            assertEquals(onHeap.withinRadius(0, 0.5, null).size(), ball.size());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_QueryBatcherTest {
+
+    @Test
+    void batches() throws Exception {
+        weighted_graph g = WGraph_DSTest.graph_creator(400, 1500, 2);
+        WGraph_Algo ag = new WGraph_Algo();
+        ag.init(g);
+        int[] sources = {3, 250, 3, 99};
+        try (WGraph_QueryBatcher batcher = new WGraph_QueryBatcher(g, 60000, 10000, 2)) {
+            List<CompletableFuture<Double>> results = new ArrayList<>();
+            for (int dest = 0; dest < 400; dest += 3) {
+                for (int src : sources) {
+                    results.add(batcher.shortestPathDist(src, dest));
+                }
+            }
+            results.add(batcher.shortestPathDist(3, 1000));
+            batcher.flush();
+            int i = 0;
+            for (int dest = 0; dest < 400; dest += 3) {
+                for (int src : sources) {
+                    assertEquals(ag.shortestPathDist(src, dest), results.get(i++).get(10, TimeUnit.SECONDS), 0.0000001);
+                }
+            }
+            assertEquals(-1, (double) results.get(i).get(10, TimeUnit.SECONDS));
+            assertEquals(3, batcher.searches());
+            assertEquals(results.size(), batcher.queries());
+        }
+        assertEquals(ag.shortestPathDist(1, 2), ag.shortestPathDists(1, new int[]{2, 2})[1]);
+    }
+
+    @Test
+    void windowAndSize() throws Exception {
+        weighted_graph g = WGraph_DSTest.graph_creator(100, 300, 8);
+        WGraph_Algo ag = new WGraph_Algo();
+        ag.init(g);
+        try (WGraph_QueryBatcher bySize = new WGraph_QueryBatcher(g, 60000, 5, 1)) {
+            List<CompletableFuture<Double>> results = new ArrayList<>();
+            for (int dest = 0; dest < 5; dest++) {
+                results.add(bySize.shortestPathDist(0, dest));
+            }
+            for (int dest = 0; dest < 5; dest++) {
+                assertEquals(ag.shortestPathDist(0, dest), results.get(dest).get(10, TimeUnit.SECONDS), 0.0000001);
+            }
+        }
+        try (WGraph_QueryBatcher byWindow = new WGraph_QueryBatcher(g, 5, 1000, 1)) {
+            assertEquals(ag.shortestPathDist(7, 70), byWindow.shortestPathDist(7, 70).get(10, TimeUnit.SECONDS), 0.0000001);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_QueryBatcher(g, 0, 1, 1));
+    }
+}
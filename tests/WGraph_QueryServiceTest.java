@@ -0,0 +1,111 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_QueryServiceTest {
+
+    @Test
+    void queries() throws Exception {
+        weighted_graph g = WGraph_DSTest.graph_creator(300, 1200, 4);
+        WGraph_Algo ag = new WGraph_Algo();
+        ag.init(g);
+        try (WGraph_QueryService service = new WGraph_QueryService(g, 4, 1000)) {
+            List<CompletableFuture<Double>> distances = new ArrayList<>();
+            for (int dest = 0; dest < 300; dest++) {
+                distances.add(service.shortestPathDist(0, dest, 10000));
+            }
+            for (int dest = 0; dest < 300; dest++) {
+                assertEquals(ag.shortestPathDist(0, dest), distances.get(dest).get(), 0.0000001);
+            }
+            assertEquals(ag.shortestPath(5, 77).size(), service.shortestPath(5, 77, 10000).get().size());
+            assertNull(service.shortestPath(5, 1000, 10000).get());
+            assertEquals(302, service.completed());
+            assertTrue(service.latencyPercentile(50) <= service.latencyPercentile(99));
+            assertEquals(0, service.rejected());
+        }
+    }
+
+    @Test
+    void admissionAndDeadlines() throws Exception {
+        weighted_graph g = WGraph_DSTest.graph_creator(20000, 80000, 6);
+        try (WGraph_QueryService service = new WGraph_QueryService(g, 1, 2)) {
+            List<CompletableFuture<Double>> burst = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                burst.add(service.shortestPathDist(i, 19999 - i, 10000));
+            }
+            int rejected = 0;
+            for (CompletableFuture<Double> query : burst) {
+                try {
+                    query.get();
+                } catch (ExecutionException ex) {
+                    assertTrue(ex.getCause() instanceof RejectedExecutionException);
+                    rejected++;
+                }
+            }
+            assertTrue(rejected > 0);
+            assertEquals(rejected, service.rejected());
+
+            ExecutionException late = assertThrows(ExecutionException.class,
+                    () -> service.shortestPathDist(0, -1, 0).get());
+            assertTrue(late.getCause() instanceof TimeoutException);
+            assertEquals(1, service.timedOut());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_QueryService(g, 0, 1));
+    }
+
+    @Test
+    void errorsAndStuckQueries() throws Exception {
+        WGraph_DS failing = new WGraph_DS() {
+            @Override
+            public void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+                throw new StackOverflowError();
+            }
+        };
+        failing.addNode(0);
+        failing.addNode(1);
+        failing.connect(0, 1, 1);
+        try (WGraph_QueryService service = new WGraph_QueryService(failing, 1, 10)) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> service.shortestPathDist(0, 1, 60000).get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause() instanceof StackOverflowError);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (service.inFlight() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, service.inFlight()); // the permit was given back
+        }
+        WGraph_DS stuck = new WGraph_DS() {
+            @Override
+            public void forEachNeighbor(int node_id, IntDoubleConsumer action) {
+                try {
+                    Thread.sleep(2000); // never checks the deadline
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                super.forEachNeighbor(node_id, action);
+            }
+        };
+        stuck.addNode(0);
+        stuck.addNode(1);
+        stuck.connect(0, 1, 1);
+        try (WGraph_QueryService service = new WGraph_QueryService(stuck, 1, 10)) {
+            long start = System.nanoTime();
+            ExecutionException late = assertThrows(ExecutionException.class,
+                    () -> service.shortestPathDist(0, 1, 50).get());
+            assertTrue(late.getCause() instanceof TimeoutException);
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+            assertEquals(1, service.timedOut());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_ReorderTest {
+
+    @Test
+    void reverseCuthillMcKee() {
+        weighted_graph g = WGraph_DSTest.graph_creator(100, 300, 4);
+        int[] order = WGraph_Reorder.reverseCuthillMcKee(g);
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, sorted[i]);
+        }
+    }
+
+    @Test
+    void relabel() {
+        weighted_graph g = WGraph_DSTest.graph_creator(60, 150, 5);
+        int[] order = WGraph_Reorder.reverseCuthillMcKee(g);
+        WGraph_DS relabeled = WGraph_Reorder.relabel(g, order);
+        assertEquals(g.nodeSize(), relabeled.nodeSize());
+        assertEquals(g.edgeSize(), relabeled.edgeSize());
+        Map<Integer, Integer> newKey = new HashMap<>();
+        for (int i = 0; i < order.length; i++) {
+            newKey.put(order[i], i);
+        }
+        WGraph_Algo before = new WGraph_Algo();
+        before.init(g);
+        WGraph_Algo after = new WGraph_Algo();
+        after.init(relabeled);
+        for (int dest = 0; dest < 60; dest += 7) {
+            assertEquals(before.shortestPathDist(3, dest), after.shortestPathDist(newKey.get(3), newKey.get(dest)), 0.000001);
+        }
+        assertThrows(IllegalArgumentException.class, () -> WGraph_Reorder.relabel(g, new int[]{1, 2}));
+    }
+
+    @Test
+    void locality() {
+        // a path 0-1-2-...-199 whose keys are scattered
+        weighted_graph g = new WGraph_DS();
+        int n = 200;
+        for (int i = 0; i < n; i++) {
+            g.addNode(i * 7919 % n);
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            g.connect(i * 7919 % n, (i + 1) * 7919 % n, 1);
+        }
+        int[] order = WGraph_Reorder.reverseCuthillMcKee(g);
+        double[] locality = WGraph_Reorder.edgeLocality(g, order);
+        assertEquals(1, locality[0], 0.000001);
+        assertEquals(1, locality[1]);
+        WGraph_Reorder.Report report = WGraph_Reorder.evaluate(g, 5, 1);
+        assertTrue(report.meanGapAfter() < report.meanGapBefore());
+        assertTrue(report.nearEdgesAfter() >= report.nearEdgesBefore());
+    }
+
+    @Test
+    void partition() {
+        weighted_graph g = WGraph_DSTest.graph_creator(100, 300, 6);
+        Map<Integer, Integer> parts = WGraph_Reorder.partition(g, 4);
+        int[] sizes = new int[4];
+        for (int part : parts.values()) {
+            sizes[part]++;
+        }
+        for (int size : sizes) {
+            assertEquals(25, size);
+        }
+        assertThrows(IllegalArgumentException.class, () -> WGraph_Reorder.partition(g, 0));
+    }
+}
@@ -0,0 +1,42 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_ShardsTest {
+
+    @Test
+    void inProcess() {
+        weighted_graph g = WGraph_DSTest.graph_creator(120, 300, 8);
+        g.addNode(500); // an isolated node
+        WGraph_Algo ag = new WGraph_Algo();
+        ag.init(g);
+        try (WGraph_Shards shards = WGraph_Shards.inProcess(g, 4)) {
+            assertEquals(4, shards.shardCount());
+            for (int src = 0; src < 120; src += 11) {
+                for (int dest = 0; dest < 120; dest += 7) {
+                    assertEquals(ag.shortestPathDist(src, dest), shards.shortestPathDist(src, dest), 0.000001);
+                }
+                assertEquals(-1, shards.shortestPathDist(src, 500));
+            }
+            assertEquals(-1, shards.shortestPathDist(0, 1000));
+            assertEquals(-1, shards.shardOf(1000));
+        }
+    }
+
+    @Test
+    void localProcesses() throws Exception {
+        weighted_graph g = WGraph_DSTest.graph_creator(60, 150, 9);
+        WGraph_Algo ag = new WGraph_Algo();
+        ag.init(g);
+        try (WGraph_Shards shards = WGraph_Shards.localProcesses(g, 3)) {
+            for (int src = 0; src < 60; src += 13) {
+                for (int dest = 0; dest < 60; dest += 5) {
+                    assertEquals(ag.shortestPathDist(src, dest), shards.shortestPathDist(src, dest), 0.000001);
+                }
+            }
+        }
+    }
+}
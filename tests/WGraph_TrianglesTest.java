@@ -0,0 +1,76 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_TrianglesTest {
+
+    @Test
+    void small() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) {
+            g.addNode(i * 10);
+        }
+        for (int a = 0; a < 4; a++) { // K4 - 4 triangles
+            for (int b = a + 1; b < 4; b++) {
+                g.connect(a * 10, b * 10, a + b);
+            }
+        }
+        g.connect(30, 40, 1);
+        WGraph_Triangles triangles = WGraph_Triangles.of(g);
+        assertEquals(4, triangles.total());
+        assertEquals(3, triangles.triangles(0));
+        assertEquals(0, triangles.triangles(40));
+        assertEquals(0, triangles.triangles(99));
+        assertEquals(1, triangles.clustering(0), 1e-12);
+        assertEquals(0.5, triangles.clustering(30), 1e-12); // 3 of the 6 pairs of its 4 neighbors
+        assertEquals(0, triangles.clustering(50), 1e-12);
+        assertEquals((3 + 0.5) / 6, triangles.averageClustering(), 1e-12);
+        assertEquals(4 * 3 + 3, triangles.wedges());
+        assertEquals(12.0 / 15, triangles.transitivity(), 1e-12);
+        assertEquals(6, triangles.clusteringCoefficients().size());
+        assertEquals(0, WGraph_Triangles.of(new WGraph_DS()).total());
+    }
+
+    @Test
+    void sameAsNeighborSets() {
+        for (int seed = 1; seed <= 3; seed++) {
+            weighted_graph g = new WGraph_DS();
+            // hubs (galloping) and random keys (not 0..n-1)
+            WGraph_Generator.rmat(11, 12, 0.57, 0.19, 0.19, WGraph_Generator.Weights.constant(1), seed, WGraph_Generator.Sink.of(g));
+            g.addNode(-7);
+            for (node_info node : g.getV(0)) {
+                g.connect(-7, node.getKey(), 2);
+            }
+            WGraph_Triangles sequential = WGraph_Triangles.of(g, false);
+            WGraph_Triangles parallel = WGraph_Triangles.of(g, true);
+            long total = 0;
+            for (node_info node : g.getV()) {
+                int key = node.getKey();
+                long expected = 0;
+                for (node_info a : g.getV(key)) {
+                    for (node_info b : g.getV(key)) {
+                        if (a.getKey() < b.getKey() && g.hasEdge(a.getKey(), b.getKey())) {
+                            expected++;
+                        }
+                    }
+                }
+                total += expected;
+                assertEquals(expected, sequential.triangles(key));
+                assertEquals(expected, parallel.triangles(key));
+            }
+            assertEquals(total / 3, sequential.total());
+            assertEquals(total / 3, parallel.total());
+            Map<Integer, Double> coefficients = parallel.clusteringCoefficients();
+            for (node_info node : g.getV()) {
+                int d = g.getV(node.getKey()).size();
+                double expected = d < 2 ? 0 : 2.0 * parallel.triangles(node.getKey()) / ((double) d * (d - 1));
+                assertEquals(expected, coefficients.get(node.getKey()), 1e-12);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_ViewTest {
+
+    @Test
+    void sameAsCopy() {
+        for (int seed = 1; seed <= 5; seed++) {
+            weighted_graph g = WGraph_DSTest.graph_creator(200, 600, seed);
+            weighted_graph copy = algo(g).copy();
+            WGraph_View view = new WGraph_View(g);
+            BitSet mask = new BitSet();
+            for (int key = seed; key < 200; key += 17) {
+                mask.set(key);
+                copy.removeNode(key);
+            }
+            view.withoutNodes(mask).withoutNode(3);
+            copy.removeNode(3);
+            int changed = 0;
+            for (node_info n : copy.getV()) {
+                for (node_info ni : copy.getV(n.getKey())) {
+                    if (n.getKey() < ni.getKey() && changed < 40) {
+                        if (changed % 2 == 0) {
+                            view.withoutEdge(n.getKey(), ni.getKey());
+                            copy.removeEdge(n.getKey(), ni.getKey());
+                        }
+                        else {
+                            view.withWeight(ni.getKey(), n.getKey(), 0.25);
+                            copy.connect(n.getKey(), ni.getKey(), 0.25);
+                        }
+                        changed++;
+                        break;
+                    }
+                }
+            }
+            assertEquals(copy.nodeSize(), view.nodeSize());
+            assertEquals(copy.edgeSize(), view.edgeSize());
+            assertEquals(copy.getV().size(), view.getV().size());
+            weighted_graph_algorithms onCopy = algo(copy);
+            weighted_graph_algorithms onView = algo(view);
+            assertEquals(onCopy.isConnected(), onView.isConnected());
+            for (node_info n : copy.getV()) {
+                assertEquals(copy.getV(n.getKey()).size(), view.getV(n.getKey()).size());
+                assertEquals(onCopy.shortestPathDist(0, n.getKey()), onView.shortestPathDist(0, n.getKey()), 0.0000001);
+            }
+            assertNull(view.getNode(3));
+            assertFalse(view.hasEdge(3, 4));
+            assertNotNull(g.getNode(3)); // the graph itself didn't change
+        }
+    }
+
+    @Test
+    void filters() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 1);
+        g.connect(2, 5, 1);
+        g.connect(0, 3, 5);
+        g.connect(3, 4, 5);
+        g.connect(4, 5, 5);
+        WGraph_View view = new WGraph_View(g).filterEdges((a, b, w) -> w > 2);
+        assertEquals(3, view.edgeSize());
+        assertEquals(15, algo(view).shortestPathDist(0, 5));
+        view.filterEdges(null).filterNodes(key -> key != 1);
+        assertEquals(5, view.nodeSize());
+        assertEquals(4, view.edgeSize());
+        assertEquals(15, algo(view).shortestPathDist(0, 5));
+        assertEquals(-1, algo(view).shortestPathDist(0, 1));
+        view.filterNodes(null);
+        assertEquals(3, algo(view).shortestPathDist(0, 5));
+    }
+
+    @Test
+    void readOnly() {
+        weighted_graph g = new WGraph_DS();
+        g.addNode(1);
+        g.addNode(2);
+        g.connect(1, 2, 3);
+        WGraph_View view = new WGraph_View(g);
+        int mc = view.getMC();
+        assertThrows(UnsupportedOperationException.class, () -> view.addNode(3));
+        assertThrows(UnsupportedOperationException.class, () -> view.removeEdge(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> view.withWeight(1, 3, 1));
+        view.withoutEdge(1, 2);
+        assertTrue(view.getMC() > mc);
+        assertFalse(view.hasEdge(1, 2));
+        g.addNode(3);
+        g.connect(2, 3, 1); // the view follows the graph
+        assertEquals(1, view.getEdge(3, 2));
+        assertEquals(3, view.nodeSize());
+        assertEquals(1, view.edgeSize());
+    }
+
+    @Test
+    void neighbors() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = -2; i < 4; i++) {
+            g.addNode(i);
+        }
+        for (int i = -2; i < 4; i++) {
+            g.connect(0, i, i + 3);
+        }
+        WGraph_View view = new WGraph_View(g).withoutNode(-2).withoutNode(2).withoutEdge(0, 3).withWeight(1, 0, 7);
+        StringBuilder sb = new StringBuilder();
+        view.forEachNeighbor(0, (key, w) -> sb.append(key).append(':').append(w).append(' '));
+        assertEquals("-1:2.0 1:7.0 ", sb.toString());
+        assertEquals(2, view.getV(0).size());
+        assertEquals(4, view.nodeSize());
+        assertEquals(2, view.edgeSize());
+        assertThrows(IllegalArgumentException.class, () -> view.forEachNeighbor(-2, (key, w) -> {}));
+    }
+
+    private static weighted_graph_algorithms algo(weighted_graph g) {
+        weighted_graph_algorithms algo = new WGraph_Algo();
+        algo.init(g);
+        return algo;
+    }
+}